@@ -0,0 +1,44 @@
+package com.coolioasjulio.chess.benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+/**
+ * Runs the benchmarks like the JMH main class, with the same options, but always with the GC profiler, so every
+ * result includes the memory allocated per operation (gc.alloc.rate.norm). For example, to run only the board
+ * benchmarks and save the results:
+ * <pre>
+ * java -jar target/benchmarks.jar BoardBenchmark -rf json -rff board.json
+ * </pre>
+ */
+public class BenchmarkMain {
+    public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp()) {
+            commandLine.showHelp();
+            return;
+        }
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine);
+        boolean hasGcProfiler = false;
+        for (ProfilerConfig profiler : commandLine.getProfilers()) {
+            hasGcProfiler |= profiler.getKlass().equals("gc") || profiler.getKlass().equals(GCProfiler.class.getName());
+        }
+        if (!hasGcProfiler) {
+            options.addProfiler(GCProfiler.class);
+        }
+        Runner runner = new Runner(options.build());
+        if (commandLine.shouldList()) {
+            runner.list();
+        } else {
+            runner.run();
+        }
+    }
+}
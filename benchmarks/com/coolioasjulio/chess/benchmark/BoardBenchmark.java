@@ -0,0 +1,94 @@
+package com.coolioasjulio.chess.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.Move;
+import com.coolioasjulio.chess.MoveList;
+
+/**
+ * Benchmarks the board and move generation. Each operation is on the next position of the {@link Corpus}.
+ * Most operations clear the board's cache first, since otherwise they would only measure a cache lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+    private Board[] boards;
+    private Move[][] moves;
+    private final MoveList moveList = new MoveList();
+    private int index;
+    private int moveIndex;
+
+    @Setup
+    public void setup() {
+        boards = Corpus.loadBoards();
+        moves = new Move[boards.length][];
+        for (int i = 0; i < boards.length; i++) {
+            moves[i] = boards[i].getLegalMoves(boards[i].getTeamToMove());
+        }
+    }
+
+    private Board nextBoard() {
+        index = (index + 1) % boards.length;
+        return boards[index];
+    }
+
+    @Benchmark
+    public Move[] getMoves() {
+        Board board = nextBoard();
+        board.clearCache();
+        return board.getMoves(board.getTeamToMove());
+    }
+
+    @Benchmark
+    public int generateLegalMoves() {
+        Board board = nextBoard();
+        board.generateLegalMoves(board.getTeamToMove(), moveList);
+        return moveList.size();
+    }
+
+    @Benchmark
+    public Board fork() {
+        return nextBoard().fork();
+    }
+
+    @Benchmark
+    public long doMoveUnmakeMove() {
+        Board board = nextBoard();
+        Move[] legal = moves[index];
+        if (index == 0) {
+            moveIndex++;
+        }
+        board.doMove(legal[moveIndex % legal.length]);
+        long hash = board.getHash();
+        board.unmakeMove();
+        return hash;
+    }
+
+    @Benchmark
+    public boolean inCheck() {
+        Board board = nextBoard();
+        board.clearCache();
+        return board.inCheck(board.getTeamToMove());
+    }
+
+    @Benchmark
+    public String getFEN() {
+        return nextBoard().getFEN();
+    }
+}
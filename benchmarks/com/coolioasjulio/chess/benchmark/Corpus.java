@@ -0,0 +1,36 @@
+package com.coolioasjulio.chess.benchmark;
+
+import com.coolioasjulio.chess.Board;
+
+/**
+ * The fixed positions the benchmarks cycle through, so each result is averaged over all of them. Changing these makes
+ * the results incomparable with older ones.
+ */
+public final class Corpus {
+    public static final String[] FENS = {
+            Board.STARTING_FEN,
+            "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1",
+            "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+    };
+
+    private Corpus() {
+    }
+
+    /**
+     * Load the positions of the corpus.
+     *
+     * @return A new board for each position, in order.
+     */
+    public static Board[] loadBoards() {
+        Board[] boards = new Board[FENS.length];
+        for (int i = 0; i < boards.length; i++) {
+            boards[i] = Board.fromFEN(FENS[i]);
+        }
+        return boards;
+    }
+}
@@ -0,0 +1,58 @@
+package com.coolioasjulio.chess.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.heuristics.MaterialHeuristic;
+import com.coolioasjulio.chess.pieceevaluators.PositionalPieceEvaluator;
+
+/**
+ * Benchmarks the evaluation of a position. Each operation is on the next position of the {@link Corpus}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EvaluationBenchmark {
+    private final MaterialHeuristic heuristic = new MaterialHeuristic(0);
+    private final PositionalPieceEvaluator pieceEvaluator = new PositionalPieceEvaluator();
+    private Board[] boards;
+    private int index;
+
+    @Setup
+    public void setup() {
+        boards = Corpus.loadBoards();
+    }
+
+    private Board nextBoard() {
+        index = (index + 1) % boards.length;
+        return boards[index];
+    }
+
+    @Benchmark
+    public int materialHeuristic() {
+        Board board = nextBoard();
+        // The heuristic checks for check, which would otherwise be cached
+        board.clearCache();
+        return heuristic.getCentipawnScore(board, board.getTeamToMove());
+    }
+
+    @Benchmark
+    public int positionalPieceEvaluator() {
+        Board board = nextBoard();
+        return pieceEvaluator.getMaterialCentipawns(board, board.getTeamToMove());
+    }
+}
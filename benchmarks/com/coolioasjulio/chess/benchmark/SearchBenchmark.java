@@ -0,0 +1,88 @@
+package com.coolioasjulio.chess.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.Move;
+import com.coolioasjulio.chess.players.MinimaxComputerPlayer;
+import com.coolioasjulio.chess.players.PrunedMinimaxComputerPlayer;
+
+/**
+ * Benchmarks fixed depth searches of the computer players. Each search is of the next position of the
+ * {@link Corpus}. The allocations of the minimax player include those of its ForkJoin workers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+    @Param("3")
+    private int prunedDepth;
+    @Param("2")
+    private int minimaxDepth;
+
+    private PrunedMinimaxComputerPlayer[] prunedPlayers;
+    private MinimaxComputerPlayer[] minimaxPlayers;
+    private int index;
+
+    @Setup
+    public void setup() {
+        // The players log every move they search
+        Logger.getLogger("").setLevel(Level.WARNING);
+        Board[] boards = Corpus.loadBoards();
+        prunedPlayers = new PrunedMinimaxComputerPlayer[boards.length];
+        minimaxPlayers = new MinimaxComputerPlayer[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            int team = boards[i].getTeamToMove();
+            prunedPlayers[i] = new PrunedMinimaxComputerPlayer(boards[i], 16);
+            prunedPlayers[i].setTeam(team);
+            prunedPlayers[i].setSearchDepth(prunedDepth);
+            minimaxPlayers[i] = new MinimaxComputerPlayer(boards[i].fork());
+            minimaxPlayers[i].setTeam(team);
+            minimaxPlayers[i].setSearchDepth(minimaxDepth);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (int i = 0; i < prunedPlayers.length; i++) {
+            prunedPlayers[i].close();
+            minimaxPlayers[i].close();
+        }
+    }
+
+    private int nextIndex() {
+        index = (index + 1) % prunedPlayers.length;
+        return index;
+    }
+
+    @Benchmark
+    public Move prunedMinimax() {
+        PrunedMinimaxComputerPlayer player = prunedPlayers[nextIndex()];
+        // Searching from scratch, otherwise later searches would be answered by the transposition table
+        player.clearSearchState();
+        return player.getMove();
+    }
+
+    @Benchmark
+    public Move minimax() {
+        return minimaxPlayers[nextIndex()].getMove();
+    }
+}
@@ -0,0 +1,182 @@
+package com.coolioasjulio.chess;
+
+import com.coolioasjulio.chess.pieces.Piece;
+
+/**
+ * Static helpers for working with bitboards. A bitboard is a long where each bit represents one square of the board.
+ * Squares are indexed from a1=0, b1=1, ..., h1=7, a2=8, ..., h8=63.
+ */
+public final class Bitboard {
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    public static final long[] KNIGHT_ATTACKS = new long[64];
+    public static final long[] KING_ATTACKS = new long[64];
+    public static final long[][] PAWN_ATTACKS = new long[2][64]; // 0=white, 1=black
+
+    // The first four directions move towards higher indices, so the nearest blocker is the lowest set bit
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {-1, 1}, {-1, 0}, {0, -1}, {-1, -1}, {1, -1}};
+    private static final long[][] RAYS = new long[DIRECTIONS.length][64];
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            int x = sq & 7;
+            int y = sq >>> 3;
+            for (int dx = -2; dx <= 2; dx++) {
+                for (int dy = -2; dy <= 2; dy++) {
+                    if (dx != 0 && dy != 0 && Math.abs(dx) != Math.abs(dy) && onBoard(x + dx, y + dy)) {
+                        KNIGHT_ATTACKS[sq] |= bit(x + dx, y + dy);
+                    }
+                    if (Math.abs(dx) <= 1 && Math.abs(dy) <= 1 && (dx != 0 || dy != 0) && onBoard(x + dx, y + dy)) {
+                        KING_ATTACKS[sq] |= bit(x + dx, y + dy);
+                    }
+                }
+            }
+            PAWN_ATTACKS[0][sq] = pawnAttacks(Piece.WHITE, 1L << sq);
+            PAWN_ATTACKS[1][sq] = pawnAttacks(Piece.BLACK, 1L << sq);
+
+            for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+                long ray = 0;
+                int cx = x + DIRECTIONS[dir][0];
+                int cy = y + DIRECTIONS[dir][1];
+                while (onBoard(cx, cy)) {
+                    int to = cx + cy * 8;
+                    BETWEEN[sq][to] = ray;
+                    ray |= 1L << to;
+                    cx += DIRECTIONS[dir][0];
+                    cy += DIRECTIONS[dir][1];
+                }
+                RAYS[dir][sq] = ray;
+            }
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+                // The line through two squares is both rays from one of them, which is the same from either end
+                long line = RAYS[dir][sq] | RAYS[(dir + 4) % DIRECTIONS.length][sq] | (1L << sq);
+                long ray = RAYS[dir][sq];
+                while (ray != 0) {
+                    LINE[sq][Long.numberOfTrailingZeros(ray)] = line;
+                    ray &= ray - 1;
+                }
+            }
+        }
+    }
+
+    private Bitboard() {
+    }
+
+    /**
+     * Get the bitboard index of the specified square.
+     *
+     * @param square The square to convert.
+     * @return The index of the square, in range [0,63].
+     */
+    public static int index(Square square) {
+        return square.getIndex();
+    }
+
+    /**
+     * Get the square represented by the specified bitboard index.
+     *
+     * @param index The index of the square, in range [0,63].
+     * @return The shared Square object at that index.
+     */
+    public static Square toSquare(int index) {
+        return Square.of(index);
+    }
+
+    /**
+     * Get the squares attacked by a rook on the specified square.
+     *
+     * @param sq        The index of the square the rook is on.
+     * @param occupancy The bitboard of all occupied squares. Rays stop at the first occupied square, inclusive.
+     * @return The bitboard of attacked squares.
+     */
+    public static long rookAttacks(int sq, long occupancy) {
+        return rayAttacks(0, sq, occupancy) | rayAttacks(1, sq, occupancy)
+                | rayAttacks(4, sq, occupancy) | rayAttacks(5, sq, occupancy);
+    }
+
+    /**
+     * Get the squares attacked by a bishop on the specified square.
+     *
+     * @param sq        The index of the square the bishop is on.
+     * @param occupancy The bitboard of all occupied squares. Rays stop at the first occupied square, inclusive.
+     * @return The bitboard of attacked squares.
+     */
+    public static long bishopAttacks(int sq, long occupancy) {
+        return rayAttacks(2, sq, occupancy) | rayAttacks(3, sq, occupancy)
+                | rayAttacks(6, sq, occupancy) | rayAttacks(7, sq, occupancy);
+    }
+
+    /**
+     * Get the squares attacked by a queen on the specified square.
+     *
+     * @param sq        The index of the square the queen is on.
+     * @param occupancy The bitboard of all occupied squares. Rays stop at the first occupied square, inclusive.
+     * @return The bitboard of attacked squares.
+     */
+    public static long queenAttacks(int sq, long occupancy) {
+        return rookAttacks(sq, occupancy) | bishopAttacks(sq, occupancy);
+    }
+
+    /**
+     * Get the squares attacked by pawns.
+     *
+     * @param team  The team of the pawns.
+     * @param pawns The bitboard of pawns.
+     * @return The bitboard of squares attacked by any of the pawns.
+     */
+    public static long pawnAttacks(int team, long pawns) {
+        if (team == Piece.WHITE) {
+            return ((pawns << 9) & ~FILE_A) | ((pawns << 7) & ~FILE_H);
+        } else {
+            return ((pawns >>> 7) & ~FILE_A) | ((pawns >>> 9) & ~FILE_H);
+        }
+    }
+
+    /**
+     * Get the squares strictly between two squares.
+     *
+     * @param from The index of the first square.
+     * @param to   The index of the second square.
+     * @return The bitboard of squares between the two squares, or 0 if they aren't on the same rank, file or diagonal.
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * Get the full rank, file or diagonal going through two squares, from edge to edge of the board.
+     *
+     * @param from The index of the first square.
+     * @param to   The index of the second square.
+     * @return The bitboard of the line, or 0 if the squares aren't on the same rank, file or diagonal.
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+
+    private static long rayAttacks(int dir, int sq, long occupancy) {
+        long ray = RAYS[dir][sq];
+        long blockers = ray & occupancy;
+        if (blockers == 0) {
+            return ray;
+        }
+        int blocker = dir < 4 ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+        // Everything past the blocker is on the blocker's own ray in the same direction
+        return ray ^ RAYS[dir][blocker];
+    }
+
+    private static boolean onBoard(int x, int y) {
+        return 0 <= x && x < 8 && 0 <= y && y < 8;
+    }
+
+    private static long bit(int x, int y) {
+        return 1L << (x + y * 8);
+    }
+}
@@ -2,14 +2,12 @@ package com.coolioasjulio.chess;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
 import com.coolioasjulio.chess.exceptions.InvalidMoveException;
 import com.coolioasjulio.chess.exceptions.InvalidSquareException;
+import com.coolioasjulio.chess.pieceevaluators.PieceSquareTables;
 import com.coolioasjulio.chess.pieces.Bishop;
 import com.coolioasjulio.chess.pieces.King;
 import com.coolioasjulio.chess.pieces.Knight;
@@ -19,29 +17,169 @@ import com.coolioasjulio.chess.pieces.Queen;
 import com.coolioasjulio.chess.pieces.Rook;
 
 public class Board {
+    public static final String STARTING_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Type indices, which match the ordinals of PieceType
+    static final int PAWN = 0;
+    static final int KNIGHT = 1;
+    static final int BISHOP = 2;
+    static final int ROOK = 3;
+    static final int QUEEN = 4;
+    static final int KING = 5;
+    // Indexed by piece type. The king is worth more than any exchange, but not so much that the arithmetic overflows
+    private static final int[] EXCHANGE_VALUES = {Piece.VANILLA_PAWN_VALUE, Piece.VANILLA_KNIGHT_VALUE,
+            Piece.VANILLA_BISHOP_VALUE, Piece.VANILLA_ROOK_VALUE, Piece.VANILLA_QUEEN_VALUE, 1000};
+    static final int WHITE_KING_SIDE = 1;
+    static final int WHITE_QUEEN_SIDE = 2;
+    static final int BLACK_KING_SIDE = 4;
+    static final int BLACK_QUEEN_SIDE = 8;
+    // The FEN letters of the pieces, indexed like the bitboards
+    private static final String FEN_PIECES = "PNBRQKpnbrqk";
+    private static final int JOURNAL_ADD = 0;
+    private static final int JOURNAL_REMOVE = 1;
+    private static final int JOURNAL_MOVE = 2;
+    private static final int JOURNAL_WAS_MOVED = 4;
+
     private final List<Piece> pieces;
     private final TeamValue<Boolean> cachedCheckmate = new TeamValue<>();
     private final TeamValue<Boolean> cachedStalemate = new TeamValue<>();
     private final TeamValue<Boolean> cachedCheck = new TeamValue<>();
     private final TeamValue<King> cachedKing = new TeamValue<>();
     private final TeamValue<Move[]> cachedMoves = new TeamValue<>();
-    private final Map<Square, Piece> boardMap = new HashMap<>();
-    private final List<Move> moveHistory = new ArrayList<>();
-    private final Map<PositionFingerprint, Integer> positionCount = new HashMap<>();
+    private final TeamValue<Move[]> cachedLegalMoves = new TeamValue<>();
+    private final MoveList legalMoveBuffer = new MoveList();
+    private final MoveList pieceMoveBuffer = new MoveList();
+    // The material balance after each capture of staticExchange(), which can't be longer than the number of pieces
+    private final int[] exchangeGains = new int[32];
+    // The piece letters of each square of the FEN being loaded, or 0 if it is empty
+    private final char[] fenPlacement = new char[64];
+    // The pieces of the previous position, indexed like the bitboards, which loadFEN() reuses for the next one. A
+    // team can't have more than 10 pieces of one type.
+    private final Piece[][] sparePieces = new Piece[12][10];
+    private final int[] spareCounts = new int[12];
+    private MoveList moveListTarget;
+    private int legalMoveCount;
+    private final MoveGenerator moveBuilder = new MoveGenerator() {
+        @Override
+        void add(int from, int to, int promotion, int flags) {
+            moveListTarget.add(packMove(from, to, promotion, flags));
+        }
+    };
+    private final MoveGenerator moveCounter = new MoveGenerator() {
+        @Override
+        void add(int from, int to, int promotion, int flags) {
+            legalMoveCount++;
+        }
+    };
+    private final long[] bitboards = new long[12]; // white pieces are 0-5, black are 6-11, in the order PNBRQK
+    private final long[] teamOccupancy = new long[2]; // 0=white, 1=black
+    private final Piece[] squares = new Piece[64]; // a1=0, b1=1, ..., h8=63
+    private int[] moveHistory = new int[64]; // packed moves, see PackedMove
+    private int moveHistorySize;
+    private long pieceHash; // the part of the Zobrist hash that comes from the pieces, see Zobrist
+    private long hash; // pieceHash plus the keys for the castling rights, en passant square and team to move
+    // The sums of the piece square values of each team, see PieceSquareTables, and the game phase
+    private final int[] middlegameScores = new int[2];
+    private final int[] endgameScores = new int[2];
+    private int phase;
+    private int teamToMove = Piece.WHITE;
+    private int castlingRights; // bitmask of WHITE_KING_SIDE, WHITE_QUEEN_SIDE, etc.
+    private int enPassantSquare = -1; // the square a pawn skipped over on the last move, or -1
+    private int halfmoveClock; // plies since the last capture or pawn move, for the fifty move rule
+    // The team to move, en passant square and move counters of the position the board was set up with
+    private int startTeamToMove = Piece.WHITE;
+    private int startEnPassantSquare = -1;
+    private int startHalfmoveClock;
+    private int startFullmoveNumber = 1;
+    // The hashes of every position since the board was set up, including the current one
+    private long[] positionHistory = new long[64];
+    private int positionHistorySize;
+    // Every change to the pieces is journaled so moves can be unmade in place
+    private Piece[] journalPieces = new Piece[64];
+    private Square[] journalSquares = new Square[64];
+    private int[] journalEntries = new int[64];
+    private int journalSize;
+    // The undo stack. Each entry is the journal index where that move started, and the state before the move
+    private int[] undoJournalStarts = new int[32];
+    private long[] undoHashes = new long[32];
+    private int[] undoStates = new int[32]; // the state that isn't stored in the pieces, see packState()
+    private int undoSize;
+    private boolean applyingMove;
 
     /**
      * Create a new empty board.
      */
     public Board() {
         pieces = new ArrayList<>();
+        positionHistory[positionHistorySize++] = hash;
     }
 
     public boolean isDrawByThreeFoldRepetition() {
-        return getNumOccurrences(getFingerprint()) >= 3;
+        return getNumOccurrences(hash) >= 3;
+    }
+
+    /**
+     * Check if the current position has occurred before. Only positions since the last capture or pawn move are
+     * checked, since those moves can't be undone. Searches treat a single repetition as a draw, since if repeating
+     * the position was best, it will be repeated again.
+     *
+     * @return True if the position has occurred at least twice, including the current position.
+     */
+    public boolean isRepetition() {
+        int oldest = Math.max(0, positionHistorySize - 1 - halfmoveClock);
+        // Positions with the other team to move can't be the same
+        for (int i = positionHistorySize - 3; i >= oldest; i -= 2) {
+            if (positionHistory[i] == hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of plies since the last capture or pawn move.
+     *
+     * @return The halfmove clock. The game is drawn by the fifty move rule when it reaches 100.
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public boolean isDrawByFiftyMoveRule() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * Get the number of times a position has occurred on this board.
+     *
+     * @param hash The Zobrist hash of the position, as returned by {@link #getHash()}.
+     * @return The number of times the position has occurred, including the current position.
+     */
+    public int getNumOccurrences(long hash) {
+        int count = 0;
+        for (int i = 0; i < positionHistorySize; i++) {
+            if (positionHistory[i] == hash) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Get the Zobrist hash of the current position. This includes the pieces, the team to move,
+     * the castling rights and the en passant square. It is updated incrementally, so this is very cheap.
+     *
+     * @return The 64-bit hash of the current position.
+     */
+    public long getHash() {
+        return hash;
     }
 
-    public int getNumOccurrences(PositionFingerprint fingerprint) {
-        return positionCount.getOrDefault(fingerprint, 0);
+    /**
+     * Get the team whose turn it is.
+     *
+     * @return The team to move.
+     */
+    public int getTeamToMove() {
+        return teamToMove;
     }
 
     /**
@@ -53,8 +191,26 @@ public class Board {
         return pieces;
     }
 
+    /**
+     * Get all moves done on this board, including the moves done before it was forked or restored.
+     *
+     * @return A new list of the moves, from first to last.
+     */
     public List<Move> getMoveHistory() {
-        return moveHistory;
+        List<Move> moves = new ArrayList<>(moveHistorySize);
+        for (int i = 0; i < moveHistorySize; i++) {
+            moves.add(PackedMove.toMove(moveHistory[i]));
+        }
+        return moves;
+    }
+
+    /**
+     * Get the last move done on this board, not counting null moves.
+     *
+     * @return The packed move, see {@link PackedMove}, or PackedMove.NONE if no moves have been done.
+     */
+    public int getLastPackedMove() {
+        return moveHistorySize == 0 ? PackedMove.NONE : moveHistory[moveHistorySize - 1];
     }
 
     /**
@@ -104,57 +260,189 @@ public class Board {
         return moves.toArray(new Move[0]);
     }
 
+    /**
+     * Get the legal moves for the specified team, including castle moves and en passant.
+     * These are generated directly, without trying each move.
+     *
+     * @param team The team to check for.
+     * @return All legal moves for the given team.
+     */
+    public Move[] getLegalMoves(int team) {
+        if (cachedLegalMoves.hasValue(team)) return cachedLegalMoves.get(team);
+
+        generateLegalMoves(team, legalMoveBuffer);
+        Move[] moves = new Move[legalMoveBuffer.size()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = PackedMove.toMove(legalMoveBuffer.get(i));
+        }
+        return cachedLegalMoves.set(team, moves);
+    }
+
+    /**
+     * Generate the legal moves for the specified team as packed moves, without creating any objects.
+     *
+     * @param team  The team to generate moves for.
+     * @param moves The list to put the moves in. It is cleared first.
+     */
+    public void generateLegalMoves(int team, MoveList moves) {
+        generateLegalMoves(team, moves, MoveGenerator.ALL, ~0L);
+    }
+
+    /**
+     * Generate the legal captures and promotions for the specified team, including en passant and underpromotions.
+     *
+     * @param team  The team to generate moves for.
+     * @param moves The list to put the moves in. It is cleared first.
+     */
+    public void generateTacticalMoves(int team, MoveList moves) {
+        generateLegalMoves(team, moves, MoveGenerator.TACTICAL, ~0L);
+    }
+
+    /**
+     * Generate the legal moves for the specified team that aren't captures or promotions, including castles.
+     * Together with {@link #generateTacticalMoves(int, MoveList)}, this generates every legal move once.
+     *
+     * @param team  The team to generate moves for.
+     * @param moves The list to put the moves in. It is cleared first.
+     */
+    public void generateQuietMoves(int team, MoveList moves) {
+        generateLegalMoves(team, moves, MoveGenerator.QUIET, ~0L);
+    }
+
+    /**
+     * Generate the legal moves of one type of piece for the specified team, including castles for the king. This is
+     * cheaper than generating all moves when only one piece type matters, such as when reading algebraic notation.
+     *
+     * @param team  The team to generate moves for.
+     * @param type  The type of the pieces to move, as the ordinal of its PieceType.
+     * @param moves The list to put the moves in. It is cleared first.
+     */
+    public void generateLegalMoves(int team, int type, MoveList moves) {
+        generateLegalMoves(team, moves, MoveGenerator.ALL, getBitboard(team, type));
+    }
+
+    /**
+     * Find the legal move with the start square, end square and promotion of a move, such as the lowest 16 bits stored
+     * by a transposition table. Only the moves of the piece on the start square are generated, so this is much
+     * cheaper than generating all moves to check if a move is legal.
+     *
+     * @param team The team making the move.
+     * @param move The move to find. Only the lowest 16 bits are used.
+     * @return The complete packed move, or PackedMove.NONE if there is no such legal move.
+     */
+    public int findLegalMove(int team, int move) {
+        int from = PackedMove.getFrom(move);
+        if (move == PackedMove.NONE || (teamOccupancy[teamIndex(team)] & (1L << from)) == 0) {
+            return PackedMove.NONE;
+        }
+        generateLegalMoves(team, pieceMoveBuffer, MoveGenerator.ALL, 1L << from);
+        for (int i = 0; i < pieceMoveBuffer.size(); i++) {
+            if ((pieceMoveBuffer.get(i) & 0xFFFF) == (move & 0xFFFF)) {
+                return pieceMoveBuffer.get(i);
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    private void generateLegalMoves(int team, MoveList moves, int kinds, long fromMask) {
+        moves.clear();
+        moveListTarget = moves;
+        try {
+            moveBuilder.generate(this, team, kinds, fromMask);
+        } finally {
+            moveListTarget = null;
+        }
+    }
+
+    /**
+     * Count the legal moves for the specified team. This is cheaper than getting the moves.
+     *
+     * @param team The team to check for.
+     * @return The number of legal moves for the given team.
+     */
+    public int getLegalMoveCount(int team) {
+        if (cachedLegalMoves.hasValue(team)) return cachedLegalMoves.get(team).length;
+
+        legalMoveCount = 0;
+        moveCounter.generate(this, team);
+        return legalMoveCount;
+    }
+
+    private int packMove(int from, int to, int promotion, int flags) {
+        Piece piece = squares[from];
+        int captured = 0;
+        if ((flags & PackedMove.EN_PASSANT) != 0) {
+            captured = PAWN;
+        } else if ((flags & PackedMove.CAPTURE) != 0) {
+            captured = typeIndex(squares[to]);
+        }
+        return PackedMove.create(from, to, bitboardIndex(piece.getTeam(), typeIndex(piece)), captured, promotion, flags);
+    }
+
+    /**
+     * Get the position in Forsyth-Edwards Notation. The en passant square is only written if a pawn could capture
+     * there, as it is only hashed then, so positions that are the same have the same FEN.
+     *
+     * @return The position, which {@link #loadFEN(String)} restores.
+     */
     public String getFEN() {
-        StringBuilder sb = new StringBuilder();
-        for (int y = 8; y > 0; y--) {
-            int accum = 0;
+        StringBuilder sb = new StringBuilder(90);
+        for (int y = 7; y >= 0; y--) {
+            int empty = 0;
             for (int x = 0; x < 8; x++) {
-                Piece p = checkSquare(new Square(x, y));
-                if (p != null) {
-                    if (accum > 0) {
-                        sb.append(accum);
-                        accum = 0;
-                    }
-                    String type = p.getType();
-                    String symbol = type.length() == 0 ? "p" : type;
-                    sb.append(p.getTeam() == Piece.WHITE ? symbol.toUpperCase() : symbol.toLowerCase());
-                } else {
-                    accum++;
+                Piece p = squares[x + y * 8];
+                if (p == null) {
+                    empty++;
+                    continue;
                 }
+                if (empty > 0) {
+                    sb.append(empty);
+                    empty = 0;
+                }
+                sb.append(FEN_PIECES.charAt(bitboardIndex(p.getTeam(), typeIndex(p))));
             }
-            if (accum > 0) {
-                sb.append(accum);
+            if (empty > 0) {
+                sb.append(empty);
             }
-            if (y > 1) {
-                sb.append("/");
+            if (y > 0) {
+                sb.append('/');
             }
         }
 
-        sb.append(" ");
+        sb.append(teamToMove == Piece.WHITE ? " w " : " b ");
+        if (castlingRights == 0) sb.append('-');
+        if ((castlingRights & WHITE_KING_SIDE) != 0) sb.append('K');
+        if ((castlingRights & WHITE_QUEEN_SIDE) != 0) sb.append('Q');
+        if ((castlingRights & BLACK_KING_SIDE) != 0) sb.append('k');
+        if ((castlingRights & BLACK_QUEEN_SIDE) != 0) sb.append('q');
 
-        if (moveHistory.isEmpty()) {
-            sb.append("w");
+        sb.append(' ');
+        if (canCaptureEnPassant()) {
+            sb.append((char) ('a' + (enPassantSquare & 7))).append((char) ('1' + (enPassantSquare >>> 3)));
         } else {
-            sb.append(moveHistory.get(moveHistory.size() - 1).team == Piece.WHITE ? "b" : "w");
+            sb.append('-');
         }
-
-        sb.append(" ");
-        StringBuilder castles = new StringBuilder();
-        PositionFingerprint fingerprint = getFingerprint();
-        if (fingerprint.canCastleKingSide.get(Piece.WHITE)) castles.append('K');
-        if (fingerprint.canCastleQueenSide.get(Piece.WHITE)) castles.append('Q');
-        if (fingerprint.canCastleKingSide.get(Piece.BLACK)) castles.append('k');
-        if (fingerprint.canCastleQueenSide.get(Piece.BLACK)) castles.append('q');
-        sb.append(castles.length() == 0 ? "-" : castles.toString());
-
-        sb.append(" - 0 ");
-        sb.append((moveHistory.size() / 2) + 1);
-
+        sb.append(' ').append(halfmoveClock);
+        sb.append(' ').append(getFullmoveNumber());
         return sb.toString();
     }
 
+    /**
+     * Get the number of the current move, which starts at 1 and increases after each move of black.
+     *
+     * @return The fullmove number.
+     */
+    public int getFullmoveNumber() {
+        return startFullmoveNumber + (moveHistorySize + (startTeamToMove == Piece.BLACK ? 1 : 0)) / 2;
+    }
+
     public void addPiece(Piece piece) {
         pieces.add(piece);
+        setBits(piece, Bitboard.index(piece.getSquare()));
+        journal(JOURNAL_ADD, piece, null);
+        if (!applyingMove) {
+            updateState();
+        }
         clearCache();
     }
 
@@ -164,7 +452,29 @@ public class Board {
      * @param piece The piece to remove from the board.
      */
     public void removePiece(Piece piece) {
-        pieces.remove(piece);
+        Piece onBoard = squares[Bitboard.index(piece.getSquare())];
+        if (onBoard != null && onBoard.equals(piece)) {
+            removeFromList(onBoard);
+            clearBits(onBoard, Bitboard.index(onBoard.getSquare()));
+            journal(JOURNAL_REMOVE, onBoard, null);
+            if (!applyingMove) {
+                updateState();
+            }
+        }
+        clearCache();
+    }
+
+    /**
+     * INTERNAL USE ONLY. Update the board representation after a piece on this board has changed squares.
+     *
+     * @param piece    The piece that moved. Its square must already be set to the destination square.
+     * @param from     The square the piece moved from.
+     * @param wasMoved The value of the moved flag of the piece before it moved.
+     */
+    public void relocatePiece(Piece piece, Square from, boolean wasMoved) {
+        clearBits(piece, Bitboard.index(from));
+        setBits(piece, Bitboard.index(piece.getSquare()));
+        journal(wasMoved ? JOURNAL_MOVE | JOURNAL_WAS_MOVED : JOURNAL_MOVE, piece, from);
         clearCache();
     }
 
@@ -175,12 +485,91 @@ public class Board {
      * @return The Piece at the specified square, or null if the square is empty.
      */
     public Piece checkSquare(Square square) {
-        if (boardMap.isEmpty()) {
-            for (Piece p : pieces) {
-                boardMap.put(p.getSquare(), p);
-            }
-        }
-        return boardMap.get(square);
+        return squares[Bitboard.index(square)];
+    }
+
+    /**
+     * Get the piece at the specified square.
+     *
+     * @param index The bitboard index of the square, a1=0, b1=1, ..., h8=63.
+     * @return The Piece at the specified square, or null if the square is empty.
+     */
+    public Piece pieceAt(int index) {
+        return squares[index];
+    }
+
+    /**
+     * Get the squares occupied by any piece.
+     *
+     * @return The bitboard of all occupied squares.
+     */
+    public long getOccupancy() {
+        return teamOccupancy[0] | teamOccupancy[1];
+    }
+
+    /**
+     * Get the squares occupied by the pieces of a team.
+     *
+     * @param team The team to get the occupancy of.
+     * @return The bitboard of all squares occupied by pieces of the specified team.
+     */
+    public long getOccupancy(int team) {
+        return teamOccupancy[teamIndex(team)];
+    }
+
+    /**
+     * Check if a team has any pieces other than pawns and the king. Positions without them are the most likely to be
+     * zugzwang, where any move makes the position worse.
+     *
+     * @param team The team to check.
+     * @return True if the team has at least one knight, bishop, rook or queen.
+     */
+    public boolean hasNonPawnMaterial(int team) {
+        return (teamOccupancy[teamIndex(team)] & ~bitboards[bitboardIndex(team, PAWN)]
+                & ~bitboards[bitboardIndex(team, KING)]) != 0;
+    }
+
+    /**
+     * Get the material and piece square score of a team with the default tables, tapered by the game phase. It is
+     * kept up to date as pieces move, so this is only a few array reads.
+     *
+     * @param team The team to get the score of.
+     * @return The score in centipawns, see {@link PieceSquareTables}.
+     */
+    public int getPieceSquareScore(int team) {
+        int index = teamIndex(team);
+        return PieceSquareTables.taper(middlegameScores[index], endgameScores[index], phase);
+    }
+
+    /**
+     * Get the game phase, which is the sum of the phase weights of the pieces on the board.
+     *
+     * @return The phase. PieceSquareTables.MAX_PHASE is the starting position, and 0 is only pawns and kings.
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Get the square that a pawn skipped over by moving two squares on the last move.
+     * An opponent pawn may capture en passant by moving to this square.
+     *
+     * @return The en passant square, or null if the last move was not a pawn moving two squares.
+     */
+    public Square getEnPassantSquare() {
+        return enPassantSquare == -1 ? null : Bitboard.toSquare(enPassantSquare);
+    }
+
+    int getEnPassantIndex() {
+        return enPassantSquare;
+    }
+
+    int getCastlingRights() {
+        return castlingRights;
+    }
+
+    long getBitboard(int team, int type) {
+        return bitboards[bitboardIndex(team, type)];
     }
 
     /**
@@ -191,10 +580,11 @@ public class Board {
      */
     public boolean canKingSideCastle(King king) {
         if (king.hasMoved()) return false;
-        Piece p = checkSquare(new Square(7, king.getSquare().getY()));
+        Piece p = checkSquare(Square.of(7, king.getSquare().getY()));
         if (!(p instanceof Rook) || p.getTeam() != king.getTeam()) return false;
         Rook r = (Rook) p;
-        return !r.hasMoved() && !inCheck(king) && clearCastlePath(king.getSquare(), r.getSquare(), king.getTeam());
+        return !r.hasMoved() && !inCheck(king)
+                && clearCastlePath(Bitboard.index(king.getSquare()), Bitboard.index(r.getSquare()), king.getTeam());
     }
 
     /**
@@ -205,10 +595,11 @@ public class Board {
      */
     public boolean canQueenSideCastle(King king) {
         if (king.hasMoved()) return false;
-        Piece p = checkSquare(new Square(0, king.getSquare().getY()));
+        Piece p = checkSquare(Square.of(0, king.getSquare().getY()));
         if (!(p instanceof Rook) || p.getTeam() != king.getTeam()) return false;
         Rook r = (Rook) p;
-        return !r.hasMoved() && !inCheck(king) && clearCastlePath(r.getSquare(), king.getSquare(), king.getTeam());
+        return !r.hasMoved() && !inCheck(king)
+                && clearCastlePath(Bitboard.index(king.getSquare()), Bitboard.index(r.getSquare()), king.getTeam());
     }
 
     /**
@@ -220,21 +611,7 @@ public class Board {
     public boolean inStaleMate(int team) {
         if (cachedStalemate.hasValue(team)) return cachedStalemate.get(team);
 
-        boolean stalemate = isDrawByThreeFoldRepetition();
-
-        if (!stalemate && !inCheck(team)) {
-            stalemate = true;
-            Move[] moves = getMoves(team);
-            for (Move move : moves) {
-                Board board = fork();
-                board.doMove(move);
-                if (!board.inCheck(team)) {
-                    stalemate = false;
-                    break;
-                }
-            }
-        }
-
+        boolean stalemate = isDrawByThreeFoldRepetition() || (!inCheck(team) && getLegalMoveCount(team) == 0);
         return cachedStalemate.set(team, stalemate);
     }
 
@@ -247,21 +624,8 @@ public class Board {
     public boolean inCheckMate(int team) {
         if (cachedCheckmate.hasValue(team)) return cachedCheckmate.get(team);
 
-        boolean ret = true;
-        if (!inCheck(team)) {
-            ret = false;
-        } else {
-            Move[] moves = getMoves(team);
-            for (Move move : moves) {
-                Board board = fork();
-                board.doMove(move);
-                if (!board.inCheck(team)) {
-                    ret = false;
-                    break;
-                }
-            }
-        }
-        return cachedCheckmate.set(team, ret);
+        boolean checkmate = inCheck(team) && getLegalMoveCount(team) == 0;
+        return cachedCheckmate.set(team, checkmate);
     }
 
     /**
@@ -272,11 +636,11 @@ public class Board {
      */
     public King getKing(int team) {
         if (cachedKing.hasValue(team)) return cachedKing.get(team);
-        King king = (King) pieces.stream()
-                .filter(p -> p instanceof King && p.getTeam() == team)
-                .findFirst()
-                .orElseThrow(() -> new IllegalStateException("King not present on board!"));
-        return cachedKing.set(team, king);
+        long kings = bitboards[bitboardIndex(team, KING)];
+        if (kings == 0) {
+            throw new IllegalStateException("King not present on board!");
+        }
+        return cachedKing.set(team, (King) squares[Long.numberOfTrailingZeros(kings)]);
     }
 
     /**
@@ -305,25 +669,109 @@ public class Board {
         int team = king.getTeam();
         if (!ignoreCache && cachedCheck.hasValue(team)) return cachedCheck.get(team);
 
-        Square square = king.getSquare();
-        Piece[] pieces = {
-                new Queen(square, team, this),
-                new Rook(square, team, this),
-                new Bishop(square, team, this),
-                new Knight(square, team, this),
-                new Pawn(square, team, this),
-                new King(square, team, this)
-        };
-
-        boolean ret = false;
-        for (Piece piece : pieces) {
-            if (Arrays.stream(piece.getMoves()).filter(Move::isCapture).anyMatch(m -> checkSquare(m.getEnd()).getType().equals(piece.getType()))) {
-                ret = true;
-                break;
-            }
+        boolean ret = isSquareAttacked(Bitboard.index(king.getSquare()), -team);
+        return ignoreCache ? ret : cachedCheck.set(team, ret);
+    }
+
+    /**
+     * Check if any piece of the specified team attacks a square. The square doesn't need to be occupied.
+     *
+     * @param square The square to check.
+     * @param byTeam The team of the attacking pieces.
+     * @return True if the square is attacked by at least one piece of the team, false otherwise.
+     */
+    public boolean isSquareAttacked(Square square, int byTeam) {
+        return isSquareAttacked(Bitboard.index(square), byTeam);
+    }
+
+    boolean isSquareAttacked(int sq, int byTeam) {
+        return attackersTo(sq, byTeam, teamOccupancy[0] | teamOccupancy[1]) != 0;
+    }
+
+    /**
+     * Get the pieces of the specified team attacking a square.
+     *
+     * @param sq        The index of the square that is attacked.
+     * @param byTeam    The team that is attacking.
+     * @param occupancy The occupied squares, which may differ from the board to simulate a move.
+     * @return The bitboard of attacking pieces.
+     */
+    long attackersTo(int sq, int byTeam, long occupancy) {
+        int offset = teamIndex(byTeam) * 6;
+        long queens = bitboards[offset + QUEEN];
+        return (Bitboard.KNIGHT_ATTACKS[sq] & bitboards[offset + KNIGHT])
+                | (Bitboard.KING_ATTACKS[sq] & bitboards[offset + KING])
+                // A pawn attacks this square if a pawn of the other team here would attack the pawn
+                | (Bitboard.PAWN_ATTACKS[1 - teamIndex(byTeam)][sq] & bitboards[offset + PAWN])
+                | (Bitboard.rookAttacks(sq, occupancy) & (bitboards[offset + ROOK] | queens))
+                | (Bitboard.bishopAttacks(sq, occupancy) & (bitboards[offset + BISHOP] | queens));
+    }
+
+    /**
+     * Get the material won or lost by a capture, assuming both teams keep recapturing on the target square with
+     * their least valuable piece, and either team can stop recapturing when it would lose material.
+     * Pieces behind the capturing pieces, like a rook behind a rook, join the exchange when they are uncovered.
+     * Pins are ignored.
+     *
+     * @param move The packed move to evaluate. It should be a pseudo-legal capture or promotion of the team to move.
+     * @return The material gained by the team making the move, using the vanilla piece values, where the king counts
+     * as much more valuable than all other pieces. Negative if the capture loses material.
+     */
+    public int staticExchange(int move) {
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        int team = PackedMove.getTeam(move);
+        int promotion = PackedMove.getPromotion(move);
+
+        long occupancy = (teamOccupancy[0] | teamOccupancy[1]) ^ (1L << from);
+        if ((PackedMove.getFlags(move) & PackedMove.EN_PASSANT) != 0) {
+            occupancy ^= 1L << (to - 8 * team);
+        }
+        long attackers = attackersTo(to, team, occupancy) | attackersTo(to, -team, occupancy);
+
+        int[] gain = exchangeGains;
+        gain[0] = PackedMove.isCapture(move) ? EXCHANGE_VALUES[PackedMove.getCaptured(move)] : 0;
+        // The piece on the target square, which the opponent can capture next
+        int onSquare = PackedMove.getPieceType(move);
+        if (promotion != 0) {
+            gain[0] += EXCHANGE_VALUES[promotion] - EXCHANGE_VALUES[PAWN];
+            onSquare = promotion;
         }
 
-        return ignoreCache ? ret : cachedCheck.set(team, ret);
+        int d = 0;
+        int side = team;
+        while (true) {
+            d++;
+            // Assume the piece on the target square is recaptured, and stop if that can't change the result
+            gain[d] = EXCHANGE_VALUES[onSquare] - gain[d - 1];
+            if (Math.max(-gain[d - 1], gain[d]) < 0) break;
+
+            side = -side;
+            long sideAttackers = attackers & occupancy & teamOccupancy[teamIndex(side)];
+            if (sideAttackers == 0) break;
+            int type = leastValuableAttacker(sideAttackers, side);
+            // The king can only recapture if the square isn't defended anymore
+            if (type == KING && (attackers & occupancy & teamOccupancy[teamIndex(-side)]) != 0) break;
+
+            occupancy ^= Long.lowestOneBit(sideAttackers & bitboards[bitboardIndex(side, type)]);
+            // Uncover sliding pieces behind the attacker
+            attackers |= attackersTo(to, team, occupancy) | attackersTo(to, -team, occupancy);
+            onSquare = type;
+        }
+
+        while (--d > 0) {
+            gain[d - 1] = -Math.max(-gain[d - 1], gain[d]);
+        }
+        return gain[0];
+    }
+
+    private int leastValuableAttacker(long attackers, int team) {
+        for (int type = PAWN; type < KING; type++) {
+            if ((attackers & bitboards[bitboardIndex(team, type)]) != 0) {
+                return type;
+            }
+        }
+        return KING;
     }
 
     /**
@@ -333,26 +781,325 @@ public class Board {
      * @throws InvalidMoveException If the move is invalid for any reason.
      */
     public void doMove(Move move) {
-        // This is handled in the move class so special moves can override this behavior
-        move.doMove(this);
+        int packed = PackedMove.fromMove(this, move);
+        int journalStart = journalSize;
+        applyingMove = true;
+        try {
+            // This is handled in the move class so special moves can override this behavior
+            move.doMove(this);
+        } catch (RuntimeException e) {
+            rollback(journalStart);
+            updateState();
+            clearCache();
+            throw e;
+        } finally {
+            applyingMove = false;
+        }
+        pushUndo(packed, journalStart);
+    }
+
+    /**
+     * Do the specified move on the board without checking if it is valid. This is faster than {@link #doMove(Move)},
+     * and should be used for moves that were generated by this board. The move can be reverted with {@link #unmakeMove()}.
+     *
+     * @param move The move to do.
+     */
+    public void makeMove(Move move) {
+        int packed = PackedMove.fromMove(this, move);
+        int journalStart = journalSize;
+        applyingMove = true;
+        try {
+            move.execute(this);
+        } finally {
+            applyingMove = false;
+        }
+        pushUndo(packed, journalStart);
+    }
+
+    /**
+     * Do the specified packed move on the board without checking if it is valid. This doesn't create any Move objects,
+     * so it is the fastest way to do moves generated by {@link #generateLegalMoves(int, MoveList)}.
+     * The move can be reverted with {@link #unmakeMove()}.
+     *
+     * @param move The packed move to do, see {@link PackedMove}.
+     */
+    public void makeMove(int move) {
+        int journalStart = journalSize;
+        applyingMove = true;
+        try {
+            if ((PackedMove.getFlags(move) & ~PackedMove.CAPTURE) != 0 || PackedMove.getPromotion(move) != 0) {
+                // Special moves are rare, so let their classes handle them
+                PackedMove.toMove(move).execute(this);
+            } else {
+                int to = PackedMove.getTo(move);
+                if (PackedMove.isCapture(move)) {
+                    removePiece(squares[to]);
+                }
+                squares[PackedMove.getFrom(move)].move(Bitboard.toSquare(to));
+            }
+        } finally {
+            applyingMove = false;
+        }
+        pushUndo(move, journalStart);
+    }
+
+    /**
+     * Revert the last move done on this board, restoring captured pieces, moved flags and repetition counts.
+     * Moves done before the board was forked or restored cannot be unmade.
+     *
+     * @throws IllegalStateException If there is no move to unmake.
+     */
+    public void unmakeMove() {
+        if (undoSize == 0) {
+            throw new IllegalStateException("No move to unmake!");
+        }
+        undoSize--;
+        positionHistorySize--;
+        moveHistorySize--;
+        rollback(undoJournalStarts[undoSize]);
+        hash = undoHashes[undoSize];
+        unpackState(undoStates[undoSize]);
+        clearCache();
+    }
 
-        moveHistory.add(move);
-        PositionFingerprint fingerprint = getFingerprint();
-        positionCount.put(fingerprint, 1 + positionCount.getOrDefault(fingerprint, 0));
+    /**
+     * Pass the turn to the other team without moving anything, which is used by searches to test if a position is
+     * so good that even giving the opponent a free move doesn't spoil it. This is not a legal chess move, so it isn't
+     * added to the move history. It must be reverted with {@link #unmakeNullMove()} before any earlier moves are unmade.
+     */
+    public void makeNullMove() {
+        if (undoSize == undoJournalStarts.length) {
+            undoJournalStarts = Arrays.copyOf(undoJournalStarts, undoSize * 2);
+            undoHashes = Arrays.copyOf(undoHashes, undoSize * 2);
+            undoStates = Arrays.copyOf(undoStates, undoSize * 2);
+        }
+        undoJournalStarts[undoSize] = journalSize;
+        undoHashes[undoSize] = hash;
+        undoStates[undoSize] = packState();
+        undoSize++;
+
+        teamToMove = -teamToMove;
+        enPassantSquare = -1;
+        // Positions before a null move can't be repeated, since the null move isn't a real move
+        halfmoveClock = 0;
+        hash = pieceHash ^ stateHash();
+        if (positionHistorySize == positionHistory.length) {
+            positionHistory = Arrays.copyOf(positionHistory, positionHistorySize * 2);
+        }
+        positionHistory[positionHistorySize++] = hash;
+        clearCache();
+    }
+
+    /**
+     * Revert a null move done with {@link #makeNullMove()}.
+     *
+     * @throws IllegalStateException If there is no move to unmake.
+     */
+    public void unmakeNullMove() {
+        if (undoSize == 0) {
+            throw new IllegalStateException("No move to unmake!");
+        }
+        undoSize--;
+        positionHistorySize--;
+        hash = undoHashes[undoSize];
+        unpackState(undoStates[undoSize]);
         clearCache();
     }
 
-    public PositionFingerprint getFingerprint() {
-        return new PositionFingerprint(this);
+    private void pushUndo(int move, int journalStart) {
+        if (undoSize == undoJournalStarts.length) {
+            undoJournalStarts = Arrays.copyOf(undoJournalStarts, undoSize * 2);
+            undoHashes = Arrays.copyOf(undoHashes, undoSize * 2);
+            undoStates = Arrays.copyOf(undoStates, undoSize * 2);
+        }
+        undoJournalStarts[undoSize] = journalStart;
+        undoHashes[undoSize] = hash;
+        undoStates[undoSize] = packState();
+        undoSize++;
+
+        if (moveHistorySize == moveHistory.length) {
+            moveHistory = Arrays.copyOf(moveHistory, moveHistorySize * 2);
+        }
+        moveHistory[moveHistorySize++] = move;
+        halfmoveClock = PackedMove.isCapture(move) || PackedMove.getPieceType(move) == PAWN ? 0 : halfmoveClock + 1;
+        teamToMove = -PackedMove.getTeam(move);
+        castlingRights = computeCastlingRights();
+        enPassantSquare = enPassantSquare(move);
+        hash = pieceHash ^ stateHash();
+
+        if (positionHistorySize == positionHistory.length) {
+            positionHistory = Arrays.copyOf(positionHistory, positionHistorySize * 2);
+        }
+        positionHistory[positionHistorySize++] = hash;
+        clearCache();
+    }
+
+    /**
+     * Pack the state that isn't stored in the pieces into an int, for the undo stack.
+     * Bits 0-3 are the castling rights, 4-10 the en passant square plus one, 11 is set if black is to move, and the
+     * rest is the halfmove clock.
+     */
+    private int packState() {
+        return castlingRights | (enPassantSquare + 1) << 4 | (teamToMove == Piece.BLACK ? 1 << 11 : 0)
+                | halfmoveClock << 12;
+    }
+
+    private void unpackState(int state) {
+        castlingRights = state & 15;
+        enPassantSquare = ((state >>> 4) & 127) - 1;
+        teamToMove = (state & (1 << 11)) != 0 ? Piece.BLACK : Piece.WHITE;
+        halfmoveClock = state >>> 12;
+    }
+
+    /**
+     * Get the part of the hash that doesn't depend on where the pieces are.
+     */
+    private long stateHash() {
+        long h = Zobrist.CASTLING[castlingRights];
+        if (teamToMove == Piece.BLACK) {
+            h ^= Zobrist.BLACK_TO_MOVE;
+        }
+        // Only hash the en passant square if there is a pawn that could capture, otherwise it doesn't matter
+        if (canCaptureEnPassant()) {
+            h ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+        }
+        return h;
+    }
+
+    /**
+     * Check if there is an en passant square, and a pawn of the team to move next to the pawn that skipped over it.
+     * The capture may still be illegal if it would leave the king in check.
+     */
+    private boolean canCaptureEnPassant() {
+        if (enPassantSquare == -1) {
+            return false;
+        }
+        long pawns = bitboards[bitboardIndex(teamToMove, PAWN)];
+        long file = Bitboard.FILE_A << (enPassantSquare & 7);
+        long adjacent = ((file << 1) & ~Bitboard.FILE_A) | ((file >>> 1) & ~Bitboard.FILE_H);
+        long rank = Bitboard.RANK_1 << ((enPassantSquare - 8 * teamToMove) & ~7);
+        return (pawns & adjacent & rank) != 0;
+    }
+
+    private int computeCastlingRights() {
+        int rights = 0;
+        if (canCastle(4, 7)) rights |= WHITE_KING_SIDE;
+        if (canCastle(4, 0)) rights |= WHITE_QUEEN_SIDE;
+        if (canCastle(60, 63)) rights |= BLACK_KING_SIDE;
+        if (canCastle(60, 56)) rights |= BLACK_QUEEN_SIDE;
+        return rights;
+    }
+
+    private boolean canCastle(int kingSquare, int rookSquare) {
+        Piece king = squares[kingSquare];
+        Piece rook = squares[rookSquare];
+        return king instanceof King && !king.hasMoved() && rook instanceof Rook && !rook.hasMoved()
+                && king.getTeam() == rook.getTeam();
+    }
+
+    /**
+     * Update the castling rights and hash after the pieces were changed outside of a move.
+     */
+    private void updateState() {
+        castlingRights = computeCastlingRights();
+        hash = pieceHash ^ stateHash();
+        positionHistory[positionHistorySize - 1] = hash;
+    }
+
+    private void resetState() {
+        if (moveHistorySize == 0) {
+            teamToMove = startTeamToMove;
+            enPassantSquare = startEnPassantSquare;
+        } else {
+            int last = moveHistory[moveHistorySize - 1];
+            teamToMove = -PackedMove.getTeam(last);
+            enPassantSquare = enPassantSquare(last);
+        }
+        halfmoveClock = startHalfmoveClock + moveHistorySize;
+        for (int i = moveHistorySize - 1; i >= 0; i--) {
+            if (PackedMove.isCapture(moveHistory[i]) || PackedMove.getPieceType(moveHistory[i]) == PAWN) {
+                halfmoveClock = moveHistorySize - 1 - i;
+                break;
+            }
+        }
+        updateState();
+    }
+
+    /**
+     * Get the en passant square after the specified move.
+     *
+     * @return The square the pawn skipped over if the move was a pawn moving two squares, otherwise -1.
+     */
+    private static int enPassantSquare(int move) {
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        if (PackedMove.getPieceType(move) == PAWN && Math.abs(to - from) == 16) {
+            return (from + to) / 2;
+        }
+        return -1;
+    }
+
+    private void journal(int entry, Piece piece, Square square) {
+        if (journalSize == journalEntries.length) {
+            journalEntries = Arrays.copyOf(journalEntries, journalSize * 2);
+            journalPieces = Arrays.copyOf(journalPieces, journalSize * 2);
+            journalSquares = Arrays.copyOf(journalSquares, journalSize * 2);
+        }
+        journalEntries[journalSize] = entry;
+        journalPieces[journalSize] = piece;
+        journalSquares[journalSize] = square;
+        journalSize++;
+    }
+
+    private void rollback(int journalStart) {
+        while (journalSize > journalStart) {
+            journalSize--;
+            int entry = journalEntries[journalSize];
+            Piece piece = journalPieces[journalSize];
+            Square square = journalSquares[journalSize];
+            journalPieces[journalSize] = null;
+            journalSquares[journalSize] = null;
+            switch (entry & 3) {
+                case JOURNAL_ADD:
+                    removeFromList(piece);
+                    clearBits(piece, Bitboard.index(piece.getSquare()));
+                    break;
+
+                case JOURNAL_REMOVE:
+                    pieces.add(piece);
+                    setBits(piece, Bitboard.index(piece.getSquare()));
+                    break;
+
+                case JOURNAL_MOVE:
+                    clearBits(piece, Bitboard.index(piece.getSquare()));
+                    piece.restore(square, (entry & JOURNAL_WAS_MOVED) != 0);
+                    setBits(piece, Bitboard.index(square));
+                    break;
+            }
+        }
+    }
+
+    private void removeFromList(Piece piece) {
+        for (int i = pieces.size() - 1; i >= 0; i--) {
+            if (pieces.get(i) == piece) {
+                pieces.remove(i);
+                return;
+            }
+        }
     }
 
     /**
      * Fork the board. This creates a deep copy that can be modified without modifying this board.
+     * The moves done on this board cannot be unmade on the copy.
      *
      * @return A deep copy of this board.
      */
     public Board fork() {
         Board copy = new Board();
+        copy.startTeamToMove = startTeamToMove;
+        copy.startEnPassantSquare = startEnPassantSquare;
+        copy.startHalfmoveClock = startHalfmoveClock;
+        copy.startFullmoveNumber = startFullmoveNumber;
         copy.restoreState(saveState());
         return copy;
     }
@@ -364,7 +1111,7 @@ public class Board {
      */
     public BoardState saveState() {
         List<Piece> p = pieces.stream().map(Piece::copy).collect(Collectors.toList());
-        return new BoardState(new ArrayList<>(moveHistory), p, new HashMap<>(positionCount));
+        return new BoardState(getMoveHistory(), p, Arrays.copyOf(positionHistory, positionHistorySize));
     }
 
     /**
@@ -376,10 +1123,19 @@ public class Board {
         pieces.clear();
         pieces.addAll(state.pieces);
         pieces.forEach(p -> p.setBoard(this));
-        moveHistory.clear();
-        moveHistory.addAll(state.moveHistory);
-        positionCount.clear();
-        positionCount.putAll(state.positionCount);
+        moveHistory = new int[Math.max(64, state.moveHistory.size() * 2)];
+        moveHistorySize = 0;
+        for (Move move : state.moveHistory) {
+            moveHistory[moveHistorySize++] = PackedMove.fromMove(move);
+        }
+        positionHistory = Arrays.copyOf(state.positionHistory, Math.max(64, state.positionHistory.length * 2));
+        positionHistorySize = state.positionHistory.length;
+        rebuildBitboards();
+        resetState();
+        Arrays.fill(journalPieces, 0, journalSize, null);
+        Arrays.fill(journalSquares, 0, journalSize, null);
+        journalSize = 0;
+        undoSize = 0;
         clearCache();
     }
 
@@ -388,43 +1144,92 @@ public class Board {
         cachedCheckmate.clear();
         cachedStalemate.clear();
         cachedMoves.clear();
+        cachedLegalMoves.clear();
         cachedKing.clear();
-        boardMap.clear();
     }
 
     @Override
     public int hashCode() {
-        return pieces.hashCode();
+        return Arrays.hashCode(bitboards);
     }
 
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof Board)) return false;
         Board b = (Board) o;
-        if (b.pieces.size() != pieces.size()) return false;
-        for (int i = 0; i < pieces.size(); i++) {
-            if (!b.pieces.get(i).equals(pieces.get(i))) return false;
+        return Arrays.equals(b.bitboards, bitboards);
+    }
+
+    private static int teamIndex(int team) {
+        return team == Piece.WHITE ? 0 : 1;
+    }
+
+    private static int bitboardIndex(int team, int type) {
+        return teamIndex(team) * 6 + type;
+    }
+
+    static int typeIndex(Piece piece) {
+        return piece.getPieceType().ordinal();
+    }
+
+    private void setBits(Piece piece, int sq) {
+        long bit = 1L << sq;
+        int type = typeIndex(piece);
+        int index = bitboardIndex(piece.getTeam(), type);
+        int team = teamIndex(piece.getTeam());
+        pieceHash ^= Zobrist.PIECE_SQUARE[index][sq];
+        middlegameScores[team] += PieceSquareTables.middlegame(index, sq);
+        endgameScores[team] += PieceSquareTables.endgame(index, sq);
+        phase += PieceSquareTables.phaseWeight(type);
+        bitboards[index] |= bit;
+        teamOccupancy[team] |= bit;
+        squares[sq] = piece;
+    }
+
+    private void clearBits(Piece piece, int sq) {
+        long bit = ~(1L << sq);
+        int type = typeIndex(piece);
+        int index = bitboardIndex(piece.getTeam(), type);
+        int team = teamIndex(piece.getTeam());
+        pieceHash ^= Zobrist.PIECE_SQUARE[index][sq];
+        middlegameScores[team] -= PieceSquareTables.middlegame(index, sq);
+        endgameScores[team] -= PieceSquareTables.endgame(index, sq);
+        phase -= PieceSquareTables.phaseWeight(type);
+        bitboards[index] &= bit;
+        teamOccupancy[team] &= bit;
+        if (squares[sq] == piece) {
+            squares[sq] = null;
+        }
+    }
+
+    private void rebuildBitboards() {
+        Arrays.fill(bitboards, 0);
+        Arrays.fill(teamOccupancy, 0);
+        Arrays.fill(squares, null);
+        Arrays.fill(middlegameScores, 0);
+        Arrays.fill(endgameScores, 0);
+        phase = 0;
+        pieceHash = 0;
+        for (Piece piece : pieces) {
+            setBits(piece, Bitboard.index(piece.getSquare()));
         }
-        return true;
     }
 
-    private boolean clearCastlePath(Square start, Square end, int team) {
-        if (start.getY() != end.getY())
+    private boolean clearCastlePath(int kingSquare, int rookSquare, int team) {
+        if (kingSquare >>> 3 != rookSquare >>> 3)
             throw new InvalidSquareException("Invalid castle path!");
-        for (int i = start.getX() + 1; i < end.getX(); i++) {
-            Square check = new Square(i, start.getY());
-            King k = new King(check, team, this);
-            if (checkSquare(check) != null || inCheck(k, true)) {
-                return false;
-            }
+        if ((Bitboard.between(kingSquare, rookSquare) & (teamOccupancy[0] | teamOccupancy[1])) != 0) {
+            return false;
         }
-        return true;
+        // The king can't pass through or land on an attacked square
+        int step = rookSquare > kingSquare ? 1 : -1;
+        return !isSquareAttacked(kingSquare + step, -team) && !isSquareAttacked(kingSquare + 2 * step, -team);
     }
 
     private void pawns() {
         for (int i = 0; i < 8; i++) {
-            Square w = new Square(i, 2);
-            Square b = new Square(i, 7);
+            Square w = Square.of(i, 2);
+            Square b = Square.of(i, 7);
             Pawn white = new Pawn(w, Piece.WHITE, this);
             Pawn black = new Pawn(b, Piece.BLACK, this);
             pieces.add(white);
@@ -434,8 +1239,8 @@ public class Board {
 
     private void knights() {
         for (int i : new int[]{1, 6}) {
-            Square w = new Square(i, 1);
-            Square b = new Square(i, 8);
+            Square w = Square.of(i, 1);
+            Square b = Square.of(i, 8);
             Knight white = new Knight(w, Piece.WHITE, this);
             Knight black = new Knight(b, Piece.BLACK, this);
             pieces.add(white);
@@ -445,8 +1250,8 @@ public class Board {
 
     private void rooks() {
         for (int i : new int[]{0, 7}) {
-            Square w = new Square(i, 1);
-            Square b = new Square(i, 8);
+            Square w = Square.of(i, 1);
+            Square b = Square.of(i, 8);
             Rook white = new Rook(w, Piece.WHITE, this);
             Rook black = new Rook(b, Piece.BLACK, this);
             pieces.add(white);
@@ -456,8 +1261,8 @@ public class Board {
 
     private void bishops() {
         for (int i : new int[]{2, 5}) {
-            Square w = new Square(i, 1);
-            Square b = new Square(i, 8);
+            Square w = Square.of(i, 1);
+            Square b = Square.of(i, 8);
             Bishop white = new Bishop(w, Piece.WHITE, this);
             Bishop black = new Bishop(b, Piece.BLACK, this);
             pieces.add(white);
@@ -466,8 +1271,8 @@ public class Board {
     }
 
     private void queens() {
-        Square w = new Square(3, 1);
-        Square b = new Square(3, 8);
+        Square w = Square.of(3, 1);
+        Square b = Square.of(3, 8);
         Queen white = new Queen(w, Piece.WHITE, this);
         Queen black = new Queen(b, Piece.BLACK, this);
         pieces.add(white);
@@ -475,8 +1280,8 @@ public class Board {
     }
 
     private void kings() {
-        Square w = new Square(4, 1);
-        Square b = new Square(4, 8);
+        Square w = Square.of(4, 1);
+        Square b = Square.of(4, 8);
         King white = new King(w, Piece.WHITE, this);
         King black = new King(b, Piece.BLACK, this);
         pieces.add(white);
@@ -490,86 +1295,260 @@ public class Board {
         bishops();
         queens();
         kings();
+        rebuildBitboards();
+        resetState();
+        clearCache();
     }
 
-    public static class BoardState {
-        public final List<Move> moveHistory;
-        public final Map<PositionFingerprint,Integer> positionCount;
-        public final List<Piece> pieces;
+    /**
+     * Create a board from a position in Forsyth-Edwards Notation.
+     *
+     * @param fen The position, for example {@link #STARTING_FEN}.
+     * @return A new board set up with that position.
+     * @throws IllegalArgumentException If the FEN is malformed, or doesn't have exactly one king per team.
+     * @see #loadFEN(String)
+     */
+    public static Board fromFEN(String fen) {
+        Board board = new Board();
+        board.loadFEN(fen);
+        return board;
+    }
 
-        public BoardState(List<Move> moveHistory, List<Piece> pieces, Map<PositionFingerprint, Integer> positionCount) {
-            this.moveHistory = moveHistory;
-            this.pieces = pieces;
-            this.positionCount = positionCount;
+    /**
+     * Set up this board with a position in Forsyth-Edwards Notation, replacing its pieces and history. The piece
+     * placement, team to move, castling rights and en passant square are required. The halfmove clock and fullmove
+     * number are optional, and anything after them is ignored.
+     * <p>
+     * The board's buffers and pieces are reused, so loading many positions into one board doesn't allocate anything
+     * once it has had enough pieces of each type. The pieces of the previous position must not be used afterwards.
+     * The FEN is checked completely before the board is changed, so if it is malformed, the board is left as it was.
+     *
+     * @param fen The position, for example {@link #STARTING_FEN}.
+     * @throws IllegalArgumentException If the FEN is malformed, or doesn't have exactly one king per team.
+     */
+    public void loadFEN(String fen) {
+        char[] placement = fenPlacement;
+        Arrays.fill(placement, (char) 0);
+        int i = skipSpaces(fen, 0);
+        int x = 0;
+        int y = 7;
+        int whiteKings = 0;
+        int blackKings = 0;
+        for (; i < fen.length() && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (x != 8 || y == 0) {
+                    throw new IllegalArgumentException("Rank " + (y + 1) + " doesn't have 8 squares: " + fen);
+                }
+                x = 0;
+                y--;
+            } else if ('1' <= c && c <= '8') {
+                x += c - '0';
+            } else if (x >= 8) {
+                throw new IllegalArgumentException("Rank " + (y + 1) + " doesn't have 8 squares: " + fen);
+            } else if (FEN_PIECES.indexOf(c) >= 0) {
+                placement[x + y * 8] = c;
+                if (c == 'K') {
+                    whiteKings++;
+                } else if (c == 'k') {
+                    blackKings++;
+                }
+                x++;
+            } else {
+                throw new IllegalArgumentException("Invalid piece '" + c + "': " + fen);
+            }
+            if (x > 8) {
+                throw new IllegalArgumentException("Rank " + (y + 1) + " doesn't have 8 squares: " + fen);
+            }
+        }
+        if (x != 8 || y != 0) {
+            throw new IllegalArgumentException("FEN must have 8 ranks: " + fen);
+        }
+        if (whiteKings != 1 || blackKings != 1) {
+            throw new IllegalArgumentException("Each team must have exactly one king: " + fen);
         }
-    }
 
-    public static class PositionFingerprint {
-        private final int teamToMove;
-        private final TeamValue<long[]> bitboards;
-        private final TeamValue<Boolean> canCastleKingSide, canCastleQueenSide;
+        i = skipSpaces(fen, i);
+        int team;
+        if (fieldEquals(fen, i, "w")) {
+            team = Piece.WHITE;
+        } else if (fieldEquals(fen, i, "b")) {
+            team = Piece.BLACK;
+        } else {
+            throw new IllegalArgumentException("Invalid team to move: " + fen);
+        }
 
-        public PositionFingerprint(Board board) {
-            if (board.moveHistory.size() == 0) {
-                teamToMove = Piece.WHITE;
-            } else {
-                teamToMove = -board.moveHistory.get(board.moveHistory.size() - 1).getTeam();
+        i = skipSpaces(fen, i + 1);
+        int castles = 0;
+        if (fieldEquals(fen, i, "-")) {
+            i++;
+        } else {
+            int previous = -1;
+            for (; i < fen.length() && fen.charAt(i) != ' '; i++) {
+                int index = "KQkq".indexOf(fen.charAt(i));
+                if (index <= previous) {
+                    throw new IllegalArgumentException("Invalid castling rights: " + fen);
+                }
+                castles |= 1 << index;
+                previous = index;
             }
-            bitboards = new TeamValue<>(new long[6], new long[6]);
-            for (Piece piece : board.getPieces()) {
-                int i = pieceIndex(piece.getType());
-                Square square = piece.getSquare();
-                int pos = square.getX() + (square.getY() - 1) * 8;
-                bitboards.get(piece.getTeam())[i] |= 1L << pos;
+            if (previous == -1) {
+                throw new IllegalArgumentException("Missing castling rights: " + fen);
             }
+        }
 
-            canCastleKingSide = new TeamValue<>(canCastle(board, Piece.WHITE, Square.parseString("h1")), canCastle(board, Piece.BLACK, Square.parseString("h8")));
-            canCastleQueenSide = new TeamValue<>(canCastle(board, Piece.WHITE, Square.parseString("a1")), canCastle(board, Piece.BLACK, Square.parseString("a8")));
+        i = skipSpaces(fen, i);
+        int enPassant = -1;
+        if (fieldEquals(fen, i, "-")) {
+            i++;
+        } else {
+            int rank = team == Piece.WHITE ? '6' : '3';
+            if (i + 2 > fen.length() || fen.charAt(i) < 'a' || fen.charAt(i) > 'h' || fen.charAt(i + 1) != rank
+                    || (i + 2 < fen.length() && fen.charAt(i + 2) != ' ')) {
+                throw new IllegalArgumentException("Invalid en passant square: " + fen);
+            }
+            enPassant = (fen.charAt(i) - 'a') + (rank - '1') * 8;
+            i += 2;
         }
 
-        private boolean canCastle(Board board, int team, Square rookPos) {
-            Piece p = board.checkSquare(rookPos);
-            if (p != null && p.getTeam() == team && p instanceof Rook) {
-                Rook rook = (Rook) p;
-                King king = board.getKing(team);
-                return !rook.hasMoved() && !king.hasMoved();
+        i = skipSpaces(fen, i);
+        int halfmoves = 0;
+        int fullmoves = 1;
+        if (i < fen.length()) {
+            halfmoves = parseFENNumber(fen, i, "halfmove clock");
+            while (i < fen.length() && !Character.isWhitespace(fen.charAt(i))) {
+                i++;
+            }
+            i = skipSpaces(fen, i);
+            if (i < fen.length()) {
+                // Some programs write 0 for the first move
+                fullmoves = Math.max(1, parseFENNumber(fen, i, "fullmove number"));
             }
-            return false;
         }
 
-        private int pieceIndex(String type) {
-            return "_NBRQK".indexOf(type); // indexOf("") returns 0, _ at beginning so rest of pieces start at 1
+        // The FEN is valid, so the board can be changed
+        for (int j = 0; j < pieces.size(); j++) {
+            Piece piece = pieces.get(j);
+            int index = bitboardIndex(piece.getTeam(), typeIndex(piece));
+            if (spareCounts[index] < sparePieces[index].length) {
+                sparePieces[index][spareCounts[index]++] = piece;
+            }
+        }
+        pieces.clear();
+        for (int sq = 0; sq < 64; sq++) {
+            char c = placement[sq];
+            if (c != 0) {
+                int index = FEN_PIECES.indexOf(c);
+                Piece piece;
+                if (spareCounts[index] > 0) {
+                    piece = sparePieces[index][--spareCounts[index]];
+                    sparePieces[index][spareCounts[index]] = null;
+                    piece.restore(Bitboard.toSquare(sq), false);
+                } else {
+                    int pieceTeam = Character.isUpperCase(c) ? Piece.WHITE : Piece.BLACK;
+                    piece = createPiece(Character.toLowerCase(c), Bitboard.toSquare(sq), pieceTeam, this);
+                }
+                pieces.add(piece);
+            }
         }
+        moveHistorySize = 0;
+        positionHistorySize = 1;
+        Arrays.fill(journalPieces, 0, journalSize, null);
+        Arrays.fill(journalSquares, 0, journalSize, null);
+        journalSize = 0;
+        undoSize = 0;
+        startTeamToMove = team;
+        startEnPassantSquare = enPassant;
+        startHalfmoveClock = halfmoves;
+        startFullmoveNumber = fullmoves;
+        rebuildBitboards();
+
+        // Castling rights are derived from whether the king and rooks have moved, so only the pieces of an allowed
+        // castle are left unmoved
+        for (int j = 0; j < pieces.size(); j++) {
+            Piece piece = pieces.get(j);
+            if (piece instanceof King || piece instanceof Rook) {
+                piece.restore(piece.getSquare(), true);
+            }
+        }
+        allowCastle(4, 7, (castles & 1) != 0);
+        allowCastle(4, 0, (castles & 2) != 0);
+        allowCastle(60, 63, (castles & 4) != 0);
+        allowCastle(60, 56, (castles & 8) != 0);
 
-        @Override
-        public int hashCode() {
-            return Objects.hash(teamToMove, Arrays.hashCode(bitboards.get(Piece.WHITE)), Arrays.hashCode(bitboards.get(Piece.BLACK)),
-                    canCastleKingSide.get(Piece.WHITE), canCastleKingSide.get(Piece.BLACK),
-                    canCastleQueenSide.get(Piece.WHITE), canCastleQueenSide.get(Piece.BLACK));
+        resetState();
+        clearCache();
+    }
+
+    private static int skipSpaces(String fen, int i) {
+        while (i < fen.length() && Character.isWhitespace(fen.charAt(i))) {
+            i++;
         }
+        return i;
+    }
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            PositionFingerprint other = (PositionFingerprint) o;
-            if (teamToMove != other.teamToMove) return false;
-            for (int team : new int[]{Piece.WHITE,Piece.BLACK}) {
-                if (!Arrays.equals(bitboards.get(team), other.bitboards.get(team))) return false;
-                if (other.canCastleKingSide.get(team) != canCastleKingSide.get(team)) return false;
-                if (other.canCastleQueenSide.get(team) != canCastleQueenSide.get(team)) return false;
+    /**
+     * Check if the field of a FEN starting at the specified index is exactly the specified value.
+     */
+    private static boolean fieldEquals(String fen, int i, String value) {
+        int end = i + value.length();
+        return fen.startsWith(value, i) && (end == fen.length() || Character.isWhitespace(fen.charAt(end)));
+    }
+
+    private static int parseFENNumber(String fen, int i, String field) {
+        int value = 0;
+        int start = i;
+        for (; i < fen.length() && !Character.isWhitespace(fen.charAt(i)); i++) {
+            char c = fen.charAt(i);
+            if (c < '0' || c > '9' || value > 100_000) {
+                throw new IllegalArgumentException("Invalid " + field + ": " + fen);
             }
-            return true;
+            value = value * 10 + (c - '0');
         }
+        if (i == start) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + fen);
+        }
+        return value;
+    }
 
-        @Override
-        public String toString() {
-            return "PositionFingerprint{" +
-                    "teamToMove=" + teamToMove +
-                    ", bitboards=" + bitboards +
-                    ", canCastleKingSide=" + canCastleKingSide +
-                    ", canCastleQueenSide=" + canCastleQueenSide +
-                    '}';
+    private static Piece createPiece(char letter, Square square, int team, Board board) {
+        switch (letter) {
+            case 'p':
+                return new Pawn(square, team, board);
+            case 'n':
+                return new Knight(square, team, board);
+            case 'b':
+                return new Bishop(square, team, board);
+            case 'r':
+                return new Rook(square, team, board);
+            case 'q':
+                return new Queen(square, team, board);
+            default:
+                return new King(square, team, board);
+        }
+    }
+
+    /**
+     * Mark the king and rook of a castle as unmoved, if the castle is allowed and they are on their starting squares.
+     */
+    private void allowCastle(int kingSquare, int rookSquare, boolean allowed) {
+        Piece king = squares[kingSquare];
+        Piece rook = squares[rookSquare];
+        if (allowed && king instanceof King && rook instanceof Rook && king.getTeam() == rook.getTeam()) {
+            king.restore(king.getSquare(), false);
+            rook.restore(rook.getSquare(), false);
+        }
+    }
+
+    public static class BoardState {
+        public final List<Move> moveHistory;
+        public final long[] positionHistory;
+        public final List<Piece> pieces;
+
+        public BoardState(List<Move> moveHistory, List<Piece> pieces, long[] positionHistory) {
+            this.moveHistory = moveHistory;
+            this.pieces = pieces;
+            this.positionHistory = positionHistory;
         }
     }
 }
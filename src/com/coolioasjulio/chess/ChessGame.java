@@ -2,10 +2,14 @@ package com.coolioasjulio.chess;
 
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import com.coolioasjulio.chess.exceptions.InvalidMoveException;
+import com.coolioasjulio.chess.pgn.PgnGame;
+import com.coolioasjulio.chess.pgn.PgnWriter;
 import com.coolioasjulio.chess.pieces.Piece;
 import com.coolioasjulio.chess.players.Player;
 
@@ -16,16 +20,33 @@ public abstract class ChessGame {
     protected ArrayList<Move> moves;
     protected int tileSize;
     protected List<Square> highlightedSquares;
+    private final String startFen;
     private Thread gameThread;
 
     public ChessGame(int tileSize) {
+        this(createStartingBoard(), tileSize);
+    }
+
+    /**
+     * Create a game that starts from the position of the specified board.
+     *
+     * @param board    The board to play on.
+     * @param tileSize The size of each square when drawn, in pixels.
+     */
+    public ChessGame(Board board, int tileSize) {
         this.tileSize = tileSize;
-        board = new Board();
-        board.setup();
+        this.board = board;
+        startFen = board.getFEN();
         moves = new ArrayList<>();
         highlightedSquares = new ArrayList<>();
     }
 
+    private static Board createStartingBoard() {
+        Board board = new Board();
+        board.setup();
+        return board;
+    }
+
     public void addHighlightedSquare(Square square) {
         highlightedSquares.add(square);
     }
@@ -143,6 +164,45 @@ public abstract class ChessGame {
         }
     }
 
+    /**
+     * Get the moves of this game so far as a PGN game, which can be written with a {@link PgnWriter}.
+     *
+     * @param white The name of the white player.
+     * @param black The name of the black player.
+     * @return The game, with the players and result as tags.
+     */
+    public PgnGame toPgnGame(String white, String black) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("White", white);
+        tags.put("Black", black);
+        tags.put("Result", getResultString());
+        return PgnGame.fromMoves(tags, startFen, moves);
+    }
+
+    /**
+     * Print the moves of this game so far in Portable Game Notation.
+     *
+     * @param out The stream to print to.
+     */
+    public void printPgn(PrintStream out) {
+        out.print(PgnWriter.toString(toPgnGame("?", "?")));
+    }
+
+    /**
+     * Get the result of the game in the usual notation.
+     *
+     * @return 1-0 or 0-1 if the team to move is checkmated, 1/2-1/2 if it is stalemated, or * otherwise.
+     */
+    protected String getResultString() {
+        int team = board.getTeamToMove();
+        if (board.inCheckMate(team)) {
+            return team == Piece.WHITE ? "0-1" : "1-0";
+        } else if (board.inStaleMate(team)) {
+            return "1/2-1/2";
+        }
+        return "*";
+    }
+
     public void draw() {
         draw(board.getPieces());
     }
@@ -7,21 +7,30 @@ import com.coolioasjulio.chess.pieces.Rook;
 
 public class KingSideCastle extends Move {
     public KingSideCastle(King king) {
-        super(king, new Square(6, king.getTeam() == Piece.WHITE ? 1 : 8));
+        super(king, Square.of(6, king.getTeam() == Piece.WHITE ? 1 : 8));
+    }
+
+    public KingSideCastle(int team) {
+        super(team, Square.of(4, team == Piece.WHITE ? 1 : 8), Square.of(6, team == Piece.WHITE ? 1 : 8), "K", false);
     }
 
     @Override
     public void doMove(Board b) {
-        King k = b.getKing(team);
-        if (b.canKingSideCastle(k)) {
-            Rook r = (Rook) b.checkSquare(new Square(7, k.getSquare().getY()));
-            k.move(new Square(6, k.getSquare().getY()));
-            r.move(new Square(5, r.getSquare().getY()));
+        if (b.canKingSideCastle(b.getKing(team))) {
+            execute(b);
         } else {
             throw new InvalidMoveException("Cannot castle!");
         }
     }
 
+    @Override
+    public void execute(Board b) {
+        King k = b.getKing(team);
+        Rook r = (Rook) b.checkSquare(Square.of(7, k.getSquare().getY()));
+        k.move(Square.of(6, k.getSquare().getY()));
+        r.move(Square.of(5, r.getSquare().getY()));
+    }
+
     @Override
     public boolean equals(Object o) {
         return o instanceof KingSideCastle && super.equals(o);
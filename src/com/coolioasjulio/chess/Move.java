@@ -2,7 +2,6 @@ package com.coolioasjulio.chess;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
 import com.coolioasjulio.chess.exceptions.InvalidMoveException;
@@ -39,6 +38,23 @@ public class Move {
         this.capture = capture;
     }
 
+    /**
+     * Create a Move object from its fields, without a piece on a board.
+     *
+     * @param team    The team of the piece making the move.
+     * @param start   The square the piece is moving from.
+     * @param end     The square the piece is moving to.
+     * @param type    The type of the piece, as returned by {@link Piece#getType(Piece)}.
+     * @param capture If true, this move is a capture.
+     */
+    protected Move(int team, Square start, Square end, String type, boolean capture) {
+        this.team = team;
+        this.start = start;
+        this.end = end;
+        this.type = type;
+        this.capture = capture;
+    }
+
     public void doMove(Board b) {
         Piece p = b.checkSquare(getStart());
         List<Square> endSquares = Arrays.stream(p.getMoves()).map(Move::getEnd)
@@ -46,6 +62,17 @@ public class Move {
         if (!endSquares.contains(getEnd())) {
             throw new InvalidMoveException("Invalid move or end square!");
         }
+        execute(b);
+    }
+
+    /**
+     * Do this move on the board without checking if it is valid. INTERNAL USE ONLY.
+     * Use {@link Board#doMove(Move)} or {@link Board#makeMove(Move)} instead.
+     *
+     * @param b The board to do the move on.
+     */
+    public void execute(Board b) {
+        Piece p = b.checkSquare(getStart());
         if (isCapture()) {
             Piece toCapture = b.checkSquare(getEnd());
             if (toCapture.getTeam() != p.getTeam()) {
@@ -95,6 +122,15 @@ public class Move {
         return type;
     }
 
+    /**
+     * Get the name of the piece that this move promotes to.
+     *
+     * @return The name of the piece (e.g. "Queen"), or null if this move isn't a promotion.
+     */
+    public String getPromotion() {
+        return null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (!(o instanceof Move)) {
@@ -107,7 +143,7 @@ public class Move {
 
     @Override
     public int hashCode() {
-        return Objects.hash(type, start, end, capture);
+        return ((type.hashCode() * 64 + start.getIndex()) * 64 + end.getIndex()) * 2 + (capture ? 1 : 0);
     }
 
     @Override
@@ -0,0 +1,222 @@
+package com.coolioasjulio.chess;
+
+import com.coolioasjulio.chess.pieces.Piece;
+
+/**
+ * Generates fully legal moves directly from the bitboards of a board, without trying the moves.
+ * The pieces pinned to the king and the pieces checking the king are found first. A pinned piece may only move
+ * along the pin, and when in check, every move must capture the checker or block the check. The king may only move
+ * to squares that are not attacked once it has left its square. En passant is verified separately, since it removes
+ * two pieces from the same rank and can uncover an attack on the king.
+ */
+abstract class MoveGenerator {
+    /**
+     * Captures and promotions.
+     */
+    static final int TACTICAL = 1;
+    /**
+     * All other moves, including castles.
+     */
+    static final int QUIET = 2;
+    static final int ALL = TACTICAL | QUIET;
+
+    private final long[] pinRays = new long[64];
+
+    /**
+     * Called for every legal move found by {@link #generate(Board, int)}.
+     *
+     * @param from      The start square.
+     * @param to        The end square.
+     * @param promotion The type index of the piece to promote to, or 0 if the move is not a promotion.
+     * @param flags     The flags of the move, see {@link PackedMove}.
+     */
+    abstract void add(int from, int to, int promotion, int flags);
+
+    /**
+     * Generate all legal moves of the specified team.
+     *
+     * @param board The board to generate moves for.
+     * @param team  The team to generate moves for.
+     */
+    void generate(Board board, int team) {
+        generate(board, team, ALL, ~0L);
+    }
+
+    /**
+     * Generate some of the legal moves of the specified team.
+     *
+     * @param board    The board to generate moves for.
+     * @param team     The team to generate moves for.
+     * @param kinds    The kinds of moves to generate. A bitmask of TACTICAL and QUIET.
+     * @param fromMask The bitboard of squares to generate the moves of the pieces of.
+     */
+    void generate(Board board, int team, int kinds, long fromMask) {
+        long us = board.getOccupancy(team);
+        long them = board.getOccupancy(-team);
+        long occupancy = us | them;
+        long kings = board.getBitboard(team, Board.KING);
+        if (kings == 0) {
+            throw new IllegalStateException("King not present on board!");
+        }
+        int king = Long.numberOfTrailingZeros(kings);
+
+        long checkers = board.attackersTo(king, -team, occupancy);
+        long checkMask = ~0L;
+        long pinned = findPins(board, king, team, occupancy);
+
+        // Captures land on the opponent's pieces, quiet moves on empty squares
+        long kindMask = ((kinds & TACTICAL) != 0 ? them : 0) | ((kinds & QUIET) != 0 ? ~occupancy : 0);
+
+        // The king can't use its own square to block a slider, so take it off the board when checking its moves
+        long kingTargets = (kings & fromMask) != 0 ? Bitboard.KING_ATTACKS[king] & ~us & kindMask : 0;
+        while (kingTargets != 0) {
+            int to = Long.numberOfTrailingZeros(kingTargets);
+            kingTargets &= kingTargets - 1;
+            if (board.attackersTo(to, -team, occupancy ^ kings) == 0) {
+                add(king, to, 0, (them & (1L << to)) != 0 ? PackedMove.CAPTURE : 0);
+            }
+        }
+
+        if (Long.bitCount(checkers) > 1) {
+            // Only the king can get out of a double check
+            return;
+        } else if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            checkMask = checkers | Bitboard.between(king, checker);
+        } else if ((kinds & QUIET) != 0 && (kings & fromMask) != 0) {
+            addCastles(board, team, king, occupancy);
+        }
+
+        long targetMask = ~us & checkMask & kindMask;
+        addPieceMoves(board, team, Board.KNIGHT, fromMask, targetMask, pinned, them, occupancy);
+        addPieceMoves(board, team, Board.BISHOP, fromMask, targetMask, pinned, them, occupancy);
+        addPieceMoves(board, team, Board.ROOK, fromMask, targetMask, pinned, them, occupancy);
+        addPieceMoves(board, team, Board.QUEEN, fromMask, targetMask, pinned, them, occupancy);
+        addPawnMoves(board, team, kinds, fromMask, king, checkMask, pinned, them, occupancy);
+    }
+
+    private void addPieceMoves(Board board, int team, int type, long fromMask, long targetMask, long pinned, long them,
+                               long occupancy) {
+        long pieces = board.getBitboard(team, type) & fromMask;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long targets;
+            switch (type) {
+                case Board.KNIGHT:
+                    targets = Bitboard.KNIGHT_ATTACKS[from];
+                    break;
+                case Board.BISHOP:
+                    targets = Bitboard.bishopAttacks(from, occupancy);
+                    break;
+                case Board.ROOK:
+                    targets = Bitboard.rookAttacks(from, occupancy);
+                    break;
+                default:
+                    targets = Bitboard.queenAttacks(from, occupancy);
+                    break;
+            }
+            targets &= targetMask;
+            if ((pinned & (1L << from)) != 0) {
+                targets &= pinRays[from];
+            }
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                add(from, to, 0, (them & (1L << to)) != 0 ? PackedMove.CAPTURE : 0);
+            }
+        }
+    }
+
+    private void addPawnMoves(Board board, int team, int kinds, long fromMask, int king, long checkMask, long pinned,
+                              long them, long occupancy) {
+        long pawns = board.getBitboard(team, Board.PAWN) & fromMask;
+        long promotionRank = team == Piece.WHITE ? Bitboard.RANK_8 : Bitboard.RANK_1;
+        long doublePushRank = team == Piece.WHITE ? Bitboard.RANK_1 << 24 : Bitboard.RANK_1 << 32;
+        int enPassant = board.getEnPassantIndex();
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long fromBit = 1L << from;
+            long pushes = team == Piece.WHITE ? (fromBit << 8) & ~occupancy : (fromBit >>> 8) & ~occupancy;
+            if (pushes != 0) {
+                pushes |= (team == Piece.WHITE ? pushes << 8 : pushes >>> 8) & ~occupancy & doublePushRank;
+            }
+            long captures = Bitboard.pawnAttacks(team, fromBit);
+            long targets = (pushes | (captures & them)) & checkMask;
+            if ((pinned & fromBit) != 0) {
+                targets &= pinRays[from];
+            }
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                int flags = (them & (1L << to)) != 0 ? PackedMove.CAPTURE : 0;
+                boolean promotion = (promotionRank & (1L << to)) != 0;
+                if ((kinds & (flags != 0 || promotion ? TACTICAL : QUIET)) == 0) {
+                    continue;
+                }
+                if (promotion) {
+                    add(from, to, Board.QUEEN, flags);
+                    add(from, to, Board.ROOK, flags);
+                    add(from, to, Board.BISHOP, flags);
+                    add(from, to, Board.KNIGHT, flags);
+                } else {
+                    add(from, to, 0, flags);
+                }
+            }
+
+            if ((kinds & TACTICAL) != 0 && enPassant != -1 && (captures & (1L << enPassant)) != 0) {
+                // Simulate the capture, since it can resolve a check, or expose the king along the rank
+                int captured = enPassant - 8 * team;
+                long after = (occupancy ^ fromBit ^ (1L << captured)) | (1L << enPassant);
+                long attackers = board.attackersTo(king, -team, after) & ~(1L << captured);
+                if (attackers == 0) {
+                    add(from, enPassant, 0, PackedMove.CAPTURE | PackedMove.EN_PASSANT);
+                }
+            }
+        }
+    }
+
+    private void addCastles(Board board, int team, int king, long occupancy) {
+        int rights = board.getCastlingRights();
+        int kingSide = team == Piece.WHITE ? Board.WHITE_KING_SIDE : Board.BLACK_KING_SIDE;
+        int queenSide = team == Piece.WHITE ? Board.WHITE_QUEEN_SIDE : Board.BLACK_QUEEN_SIDE;
+        // The squares between the king and rook must be empty, and the king can't pass through or land on an attack
+        if ((rights & kingSide) != 0 && (occupancy & (3L << (king + 1))) == 0
+                && board.attackersTo(king + 1, -team, occupancy) == 0
+                && board.attackersTo(king + 2, -team, occupancy) == 0) {
+            add(king, king + 2, 0, PackedMove.KING_SIDE_CASTLE);
+        }
+        if ((rights & queenSide) != 0 && (occupancy & (7L << (king - 3))) == 0
+                && board.attackersTo(king - 1, -team, occupancy) == 0
+                && board.attackersTo(king - 2, -team, occupancy) == 0) {
+            add(king, king - 2, 0, PackedMove.QUEEN_SIDE_CASTLE);
+        }
+    }
+
+    /**
+     * Find the pieces of the specified team that are pinned to their king, and store the squares they can move to.
+     *
+     * @return The bitboard of pinned pieces.
+     */
+    private long findPins(Board board, int king, int team, long occupancy) {
+        long us = board.getOccupancy(team);
+        long queens = board.getBitboard(-team, Board.QUEEN);
+        // Enemy sliders that would attack the king if nothing was in the way
+        long snipers = (Bitboard.rookAttacks(king, 0) & (board.getBitboard(-team, Board.ROOK) | queens))
+                | (Bitboard.bishopAttacks(king, 0) & (board.getBitboard(-team, Board.BISHOP) | queens));
+        long pinned = 0;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Bitboard.between(king, sniper) & occupancy;
+            // A piece is pinned if it is the only piece in the way, and it belongs to us
+            if (Long.bitCount(blockers) == 1 && (blockers & us) != 0) {
+                int blocker = Long.numberOfTrailingZeros(blockers);
+                pinned |= blockers;
+                pinRays[blocker] = Bitboard.between(king, sniper) | (1L << sniper);
+            }
+        }
+        return pinned;
+    }
+}
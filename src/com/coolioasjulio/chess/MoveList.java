@@ -0,0 +1,108 @@
+package com.coolioasjulio.chess;
+
+/**
+ * A list of packed moves, see {@link PackedMove}, with an ordering score for each move.
+ * It has a fixed capacity that fits the moves of any legal position, and is meant to be allocated once and reused,
+ * for example with one list per ply of a search.
+ */
+public class MoveList {
+    /**
+     * The capacity of a move list. The most legal moves known in any position is 218.
+     */
+    public static final int CAPACITY = 256;
+
+    private final int[] moves = new int[CAPACITY];
+    private final int[] scores = new int[CAPACITY];
+    private int size;
+
+    public void add(int move) {
+        moves[size] = move;
+        scores[size] = 0;
+        size++;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public int getScore(int index) {
+        return scores[index];
+    }
+
+    public void setScore(int index, int score) {
+        scores[index] = score;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Find a move in the list.
+     *
+     * @param move The packed move to find.
+     * @return The index of the move, or -1 if it isn't in the list.
+     */
+    public int indexOf(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Move the move at the specified index to the front of the list, keeping the order of the other moves.
+     *
+     * @param index The index of the move.
+     */
+    public void moveToFront(int index) {
+        int move = moves[index];
+        int score = scores[index];
+        System.arraycopy(moves, 0, moves, 1, index);
+        System.arraycopy(scores, 0, scores, 1, index);
+        moves[0] = move;
+        scores[0] = score;
+    }
+
+    /**
+     * Swap two moves and their scores.
+     *
+     * @param i The index of the first move.
+     * @param j The index of the second move.
+     */
+    public void swap(int i, int j) {
+        int move = moves[i];
+        int score = scores[i];
+        moves[i] = moves[j];
+        scores[i] = scores[j];
+        moves[j] = move;
+        scores[j] = score;
+    }
+
+    /**
+     * Sort the moves from highest to lowest score. Moves with equal scores keep their order.
+     */
+    public void sort() {
+        // Insertion sort, since the lists are short and it doesn't need any extra memory
+        for (int i = 1; i < size; i++) {
+            int move = moves[i];
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+}
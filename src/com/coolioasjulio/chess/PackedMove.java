@@ -0,0 +1,194 @@
+package com.coolioasjulio.chess;
+
+import com.coolioasjulio.chess.exceptions.InvalidMoveException;
+import com.coolioasjulio.chess.pieces.Pawn;
+import com.coolioasjulio.chess.pieces.Piece;
+import com.coolioasjulio.chess.pieces.PieceType;
+
+/**
+ * Static helpers for moves packed into a single int, so they can be generated and searched without creating objects.
+ * The bits of a packed move are:
+ * <pre>
+ * bits  0-5:  start square, a1=0, b1=1, ..., h8=63
+ * bits  6-11: end square
+ * bits 12-15: type of the piece to promote to, or 0 if the move is not a promotion
+ * bits 16-19: moving piece, as team * 6 + type, where white is 0 and black is 1
+ * bits 20-22: type of the captured piece, only valid if the move is a capture
+ * bits 23-26: flags, a bitmask of CAPTURE, EN_PASSANT, KING_SIDE_CASTLE and QUEEN_SIDE_CASTLE
+ * </pre>
+ * Types are the ordinals of {@link PieceType}, from pawn=0 to king=5. The lowest 16 bits are the format used by
+ * the {@link com.coolioasjulio.chess.search.TranspositionTable}, and no real move packs to 0, so 0 means no move.
+ */
+public final class PackedMove {
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1;
+    public static final int EN_PASSANT = 2;
+    public static final int KING_SIDE_CASTLE = 4;
+    public static final int QUEEN_SIDE_CASTLE = 8;
+
+    private static final String[] PROMOTIONS = {null, "Knight", "Bishop", "Rook", "Queen"}; // indexed by type
+
+    private PackedMove() {
+    }
+
+    /**
+     * Pack a move into an int.
+     *
+     * @param from      The index of the start square.
+     * @param to        The index of the end square.
+     * @param piece     The moving piece, as team * 6 + type, where white is 0 and black is 1.
+     * @param captured  The type of the captured piece. Ignored if the move is not a capture.
+     * @param promotion The type of the piece to promote to, or 0 if the move is not a promotion.
+     * @param flags     A bitmask of CAPTURE, EN_PASSANT, KING_SIDE_CASTLE and QUEEN_SIDE_CASTLE.
+     * @return The packed move.
+     */
+    public static int create(int from, int to, int piece, int captured, int promotion, int flags) {
+        return from | to << 6 | promotion << 12 | piece << 16 | captured << 20 | flags << 23;
+    }
+
+    public static int getFrom(int move) {
+        return move & 63;
+    }
+
+    public static int getTo(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int getPromotion(int move) {
+        return (move >>> 12) & 15;
+    }
+
+    /**
+     * Get the moving piece of a packed move.
+     *
+     * @param move The packed move.
+     * @return The moving piece, as team * 6 + type, where white is 0 and black is 1.
+     */
+    public static int getPiece(int move) {
+        return (move >>> 16) & 15;
+    }
+
+    public static int getPieceType(int move) {
+        return getPiece(move) % 6;
+    }
+
+    /**
+     * Get the team making a packed move.
+     *
+     * @param move The packed move.
+     * @return Either Piece.WHITE or Piece.BLACK.
+     */
+    public static int getTeam(int move) {
+        return getPiece(move) < 6 ? Piece.WHITE : Piece.BLACK;
+    }
+
+    public static int getCaptured(int move) {
+        return (move >>> 20) & 7;
+    }
+
+    public static int getFlags(int move) {
+        return (move >>> 23) & 15;
+    }
+
+    public static boolean isCapture(int move) {
+        return (getFlags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        return (getFlags(move) & (KING_SIDE_CASTLE | QUEEN_SIDE_CASTLE)) != 0;
+    }
+
+    /**
+     * Convert a packed move into a Move object.
+     *
+     * @param move The packed move.
+     * @return The equivalent Move object. Special moves are converted to the corresponding subclass.
+     */
+    public static Move toMove(int move) {
+        int team = getTeam(move);
+        int flags = getFlags(move);
+        if ((flags & KING_SIDE_CASTLE) != 0) {
+            return new KingSideCastle(team);
+        } else if ((flags & QUEEN_SIDE_CASTLE) != 0) {
+            return new QueenSideCastle(team);
+        }
+
+        Square start = Bitboard.toSquare(getFrom(move));
+        Square end = Bitboard.toSquare(getTo(move));
+        boolean capture = (flags & CAPTURE) != 0;
+        if ((flags & EN_PASSANT) != 0) {
+            return new Pawn.EnPassant(team, start, end);
+        } else if (getPromotion(move) != 0) {
+            return new Pawn.Promotion(team, start, end, capture, PROMOTIONS[getPromotion(move)]);
+        } else {
+            return new Move(team, start, end, PieceType.of(getPieceType(move)).getSymbol(), capture);
+        }
+    }
+
+    /**
+     * Pack a Move object into an int, using the board it will be done on to find the captured piece.
+     *
+     * @param board The board the move will be done on. It must be in the position before the move.
+     * @param move  The move to pack.
+     * @return The packed move.
+     * @throws InvalidMoveException If there is no piece of the right team on the start square of the move.
+     */
+    public static int fromMove(Board board, Move move) {
+        Piece piece = board.checkSquare(move.getStart());
+        if (piece == null || piece.getTeam() != move.getTeam()) {
+            throw new InvalidMoveException("No piece to move at " + move.getStart());
+        }
+        int packed = fromMove(move);
+        if (isCapture(packed) && (getFlags(packed) & EN_PASSANT) == 0) {
+            Piece captured = board.checkSquare(move.getEnd());
+            if (captured != null) {
+                packed |= Board.typeIndex(captured) << 20;
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Pack a Move object into an int, without a board. The captured piece is unknown, so it is left as a pawn.
+     *
+     * @param move The move to pack.
+     * @return The packed move.
+     */
+    static int fromMove(Move move) {
+        int flags = move.isCapture() ? CAPTURE : 0;
+        if (move instanceof KingSideCastle) {
+            flags = KING_SIDE_CASTLE;
+        } else if (move instanceof QueenSideCastle) {
+            flags = QUEEN_SIDE_CASTLE;
+        } else if (move instanceof Pawn.EnPassant) {
+            flags = CAPTURE | EN_PASSANT;
+        }
+        int type = 0;
+        while (!PieceType.of(type).getSymbol().equals(move.getType())) {
+            type++;
+        }
+        int promotion = 0;
+        if (move.getPromotion() != null) {
+            while (!move.getPromotion().equals(PROMOTIONS[promotion])) {
+                promotion++;
+            }
+        }
+        int piece = (move.getTeam() == Piece.WHITE ? 0 : 6) + type;
+        return create(Bitboard.index(move.getStart()), Bitboard.index(move.getEnd()), piece, 0, promotion, flags);
+    }
+
+    /**
+     * Get the move in long algebraic notation, as used by the UCI protocol. For example, e2e4, e1g1 or e7e8q.
+     *
+     * @param move The packed move.
+     * @return The move as a string.
+     */
+    public static String toString(int move) {
+        if (move == NONE) {
+            return "0000";
+        }
+        String str = Bitboard.toSquare(getFrom(move)).toString() + Bitboard.toSquare(getTo(move)).toString();
+        return getPromotion(move) == 0 ? str : str + "nbrq".charAt(getPromotion(move) - 1);
+    }
+}
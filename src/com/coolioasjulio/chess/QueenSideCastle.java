@@ -7,21 +7,30 @@ import com.coolioasjulio.chess.pieces.Rook;
 
 public class QueenSideCastle extends Move {
     public QueenSideCastle(King king) {
-        super(king, new Square(2, king.getTeam() == Piece.WHITE ? 1 : 8));
+        super(king, Square.of(2, king.getTeam() == Piece.WHITE ? 1 : 8));
+    }
+
+    public QueenSideCastle(int team) {
+        super(team, Square.of(4, team == Piece.WHITE ? 1 : 8), Square.of(2, team == Piece.WHITE ? 1 : 8), "K", false);
     }
 
     @Override
     public void doMove(Board b) {
-        King k = b.getKing(team);
-        if (b.canQueenSideCastle(k)) {
-            Rook r = (Rook) b.checkSquare(new Square(0, k.getSquare().getY()));
-            k.move(new Square(2, k.getSquare().getY()));
-            r.move(new Square(3, r.getSquare().getY()));
+        if (b.canQueenSideCastle(b.getKing(team))) {
+            execute(b);
         } else {
             throw new InvalidMoveException("Cannot castle!");
         }
     }
 
+    @Override
+    public void execute(Board b) {
+        King k = b.getKing(team);
+        Rook r = (Rook) b.checkSquare(Square.of(0, k.getSquare().getY()));
+        k.move(Square.of(2, k.getSquare().getY()));
+        r.move(Square.of(3, r.getSquare().getY()));
+    }
+
     @Override
     public boolean equals(Object o) {
         return o instanceof QueenSideCastle && super.equals(o);
@@ -0,0 +1,123 @@
+package com.coolioasjulio.chess;
+
+/**
+ * Static helpers for integer scores, which are in centipawns (hundredths of a pawn). Integer scores are exact, so
+ * they can be compared without rounding errors and packed into a transposition table entry.
+ * <p>
+ * Checkmate is scored as MATE for the winning team. In a search, mates are scored by their distance from the root,
+ * so a mate in n plies is worth MATE - n, and faster mates are preferred. All scores with an absolute value of at
+ * least MATE_BOUND are mates.
+ */
+public final class Score {
+    public static final int DRAW = 0;
+    public static final int MATE = 30000;
+    /**
+     * The deepest ply a mate score can be found at.
+     */
+    public static final int MAX_PLY = 1000;
+    public static final int MATE_BOUND = MATE - MAX_PLY;
+    /**
+     * Larger than any score, for the bounds of a search window.
+     */
+    public static final int INFINITE = 32000;
+
+    // The double heuristics score checkmate as this many pawns
+    private static final double PAWN_MATE = 1000;
+
+    private Score() {
+    }
+
+    /**
+     * Convert a score in pawns to centipawns. Scores of at least 1000 pawns, which the double heuristics use for
+     * checkmate, become MATE. Other scores are clamped so they are never mistaken for mates.
+     *
+     * @param pawns The score in pawns.
+     * @return The score in centipawns.
+     */
+    public static int fromPawns(double pawns) {
+        if (pawns >= PAWN_MATE) {
+            return MATE;
+        } else if (pawns <= -PAWN_MATE) {
+            return -MATE;
+        }
+        long centipawns = Math.round(pawns * 100);
+        return (int) Math.max(-(MATE_BOUND - 1), Math.min(MATE_BOUND - 1, centipawns));
+    }
+
+    /**
+     * Convert a score in centipawns to pawns. Mates become 1000 pawns, as the double heuristics score them.
+     *
+     * @param score The score in centipawns.
+     * @return The score in pawns.
+     */
+    public static double toPawns(int score) {
+        if (isMate(score)) {
+            return score > 0 ? PAWN_MATE : -PAWN_MATE;
+        }
+        return score / 100.0;
+    }
+
+    public static boolean isMate(int score) {
+        return Math.abs(score) >= MATE_BOUND;
+    }
+
+    /**
+     * Get the score of checkmating the opponent at the specified ply.
+     */
+    public static int mateIn(int ply) {
+        return MATE - ply;
+    }
+
+    /**
+     * Get the score of being checkmated at the specified ply.
+     */
+    public static int matedIn(int ply) {
+        return -MATE + ply;
+    }
+
+    /**
+     * Get the number of moves until checkmate, as UCI reports it.
+     *
+     * @param score A mate score, relative to the root.
+     * @return The number of moves until the opponent is checkmated, or minus the number of moves until the team is
+     * checkmated.
+     */
+    public static int toMateMoves(int score) {
+        return score > 0 ? (MATE - score + 1) / 2 : -(MATE + score) / 2;
+    }
+
+    /**
+     * Convert a score relative to a position at the specified ply to a score relative to the root. Mate scores are
+     * further from MATE the further the position is from the root. Other scores are unchanged.
+     *
+     * @param score The score relative to the position, for example one read from a transposition table.
+     * @param ply   The ply of the position.
+     * @return The score relative to the root.
+     */
+    public static int relativeToRoot(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        } else if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Convert a score relative to the root to a score relative to a position at the specified ply. This is the
+     * inverse of {@link #relativeToRoot(int, int)}, so mate scores can be stored in a transposition table and used at
+     * a different ply.
+     *
+     * @param score The score relative to the root.
+     * @param ply   The ply of the position.
+     * @return The score relative to the position.
+     */
+    public static int relativeToNode(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        } else if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+}
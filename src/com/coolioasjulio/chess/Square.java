@@ -1,10 +1,45 @@
 package com.coolioasjulio.chess;
 
-import java.util.Objects;
-
 import com.coolioasjulio.chess.exceptions.InvalidSquareException;
 
 public class Square {
+    private static final Square[] SQUARES = new Square[64]; // a1=0, b1=1, ..., h8=63
+
+    static {
+        for (int i = 0; i < SQUARES.length; i++) {
+            SQUARES[i] = new Square(i & 7, (i >>> 3) + 1);
+        }
+    }
+
+    /**
+     * Get the shared Square object for the given coordinates. This doesn't create any objects.
+     *
+     * @param x In range [0,7]
+     * @param y In range [1,8]
+     * @return The Square object representing that square.
+     * @throws InvalidSquareException If the coordinates are invalid.
+     */
+    public static Square of(int x, int y) throws InvalidSquareException {
+        if (!validSquare(x, y)) {
+            throw new InvalidSquareException();
+        }
+        return SQUARES[x + (y - 1) * 8];
+    }
+
+    /**
+     * Get the shared Square object for the given index. This doesn't create any objects.
+     *
+     * @param index The index of the square, a1=0, b1=1, ..., h8=63.
+     * @return The Square object representing that square.
+     * @throws InvalidSquareException If the index is not in range [0,63].
+     */
+    public static Square of(int index) throws InvalidSquareException {
+        if (index < 0 || index >= SQUARES.length) {
+            throw new InvalidSquareException("Invalid square index: " + index);
+        }
+        return SQUARES[index];
+    }
+
     /**
      * Checks if the supplied coordinates point to a valid square on a chessboard.
      *
@@ -29,7 +64,7 @@ public class Square {
         }
         int x = square.charAt(0) - 'a';
         int y = square.charAt(1) - '0';
-        return new Square(x, y);
+        return of(x, y);
     }
 
     private static boolean inRange(int num, int low, int high) {
@@ -39,7 +74,7 @@ public class Square {
     private final int x, y;
 
     /**
-     * Create a square object for the given coordinates
+     * Create a square object for the given coordinates. Prefer {@link #of(int, int)}, which reuses shared objects.
      *
      * @param x In range [0,7]
      * @param y In range [1,8]. Yeah, ik I hate myself.
@@ -61,8 +96,20 @@ public class Square {
         return y;
     }
 
+    /**
+     * Get the index of this square, as used by bitboards.
+     *
+     * @return The index of this square, a1=0, b1=1, ..., h8=63.
+     */
+    public int getIndex() {
+        return x + (y - 1) * 8;
+    }
+
     @Override
     public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
         if (!(o instanceof Square)) {
             return false;
         }
@@ -72,7 +119,7 @@ public class Square {
 
     @Override
     public int hashCode() {
-        return Objects.hash(x, y);
+        return getIndex();
     }
 
     @Override
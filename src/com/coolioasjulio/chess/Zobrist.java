@@ -0,0 +1,36 @@
+package com.coolioasjulio.chess;
+
+import java.util.Random;
+
+/**
+ * Random keys used to compute Zobrist hashes of positions. The hash of a position is the XOR of the keys of every
+ * piece on its square, the castling rights, the en passant file (if a capture is possible) and the side to move.
+ * Since XOR is its own inverse, the hash can be updated incrementally as pieces move.
+ */
+final class Zobrist {
+    static final long[][] PIECE_SQUARE = new long[12][64]; // indexed by bitboard index, then square
+    static final long[] CASTLING = new long[16]; // indexed by the castling rights bitmask
+    static final long[] EN_PASSANT_FILE = new long[8];
+    static final long BLACK_TO_MOVE;
+
+    static {
+        // Fixed seed, so hashes are reproducible between runs
+        Random random = new Random(0x5EEDC0DEL);
+        for (long[] keys : PIECE_SQUARE) {
+            for (int sq = 0; sq < keys.length; sq++) {
+                keys[sq] = random.nextLong();
+            }
+        }
+        // No castling rights hashes to 0, so positions without castling rights don't need a key
+        for (int i = 1; i < CASTLING.length; i++) {
+            CASTLING[i] = random.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT_FILE.length; i++) {
+            EN_PASSANT_FILE[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+}
@@ -1,22 +1,23 @@
 package com.coolioasjulio.chess.endgameevaluators;
 
-import java.util.LinkedList;
-import java.util.List;
-
 import com.coolioasjulio.chess.Board;
 import com.coolioasjulio.chess.pieces.Piece;
+import com.coolioasjulio.chess.pieces.PieceType;
 
 public class SpeelmanEndgameEvaluator implements EndgameEvaluator {
 
     @Override
     public boolean inEndgame(Board board) {
-        List<Piece> black = new LinkedList<>(board.getPieces(Piece.BLACK));
-        List<Piece> white = new LinkedList<>(board.getPieces(Piece.WHITE));
-
-        black.remove(board.getKing(Piece.BLACK));
-        white.remove(board.getKing(Piece.WHITE));
+        return nonKingMaterial(board, Piece.BLACK) <= 1300 && nonKingMaterial(board, Piece.WHITE) <= 1300;
+    }
 
-        return black.stream().mapToDouble(Piece::getRawValue).sum() <= 13
-                && white.stream().mapToDouble(Piece::getRawValue).sum() <= 13;
+    private int nonKingMaterial(Board board, int team) {
+        int material = 0;
+        for (Piece piece : board.getPieces(team)) {
+            if (piece.getPieceType() != PieceType.KING) {
+                material += piece.getCentipawnValue();
+            }
+        }
+        return material;
     }
 }
@@ -1,7 +1,19 @@
 package com.coolioasjulio.chess.heuristics;
 
 import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.Score;
 
 public interface Heuristic {
     double getScore(Board board, int team);
+
+    /**
+     * Get the score of a position in centipawns. By default, this converts {@link #getScore(Board, int)}.
+     *
+     * @param board The board to score.
+     * @param team  The team to score the board for.
+     * @return The score in hundredths of a pawn, or Score.MATE if the opponent is checkmated, see {@link Score}.
+     */
+    default int getCentipawnScore(Board board, int team) {
+        return Score.fromPawns(getScore(board, team));
+    }
 }
@@ -1,9 +1,15 @@
 package com.coolioasjulio.chess.heuristics;
 
 import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.Score;
 import com.coolioasjulio.chess.pieceevaluators.PieceEvaluator;
 import com.coolioasjulio.chess.pieceevaluators.PositionalPieceEvaluator;
 
+/**
+ * Scores a position by the material of each team, and optionally by the number of moves each team has. It is a
+ * static evaluation, so it doesn't check if the game is over. Searches should detect that themselves, or wrap this in
+ * a {@link TerminalHeuristic}.
+ */
 public class MaterialHeuristic implements Heuristic {
     private double spaceScore;
     private PieceEvaluator pieceEvaluator;
@@ -18,26 +24,14 @@ public class MaterialHeuristic implements Heuristic {
     }
 
     public double getScore(Board board, int team) {
-        double space = spaceScore == 0 ? 0 : (double) board.getMoves(team).length * spaceScore;
-        double material = pieceEvaluator.getMaterialValue(board, team);
-        double oppMaterial = pieceEvaluator.getMaterialValue(board, -team);
-        if (board.inCheckMate(-team)) {
-            return 1000;
-        } else if (board.inCheckMate(team)) {
-            return -1000;
-        }
-        double score = space + material - oppMaterial;
-        boolean isDraw = board.isDrawByThreeFoldRepetition() || board.inStaleMate(team) || board.inStaleMate(-team);
-        if (isDraw) {
-            if (score <= -4) {
-                score = 100;
-            } else if (score >= 4) {
-                score = -100;
-            } else {
-                score = 0;
-            }
-        }
+        return Score.toPawns(getCentipawnScore(board, team));
+    }
 
-        return score;
+    @Override
+    public int getCentipawnScore(Board board, int team) {
+        int space = spaceScore == 0 ? 0 : (int) Math.round(board.getMoves(team).length * spaceScore * 100);
+        int material = pieceEvaluator.getMaterialCentipawns(board, team);
+        int oppMaterial = pieceEvaluator.getMaterialCentipawns(board, -team);
+        return space + material - oppMaterial;
     }
 }
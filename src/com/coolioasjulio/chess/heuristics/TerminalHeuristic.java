@@ -0,0 +1,51 @@
+package com.coolioasjulio.chess.heuristics;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.Score;
+
+/**
+ * Wraps a static heuristic to also score positions where the game is over, for searches that don't detect that
+ * themselves. Checking for checkmate and stalemate needs the legal moves of both teams, so this is much slower than
+ * the wrapped heuristic.
+ * <p>
+ * Checkmate is scored as Score.MATE. A draw is scored as 0, unless a team is far enough behind that a draw is a
+ * great result for it, which it is scored as.
+ */
+public class TerminalHeuristic implements Heuristic {
+    // A team this far behind in the static score would rather draw, and the score it gets for drawing
+    private static final int DRAW_MARGIN = 400;
+    private static final int GOOD_DRAW_SCORE = 10000;
+
+    private final Heuristic heuristic;
+
+    public TerminalHeuristic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    public double getScore(Board board, int team) {
+        return Score.toPawns(getCentipawnScore(board, team));
+    }
+
+    @Override
+    public int getCentipawnScore(Board board, int team) {
+        if (board.inCheckMate(-team)) {
+            return Score.MATE;
+        } else if (board.inCheckMate(team)) {
+            return -Score.MATE;
+        }
+        int score = heuristic.getCentipawnScore(board, team);
+        boolean isDraw = board.isDrawByThreeFoldRepetition() || board.isDrawByFiftyMoveRule()
+                || board.inStaleMate(team) || board.inStaleMate(-team);
+        if (isDraw) {
+            if (score <= -DRAW_MARGIN) {
+                score = GOOD_DRAW_SCORE;
+            } else if (score >= DRAW_MARGIN) {
+                score = -GOOD_DRAW_SCORE;
+            } else {
+                score = Score.DRAW;
+            }
+        }
+        return score;
+    }
+}
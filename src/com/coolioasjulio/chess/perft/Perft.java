@@ -0,0 +1,195 @@
+package com.coolioasjulio.chess.perft;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.Move;
+import com.coolioasjulio.chess.MoveList;
+import com.coolioasjulio.chess.PackedMove;
+
+/**
+ * Counts the leaf nodes of the legal move tree of a position to a fixed depth. The counts of well known positions
+ * are published, so this checks that move generation is correct, and timing it measures move generation speed.
+ * <p>
+ * By default, this uses the legal move generator and packed moves. Legacy mode instead uses {@link Board#getMoves(int)},
+ * {@link Board#doMove(Move)} and {@link Board#inCheck(int)}, which checks the move generation of the pieces package.
+ */
+public class Perft {
+    private final int threads;
+    private final boolean legacy;
+
+    /**
+     * Create a single threaded perft counter that uses the legal move generator.
+     */
+    public Perft() {
+        this(1, false);
+    }
+
+    /**
+     * Create a perft counter.
+     *
+     * @param threads The number of threads to split the root moves between. Must be at least 1.
+     * @param legacy  If true, generate pseudo-legal Move objects with the pieces and filter out illegal moves.
+     */
+    public Perft(int threads, boolean legacy) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Must have at least 1 thread!");
+        }
+        this.threads = threads;
+        this.legacy = legacy;
+    }
+
+    /**
+     * Count the leaf nodes of the move tree of the team to move. The board is not modified.
+     *
+     * @param board The position to count from.
+     * @param depth The depth of the tree, in plies.
+     * @return The number of leaf nodes.
+     */
+    public long perft(Board board, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        return divide(board, depth).values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Count the leaf nodes after each move of the team to move. This helps find which move has the wrong count when
+     * comparing against another engine. The board is not modified.
+     *
+     * @param board The position to count from.
+     * @param depth The depth of the tree, in plies. Must be at least 1.
+     * @return The number of leaf nodes after each move, keyed by the move in long algebraic notation, e.g. e2e4.
+     */
+    public Map<String, Long> divide(Board board, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1!");
+        }
+        int team = board.getTeamToMove();
+        List<String> names = new ArrayList<>();
+        List<Callable<Long>> tasks = new ArrayList<>();
+        if (legacy) {
+            for (Move move : legalMoves(board, team)) {
+                names.add(PackedMove.toString(PackedMove.fromMove(board, move)));
+                tasks.add(() -> {
+                    Board copy = board.fork();
+                    copy.doMove(move);
+                    return new Counter(depth).countLegacy(copy, -team, depth - 1);
+                });
+            }
+        } else {
+            MoveList moves = new MoveList();
+            board.generateLegalMoves(team, moves);
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                names.add(PackedMove.toString(move));
+                tasks.add(() -> {
+                    Board copy = board.fork();
+                    copy.makeMove(move);
+                    return new Counter(depth).count(copy, -team, depth - 1);
+                });
+            }
+        }
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        List<Long> results = run(tasks);
+        for (int i = 0; i < names.size(); i++) {
+            counts.put(names.get(i), results.get(i));
+        }
+        return counts;
+    }
+
+    private List<Long> run(List<Callable<Long>> tasks) {
+        List<Long> results = new ArrayList<>(tasks.size());
+        try {
+            if (threads == 1) {
+                for (Callable<Long> task : tasks) {
+                    results.add(task.call());
+                }
+            } else {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    for (Future<Long> future : pool.invokeAll(tasks)) {
+                        results.add(future.get());
+                    }
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return results;
+    }
+
+    private static List<Move> legalMoves(Board board, int team) {
+        List<Move> legal = new ArrayList<>();
+        for (Move move : board.getMoves(team)) {
+            board.doMove(move);
+            if (!board.inCheck(team)) {
+                legal.add(move);
+            }
+            board.unmakeMove();
+        }
+        return legal;
+    }
+
+    /**
+     * Counts the nodes of one subtree. Each thread has its own, since it reuses one move list per ply.
+     */
+    private static class Counter {
+        private final MoveList[] moveLists;
+
+        private Counter(int depth) {
+            moveLists = new MoveList[depth + 1];
+            for (int i = 0; i < moveLists.length; i++) {
+                moveLists[i] = new MoveList();
+            }
+        }
+
+        private long count(Board board, int team, int depth) {
+            if (depth == 0) {
+                return 1;
+            }
+            MoveList moves = moveLists[depth];
+            board.generateLegalMoves(team, moves);
+            if (depth == 1) {
+                // Every legal move is a leaf, so there's no need to make them
+                return moves.size();
+            }
+            long nodes = 0;
+            for (int i = 0; i < moves.size(); i++) {
+                board.makeMove(moves.get(i));
+                nodes += count(board, -team, depth - 1);
+                board.unmakeMove();
+            }
+            return nodes;
+        }
+
+        private long countLegacy(Board board, int team, int depth) {
+            if (depth == 0) {
+                return 1;
+            }
+            long nodes = 0;
+            for (Move move : board.getMoves(team)) {
+                board.doMove(move);
+                if (!board.inCheck(team)) {
+                    nodes += countLegacy(board, -team, depth - 1);
+                }
+                board.unmakeMove();
+            }
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.coolioasjulio.chess.perft;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.coolioasjulio.chess.Board;
+
+/**
+ * Runs perft on positions from an EPD file, and checks the node counts against the expected counts.
+ * Each line of the file is a FEN followed by the expected counts, for example:
+ * <pre>
+ * rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - ;D1 20 ;D2 400 ;D3 8902
+ * </pre>
+ * Usage:
+ * <pre>
+ * PerftRunner [--depth N] [--threads N] [--legacy] [epd file]
+ * PerftRunner [--threads N] [--legacy] --divide DEPTH FEN
+ * </pre>
+ * If no file is given, the standard positions in perft.epd on the classpath are used.
+ * The exit code is 1 if any count is wrong.
+ */
+public class PerftRunner {
+    private static final String DEFAULT_EPD = "perft.epd";
+
+    public static void main(String[] args) throws IOException {
+        int maxDepth = Integer.MAX_VALUE;
+        int threads = 1;
+        boolean legacy = false;
+        String file = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--depth":
+                    maxDepth = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--legacy":
+                    legacy = true;
+                    break;
+                case "--divide":
+                    int depth = Integer.parseInt(args[++i]);
+                    String fen = String.join(" ", List.of(args).subList(i + 1, args.length));
+                    divide(new Perft(threads, legacy), Board.fromFEN(fen), depth);
+                    return;
+                default:
+                    file = args[i];
+                    break;
+            }
+        }
+
+        Perft perft = new Perft(threads, legacy);
+        InputStream in = file == null
+                ? Objects.requireNonNull(PerftRunner.class.getClassLoader().getResourceAsStream(DEFAULT_EPD))
+                : new FileInputStream(file);
+        boolean passed;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            passed = runAll(perft, reader, maxDepth);
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    private static void divide(Perft perft, Board board, int depth) {
+        long start = System.nanoTime();
+        Map<String, Long> counts = perft.divide(board, depth);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long total = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            System.out.println(entry.getKey() + ": " + entry.getValue());
+            total += entry.getValue();
+        }
+        System.out.println();
+        System.out.printf("Moves: %d%nNodes: %d%nTime: %.3fs%nNodes/sec: %.0f%n",
+                counts.size(), total, seconds, total / seconds);
+    }
+
+    private static boolean runAll(Perft perft, BufferedReader reader, int maxDepth) throws IOException {
+        long totalNodes = 0;
+        double totalSeconds = 0;
+        int failures = 0;
+        int position = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            position++;
+            String[] parts = line.split(";");
+            Board board = Board.fromFEN(parts[0]);
+            System.out.println("Position " + position + ": " + parts[0].trim());
+            for (PerftCase c : parseCases(parts)) {
+                if (c.depth > maxDepth) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                long nodes = perft.perft(board, c.depth);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                totalNodes += nodes;
+                totalSeconds += seconds;
+                boolean ok = nodes == c.expected;
+                if (!ok) {
+                    failures++;
+                }
+                System.out.printf("  depth %d: %12d nodes in %8.3fs, %10.0f nodes/sec %s%n",
+                        c.depth, nodes, seconds, nodes / seconds, ok ? "OK" : "FAILED, expected " + c.expected);
+            }
+        }
+        System.out.printf("Total: %d nodes in %.3fs, %.0f nodes/sec, %d failures%n",
+                totalNodes, totalSeconds, totalNodes / totalSeconds, failures);
+        return failures == 0;
+    }
+
+    private static List<PerftCase> parseCases(String[] parts) {
+        List<PerftCase> cases = new ArrayList<>();
+        for (int i = 1; i < parts.length; i++) {
+            String[] tokens = parts[i].trim().split("\\s+");
+            if (tokens.length != 2 || !tokens[0].startsWith("D")) {
+                throw new IllegalArgumentException("Invalid perft count: " + parts[i]);
+            }
+            cases.add(new PerftCase(Integer.parseInt(tokens[0].substring(1)), Long.parseLong(tokens[1])));
+        }
+        return cases;
+    }
+
+    private static class PerftCase {
+        private final int depth;
+        private final long expected;
+
+        private PerftCase(int depth, long expected) {
+            this.depth = depth;
+            this.expected = expected;
+        }
+    }
+}
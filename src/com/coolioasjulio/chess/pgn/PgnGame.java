@@ -0,0 +1,163 @@
+package com.coolioasjulio.chess.pgn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.Move;
+import com.coolioasjulio.chess.PackedMove;
+import com.coolioasjulio.chess.exceptions.InvalidMoveException;
+
+/**
+ * A game in Portable Game Notation: its tags, such as the players and the result, and its moves. The moves are stored
+ * as packed moves, so the games of large files can be replayed with {@link Board#makeMove(int)} without creating
+ * any objects. Comments and variations aren't kept.
+ */
+public class PgnGame {
+    private final Map<String, String> tags;
+    private final int[] moves;
+
+    /**
+     * Create a game.
+     *
+     * @param tags  The tags of the game, in order. If the game doesn't start from the starting position, the FEN tag
+     *              must be its position.
+     * @param moves The packed moves of the game, from first to last.
+     */
+    public PgnGame(Map<String, String> tags, int[] moves) {
+        this.tags = Collections.unmodifiableMap(new LinkedHashMap<>(tags));
+        this.moves = moves.clone();
+    }
+
+    /**
+     * Create a game from the moves of a {@link com.coolioasjulio.chess.ChessGame}. If the start position isn't the
+     * starting position, the FEN and SetUp tags are added.
+     *
+     * @param tags     The tags of the game, in order.
+     * @param startFen The position the game started from, in Forsyth-Edwards Notation.
+     * @param moves    The moves of the game, from first to last.
+     * @return The game.
+     * @throws InvalidMoveException     If a move is illegal.
+     * @throws IllegalArgumentException If the FEN is malformed.
+     */
+    public static PgnGame fromMoves(Map<String, String> tags, String startFen, List<Move> moves) {
+        Board board = Board.fromFEN(startFen);
+        Map<String, String> allTags = new LinkedHashMap<>(tags);
+        String fen = board.getFEN();
+        if (!fen.equals(Board.STARTING_FEN)) {
+            allTags.put("SetUp", "1");
+            allTags.put("FEN", fen);
+        }
+        int[] packed = new int[moves.size()];
+        for (int i = 0; i < packed.length; i++) {
+            int team = board.getTeamToMove();
+            packed[i] = board.findLegalMove(team, PackedMove.fromMove(board, moves.get(i)));
+            if (packed[i] == PackedMove.NONE) {
+                throw new InvalidMoveException("Illegal move: " + moves.get(i));
+            }
+            board.makeMove(packed[i]);
+        }
+        return new PgnGame(allTags, packed);
+    }
+
+    /**
+     * Get a tag of the game.
+     *
+     * @param name The name of the tag, such as White or Result.
+     * @return The value of the tag, or null if the game doesn't have it.
+     */
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * Get the tags of the game.
+     *
+     * @return An unmodifiable map of the tags, in the order they were read or given.
+     */
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Get the position the game started from.
+     *
+     * @return The FEN tag, or the starting position if there is none.
+     */
+    public String getStartFen() {
+        return tags.getOrDefault("FEN", Board.STARTING_FEN);
+    }
+
+    /**
+     * Get the result of the game.
+     *
+     * @return 1-0, 0-1, 1/2-1/2, or * if the result is unknown.
+     */
+    public String getResult() {
+        return tags.getOrDefault("Result", "*");
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    /**
+     * Get a move of the game.
+     *
+     * @param index The index of the move, from 0.
+     * @return The packed move.
+     */
+    public int getPackedMove(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Get the moves of the game.
+     *
+     * @return A new array of the packed moves, from first to last.
+     */
+    public int[] getPackedMoves() {
+        return moves.clone();
+    }
+
+    /**
+     * Get the moves of the game as Move objects, which is much slower than using the packed moves.
+     *
+     * @return A new list of the moves, from first to last.
+     */
+    public List<Move> getMoves() {
+        List<Move> list = new ArrayList<>(moves.length);
+        for (int move : moves) {
+            list.add(PackedMove.toMove(move));
+        }
+        return list;
+    }
+
+    /**
+     * Get the game in PGN.
+     *
+     * @return The game as written by a {@link PgnWriter}.
+     */
+    @Override
+    public String toString() {
+        return PgnWriter.toString(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PgnGame)) {
+            return false;
+        }
+        PgnGame other = (PgnGame) o;
+        return tags.equals(other.tags) && Arrays.equals(moves, other.moves);
+    }
+
+    @Override
+    public int hashCode() {
+        return tags.hashCode() * 31 + Arrays.hashCode(moves);
+    }
+}
@@ -0,0 +1,420 @@
+package com.coolioasjulio.chess.pgn;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.MoveList;
+
+/**
+ * Reads games in Portable Game Notation, one at a time, so files of any size can be read with little memory.
+ * The moves are decoded by matching them against the legal moves of a board, see {@link San}. Comments, variations,
+ * NAGs and move numbers are skipped, and games that start from a FEN tag are supported.
+ * <p>
+ * Decoding the moves is much slower than reading the text, so large files should be read with
+ * {@link #readAll(Path, int, Consumer)}, which decodes games on several threads.
+ */
+public class PgnReader implements Closeable {
+    private static final Logger logger = Logger.getLogger("PgnReader");
+    // Longer games are skipped, so a corrupt file can't use unbounded memory
+    private static final int MAX_MOVETEXT_LENGTH = 1 << 20;
+    private static final int BUFFER_SIZE = 1 << 16;
+    // The number of undecoded games that are read ahead of each decoding thread
+    private static final int GAMES_PER_THREAD = 64;
+    // Tells the decoding threads there are no more games
+    private static final RawGame END = new RawGame(0, 0);
+
+    /**
+     * The text of a game, split into tags and movetext, but not decoded.
+     */
+    private static class RawGame {
+        private final long number;
+        private final long line;
+        private final Map<String, String> tags = new LinkedHashMap<>();
+        private final StringBuilder movetext = new StringBuilder();
+        private String error;
+
+        private RawGame(long number, long line) {
+            this.number = number;
+            this.line = line;
+        }
+    }
+
+    private final BufferedReader in;
+    private final Decoder decoder = new Decoder();
+    // The first line of the next game, which was read while looking for the end of the last one
+    private String nextLine;
+    private long lineNumber;
+    private long games;
+
+    /**
+     * Create a reader.
+     *
+     * @param in The reader to read PGN from.
+     */
+    public PgnReader(Reader in) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, BUFFER_SIZE);
+    }
+
+    /**
+     * Create a reader of a file. The file is decoded as UTF-8, and malformed characters are replaced, since they can
+     * only be in tags and comments.
+     *
+     * @param file The file to read.
+     * @return The reader, which must be closed.
+     * @throws IOException If the file can't be opened.
+     */
+    public static PgnReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        return new PgnReader(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE), BUFFER_SIZE));
+    }
+
+    /**
+     * Read the next game.
+     *
+     * @return The game, or null if there are no more games.
+     * @throws IOException              If the game can't be read.
+     * @throws IllegalArgumentException If the game is malformed or has an illegal move. The game is skipped, so the
+     *                                  next call reads the game after it.
+     */
+    public PgnGame next() throws IOException {
+        RawGame game = readRawGame();
+        return game == null ? null : decoder.decode(game);
+    }
+
+    /**
+     * Read every game of a file, decoding them on several threads. The file is read on this thread, and only a few
+     * games per decoding thread are read ahead, so the memory used doesn't depend on the size of the file.
+     * <p>
+     * The games are passed to the consumer on the decoding threads as soon as they are decoded, so they may not be
+     * in the order of the file, and the consumer must be thread-safe. Malformed games are logged and skipped.
+     *
+     * @param file     The file to read.
+     * @param threads  The number of decoding threads.
+     * @param consumer Receives each game.
+     * @return The number of games that were decoded.
+     * @throws IOException          If the file can't be read.
+     * @throws InterruptedException If this thread is interrupted. The decoding threads are stopped.
+     */
+    public static long readAll(Path file, int threads, Consumer<PgnGame> consumer)
+            throws IOException, InterruptedException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("There must be at least 1 thread!");
+        }
+        BlockingQueue<RawGame> queue = new ArrayBlockingQueue<>(threads * GAMES_PER_THREAD);
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "PGN decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (PgnReader reader = open(file)) {
+            List<Future<Long>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(pool.submit(() -> decodeGames(queue, consumer)));
+            }
+            RawGame game;
+            while ((game = reader.readRawGame()) != null) {
+                put(queue, game, workers);
+            }
+            for (int i = 0; i < threads; i++) {
+                put(queue, END, workers);
+            }
+            long decoded = 0;
+            for (Future<Long> worker : workers) {
+                decoded += getResult(worker);
+            }
+            return decoded;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long decodeGames(BlockingQueue<RawGame> queue, Consumer<PgnGame> consumer)
+            throws InterruptedException {
+        Decoder decoder = new Decoder();
+        long decoded = 0;
+        RawGame game;
+        while ((game = queue.take()) != END) {
+            PgnGame decodedGame;
+            try {
+                decodedGame = decoder.decode(game);
+            } catch (IllegalArgumentException e) {
+                logger.warning(e.getMessage());
+                continue;
+            }
+            consumer.accept(decodedGame);
+            decoded++;
+        }
+        return decoded;
+    }
+
+    private static void put(BlockingQueue<RawGame> queue, RawGame game, List<Future<Long>> workers)
+            throws InterruptedException {
+        // If a decoding thread failed, the queue may never have room again
+        while (!queue.offer(game, 100, TimeUnit.MILLISECONDS)) {
+            for (Future<Long> worker : workers) {
+                if (worker.isDone()) {
+                    getResult(worker);
+                }
+            }
+        }
+    }
+
+    private static long getResult(Future<Long> worker) throws InterruptedException {
+        try {
+            return worker.get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Read the text of the next game. A game ends where the tags of the next game start, or at the end of the file.
+     *
+     * @return The game, or null if there are no more games.
+     */
+    private RawGame readRawGame() throws IOException {
+        RawGame game = null;
+        boolean hasMovetext = false;
+        boolean inComment = false;
+        String line;
+        while ((line = readLine()) != null) {
+            int start = 0;
+            while (start < line.length() && Character.isWhitespace(line.charAt(start))) {
+                start++;
+            }
+            if (start == line.length() || (line.charAt(0) == '%' && !inComment)) {
+                continue;
+            }
+            if (game == null) {
+                game = new RawGame(++games, lineNumber);
+            }
+            boolean isTag = !inComment && line.charAt(start) == '['
+                    && start + 1 < line.length() && Character.isLetterOrDigit(line.charAt(start + 1));
+            if (isTag) {
+                if (hasMovetext) {
+                    nextLine = line;
+                    lineNumber--;
+                    break;
+                }
+                parseTag(game, line, start);
+            } else {
+                hasMovetext = true;
+                inComment = endsInComment(line, inComment);
+                if (game.movetext.length() + line.length() >= MAX_MOVETEXT_LENGTH) {
+                    if (game.error == null) {
+                        game.error = "Moves are longer than " + MAX_MOVETEXT_LENGTH + " characters";
+                    }
+                } else {
+                    game.movetext.append(line).append('\n');
+                }
+            }
+        }
+        return game;
+    }
+
+    private String readLine() throws IOException {
+        lineNumber++;
+        if (nextLine != null) {
+            String line = nextLine;
+            nextLine = null;
+            return line;
+        }
+        return in.readLine();
+    }
+
+    private static boolean endsInComment(String line, boolean inComment) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inComment) {
+                inComment = c != '}';
+            } else if (c == '{') {
+                inComment = true;
+            } else if (c == ';') {
+                // The rest of the line is a comment
+                break;
+            }
+        }
+        return inComment;
+    }
+
+    private static void parseTag(RawGame game, String line, int start) {
+        int nameEnd = start + 1;
+        while (nameEnd < line.length() && !Character.isWhitespace(line.charAt(nameEnd))
+                && line.charAt(nameEnd) != '"') {
+            nameEnd++;
+        }
+        int quote = line.indexOf('"', nameEnd);
+        if (quote == -1) {
+            game.error = game.error == null ? "Malformed tag: " + line : game.error;
+            return;
+        }
+        StringBuilder value = new StringBuilder();
+        int i = quote + 1;
+        for (; i < line.length() && line.charAt(i) != '"'; i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                c = line.charAt(++i);
+            }
+            value.append(c);
+        }
+        if (i == line.length()) {
+            game.error = game.error == null ? "Malformed tag: " + line : game.error;
+            return;
+        }
+        game.tags.put(line.substring(start + 1, nameEnd), value.toString());
+    }
+
+    /**
+     * Decodes the moves of games on its own board, so each decoding thread needs its own.
+     */
+    private static class Decoder {
+        private final Board board = new Board();
+        private final MoveList moves = new MoveList();
+        private int[] buffer = new int[256];
+
+        /**
+         * Decode the moves of a game on this decoder's board.
+         *
+         * @throws IllegalArgumentException If the game is malformed or has an illegal move.
+         */
+        private PgnGame decode(RawGame game) {
+            try {
+                if (game.error != null) {
+                    throw new IllegalArgumentException(game.error);
+                }
+                String fen = game.tags.get("FEN");
+                board.loadFEN(fen == null ? Board.STARTING_FEN : fen);
+                int count = decodeMovetext(game);
+                return new PgnGame(game.tags, Arrays.copyOf(buffer, count));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Game " + game.number + " at line " + game.line + ": "
+                        + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Do the moves of a game on the board, and put them in the buffer. If the game has no Result tag, the result at
+         * the end of the moves is added as one.
+         *
+         * @return The number of moves.
+         */
+        private int decodeMovetext(RawGame game) {
+            StringBuilder text = game.movetext;
+            int count = 0;
+            int variationDepth = 0;
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '{') {
+                    int end = text.indexOf("}", i);
+                    i = end == -1 ? text.length() : end + 1;
+                } else if (c == ';') {
+                    int end = text.indexOf("\n", i);
+                    i = end == -1 ? text.length() : end + 1;
+                } else if (c == '(') {
+                    variationDepth++;
+                    i++;
+                } else if (c == ')') {
+                    if (--variationDepth < 0) {
+                        throw new IllegalArgumentException("Unmatched ) in moves");
+                    }
+                    i++;
+                } else {
+                    int end = i + 1;
+                    while (end < text.length() && !Character.isWhitespace(text.charAt(end))
+                            && "{};()".indexOf(text.charAt(end)) == -1) {
+                        end++;
+                    }
+                    if (variationDepth == 0 && c != '$') {
+                        count = decodeToken(game, text, i, end, count);
+                    }
+                    i = end;
+                }
+            }
+            return count;
+        }
+
+        private int decodeToken(RawGame game, StringBuilder text, int start, int end, int count) {
+            if (isResult(text, start, end)) {
+                game.tags.putIfAbsent("Result", text.substring(start, end));
+                return count;
+            }
+            // Skip the move number, which may not be separated from the move, like 12.Nf3 or 12...Nf3
+            int i = start;
+            while (i < end && Character.isDigit(text.charAt(i))) {
+                i++;
+            }
+            if (i == end || (i > start && text.charAt(i) == '.')) {
+                while (i < end && text.charAt(i) == '.') {
+                    i++;
+                }
+                if (i == end) {
+                    return count;
+                }
+                start = i;
+            }
+
+            int move;
+            try {
+                move = San.parse(board, text, start, end, moves);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(e.getMessage() + " at move " + board.getFullmoveNumber());
+            }
+            board.makeMove(move);
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, count * 2);
+            }
+            buffer[count] = move;
+            return count + 1;
+        }
+
+        private static boolean isResult(StringBuilder text, int start, int end) {
+            return tokenEquals(text, start, end, "*") || tokenEquals(text, start, end, "1-0")
+                    || tokenEquals(text, start, end, "0-1") || tokenEquals(text, start, end, "1/2-1/2");
+        }
+
+        private static boolean tokenEquals(StringBuilder text, int start, int end, String str) {
+            if (end - start != str.length()) {
+                return false;
+            }
+            for (int i = 0; i < str.length(); i++) {
+                if (text.charAt(start + i) != str.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
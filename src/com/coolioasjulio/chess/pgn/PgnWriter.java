@@ -0,0 +1,156 @@
+package com.coolioasjulio.chess.pgn;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.MoveList;
+import com.coolioasjulio.chess.pieces.Piece;
+
+/**
+ * Writes games in Portable Game Notation. Each game starts with the Seven Tag Roster (Event, Site, Date, Round, White,
+ * Black and Result), using ? for missing tags, followed by its other tags. The moves are written in SAN, in lines of
+ * at most 79 characters, and end with the result.
+ * <p>
+ * This is safe to use from multiple threads, and each game is written in one piece.
+ */
+public class PgnWriter implements Closeable, Flushable {
+    private static final String[] SEVEN_TAG_ROSTER = {"Event", "Site", "Date", "Round", "White", "Black", "Result"};
+    private static final String[] SEVEN_TAG_DEFAULTS = {"?", "?", "????.??.??", "?", "?", "?", "*"};
+    private static final int MAX_LINE_LENGTH = 79;
+
+    private final Writer out;
+    private final Board board = new Board();
+    private final MoveList moves = new MoveList();
+    private final StringBuilder sb = new StringBuilder();
+    private final StringBuilder token = new StringBuilder();
+
+    /**
+     * Create a writer.
+     *
+     * @param out The writer to write the games to. It should be buffered.
+     */
+    public PgnWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Create a writer to a file. If the file exists, it is overwritten.
+     *
+     * @param file The file to write.
+     * @return The writer, which must be closed.
+     * @throws IOException If the file can't be opened.
+     */
+    public static PgnWriter open(Path file) throws IOException {
+        return new PgnWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get a game in PGN.
+     *
+     * @param game The game.
+     * @return The game as it would be written, ending with an empty line.
+     */
+    public static String toString(PgnGame game) {
+        StringWriter sw = new StringWriter();
+        try {
+            new PgnWriter(sw).write(game);
+        } catch (IOException e) {
+            // A StringWriter never throws
+            throw new UncheckedIOException(e);
+        }
+        return sw.toString();
+    }
+
+    /**
+     * Write a game, followed by an empty line.
+     *
+     * @param game The game to write.
+     * @throws IOException If it can't be written.
+     */
+    public synchronized void write(PgnGame game) throws IOException {
+        sb.setLength(0);
+        Map<String, String> tags = game.getTags();
+        for (int i = 0; i < SEVEN_TAG_ROSTER.length; i++) {
+            appendTag(SEVEN_TAG_ROSTER[i], tags.getOrDefault(SEVEN_TAG_ROSTER[i], SEVEN_TAG_DEFAULTS[i]));
+        }
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            if (!isSevenTagRoster(tag.getKey())) {
+                appendTag(tag.getKey(), tag.getValue());
+            }
+        }
+        sb.append('\n');
+
+        board.loadFEN(game.getStartFen());
+        int lineStart = sb.length();
+        for (int i = 0; i < game.getMoveCount(); i++) {
+            int move = game.getPackedMove(i);
+            token.setLength(0);
+            if (board.getTeamToMove() == Piece.WHITE) {
+                token.append(board.getFullmoveNumber()).append(". ");
+            } else if (i == 0) {
+                token.append(board.getFullmoveNumber()).append("... ");
+            }
+            San.append(token, board, move, moves);
+            lineStart = appendToken(lineStart);
+            board.makeMove(move);
+        }
+        token.setLength(0);
+        token.append(game.getResult());
+        appendToken(lineStart);
+        sb.append("\n\n");
+        out.write(sb.toString());
+    }
+
+    private void appendTag(String name, String value) {
+        sb.append('[').append(name).append(" \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        sb.append("\"]\n");
+    }
+
+    private int appendToken(int lineStart) {
+        if (sb.length() > lineStart) {
+            if (sb.length() - lineStart + 1 + token.length() > MAX_LINE_LENGTH) {
+                sb.append('\n');
+                lineStart = sb.length();
+            } else {
+                sb.append(' ');
+            }
+        }
+        sb.append(token);
+        return lineStart;
+    }
+
+    private static boolean isSevenTagRoster(String name) {
+        for (String tag : SEVEN_TAG_ROSTER) {
+            if (tag.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,216 @@
+package com.coolioasjulio.chess.pgn;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.MoveList;
+import com.coolioasjulio.chess.PackedMove;
+
+/**
+ * Converts packed moves to and from Standard Algebraic Notation (SAN), the notation of PGN files. For example, e4,
+ * Nbd7, exd6, O-O, e8=Q+ or Qxf7#.
+ * <p>
+ * Moves are read by matching them against the legal moves of the board, so anything that identifies exactly one
+ * legal move is accepted. This includes missing or redundant disambiguation, long algebraic notation such as Ng1-f3,
+ * 0-0 for castling, promotions without the equals sign, and trailing check marks and annotations like !?.
+ */
+public final class San {
+    // The letters of the piece types, indexed by type. Pawns have no letter
+    private static final String PIECES = " NBRQK";
+    // The letters of the promotion pieces, indexed by the promotion of a packed move
+    private static final String PROMOTIONS = " NBRQ";
+    private static final int PAWN = 0;
+    private static final int KING = 5;
+
+    private San() {
+    }
+
+    /**
+     * Find the legal move written in SAN for the team to move.
+     *
+     * @param board The board, in the position before the move.
+     * @param san   The move in SAN.
+     * @return The packed move.
+     * @throws IllegalArgumentException If the move is malformed, illegal or ambiguous.
+     */
+    public static int parse(Board board, String san) {
+        return parse(board, san, 0, san.length(), new MoveList());
+    }
+
+    /**
+     * Find the legal move written in SAN for the team to move, without creating any objects unless it fails.
+     *
+     * @param board The board, in the position before the move.
+     * @param text  The text containing the move.
+     * @param start The index of the first character of the move.
+     * @param end   The index after the last character of the move.
+     * @param moves A buffer for generating moves.
+     * @return The packed move.
+     * @throws IllegalArgumentException If the move is malformed, illegal or ambiguous.
+     */
+    static int parse(Board board, CharSequence text, int start, int end, MoveList moves) {
+        int team = board.getTeamToMove();
+        int last = end;
+        while (last > start && "+#!?".indexOf(text.charAt(last - 1)) >= 0) {
+            last--;
+        }
+
+        char first = last > start ? text.charAt(start) : ' ';
+        if (first == 'O' || first == '0') {
+            int flag = isCastle(text, start, last, first, 2) ? PackedMove.KING_SIDE_CASTLE
+                    : isCastle(text, start, last, first, 3) ? PackedMove.QUEEN_SIDE_CASTLE
+                    : 0;
+            if (flag == 0) {
+                throw new IllegalArgumentException("Malformed move: " + text.subSequence(start, end));
+            }
+            board.generateLegalMoves(team, KING, moves);
+            for (int i = 0; i < moves.size(); i++) {
+                if ((PackedMove.getFlags(moves.get(i)) & flag) != 0) {
+                    return moves.get(i);
+                }
+            }
+            throw new IllegalArgumentException("Illegal move: " + text.subSequence(start, end));
+        }
+
+        int i = start;
+        int type = PIECES.indexOf(first);
+        if (type > 0) {
+            i++;
+        } else {
+            type = PAWN;
+        }
+        int promotion = 0;
+        if (type == PAWN && last > i) {
+            promotion = Math.max(PROMOTIONS.indexOf(text.charAt(last - 1)), 0);
+            if (promotion != 0) {
+                last--;
+                if (last > i && text.charAt(last - 1) == '=') {
+                    last--;
+                }
+            }
+        }
+        int toFile = last - i >= 2 ? text.charAt(last - 2) - 'a' : -1;
+        int toRank = last - i >= 2 ? text.charAt(last - 1) - '1' : -1;
+        if (toFile < 0 || toFile > 7 || toRank < 0 || toRank > 7) {
+            throw new IllegalArgumentException("Malformed move: " + text.subSequence(start, end));
+        }
+        // Anything between the piece and the end square is disambiguation or a capture mark
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int j = i; j < last - 2; j++) {
+            char c = text.charAt(j);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRank = c - '1';
+            } else if (c != 'x' && c != ':' && c != '-') {
+                throw new IllegalArgumentException("Malformed move: " + text.subSequence(start, end));
+            }
+        }
+
+        int to = toFile + toRank * 8;
+        board.generateLegalMoves(team, type, moves);
+        int found = PackedMove.NONE;
+        for (int j = 0; j < moves.size(); j++) {
+            int move = moves.get(j);
+            int from = PackedMove.getFrom(move);
+            if (PackedMove.getTo(move) != to || PackedMove.isCastle(move) || PackedMove.getPromotion(move) != promotion
+                    || (fromFile != -1 && from % 8 != fromFile) || (fromRank != -1 && from / 8 != fromRank)) {
+                continue;
+            }
+            if (found != PackedMove.NONE) {
+                throw new IllegalArgumentException("Ambiguous move: " + text.subSequence(start, end));
+            }
+            found = move;
+        }
+        if (found == PackedMove.NONE) {
+            throw new IllegalArgumentException("Illegal move: " + text.subSequence(start, end));
+        }
+        return found;
+    }
+
+    private static boolean isCastle(CharSequence text, int start, int end, char letter, int letters) {
+        if (end - start != letters * 2 - 1) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) != ((i - start) % 2 == 0 ? letter : '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write a legal move in SAN, with + or # if it checks or mates.
+     *
+     * @param board The board, in the position before the move. It is left in that position.
+     * @param move  The packed move, which must be legal for the team to move.
+     * @return The move in SAN.
+     */
+    public static String toString(Board board, int move) {
+        StringBuilder sb = new StringBuilder();
+        append(sb, board, move, new MoveList());
+        return sb.toString();
+    }
+
+    /**
+     * Write a legal move in SAN, with + or # if it checks or mates.
+     *
+     * @param sb    The builder to append the move to.
+     * @param board The board, in the position before the move. It is left in that position.
+     * @param move  The packed move, which must be legal for the team to move.
+     * @param moves A buffer for generating moves.
+     */
+    static void append(StringBuilder sb, Board board, int move, MoveList moves) {
+        int team = PackedMove.getTeam(move);
+        int type = PackedMove.getPieceType(move);
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        if ((PackedMove.getFlags(move) & PackedMove.KING_SIDE_CASTLE) != 0) {
+            sb.append("O-O");
+        } else if ((PackedMove.getFlags(move) & PackedMove.QUEEN_SIDE_CASTLE) != 0) {
+            sb.append("O-O-O");
+        } else {
+            if (type != PAWN) {
+                sb.append(PIECES.charAt(type));
+                // Only as much of the start square as tells the move apart from other moves to the same square
+                boolean ambiguous = false;
+                boolean sameFile = false;
+                boolean sameRank = false;
+                board.generateLegalMoves(team, type, moves);
+                for (int i = 0; i < moves.size(); i++) {
+                    int other = PackedMove.getFrom(moves.get(i));
+                    if (PackedMove.getTo(moves.get(i)) == to && other != from && !PackedMove.isCastle(moves.get(i))) {
+                        ambiguous = true;
+                        sameFile |= other % 8 == from % 8;
+                        sameRank |= other / 8 == from / 8;
+                    }
+                }
+                if (ambiguous && (!sameFile || sameRank)) {
+                    sb.append((char) ('a' + from % 8));
+                }
+                if (ambiguous && sameFile) {
+                    sb.append((char) ('1' + from / 8));
+                }
+            }
+            if (PackedMove.isCapture(move)) {
+                if (type == PAWN) {
+                    sb.append((char) ('a' + from % 8));
+                }
+                sb.append('x');
+            }
+            sb.append((char) ('a' + to % 8)).append((char) ('1' + to / 8));
+            if (PackedMove.getPromotion(move) != 0) {
+                sb.append('=').append(PROMOTIONS.charAt(PackedMove.getPromotion(move)));
+            }
+        }
+
+        board.makeMove(move);
+        try {
+            if (board.inCheck(-team)) {
+                sb.append(board.getLegalMoveCount(-team) == 0 ? '#' : '+');
+            }
+        } finally {
+            board.unmakeMove();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.coolioasjulio.chess.pieceevaluators;
 
 import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.Score;
 import com.coolioasjulio.chess.pieces.Piece;
 
 public interface PieceEvaluator {
@@ -23,4 +24,30 @@ public interface PieceEvaluator {
     default double getMaterialValue(Board board, int team) {
         return board.getPieces().stream().filter(e -> e.getTeam() == team).mapToDouble(this::getValue).sum();
     }
+
+    /**
+     * Get the individual value of a piece in centipawns. By default, this converts {@link #getValue(Piece)}.
+     *
+     * @param piece The piece to get the value of.
+     * @return The value of the piece, in hundredths of a pawn.
+     */
+    default int getCentipawnValue(Piece piece) {
+        return Score.fromPawns(getValue(piece));
+    }
+
+    /**
+     * Get the material value for a team in centipawns. By default, this is the sum of the centipawn values of the
+     * pieces of the team.
+     *
+     * @param board The board to look at.
+     * @param team The team to return the score for.
+     * @return The material score for the team, in hundredths of a pawn.
+     */
+    default int getMaterialCentipawns(Board board, int team) {
+        int score = 0;
+        for (Piece piece : board.getPieces(team)) {
+            score += getCentipawnValue(piece);
+        }
+        return score;
+    }
 }
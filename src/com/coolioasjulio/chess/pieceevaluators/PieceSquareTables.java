@@ -0,0 +1,172 @@
+package com.coolioasjulio.chess.pieceevaluators;
+
+import com.coolioasjulio.chess.pieces.Piece;
+
+/**
+ * The default piece square tables. They are in row x col format, where the first row is the rank the team promotes
+ * on and the last row is its back rank. They are in pawns, as {@link PositionalPieceEvaluator} takes them.
+ * <p>
+ * They are also indexed for incremental evaluation, in centipawns including the value of the piece itself, by piece
+ * index (team index * 6 + piece type ordinal, where white=0 and black=1) and then square index (a1=0, b1=1, ...).
+ * The king has a separate endgame table, and the other pieces use the same table in both phases. The score of a
+ * position is tapered between the two by the game phase, which is the sum of the phase weights of the pieces on the
+ * board, so the endgame tables take over gradually as pieces are traded.
+ */
+public final class PieceSquareTables {
+    /**
+     * The phase of the starting position. Positions with more pieces, after promotions, are treated as this.
+     */
+    public static final int MAX_PHASE = 24;
+
+    static final double[][] kingTable = new double[][] {
+        {-0.3,-0.4,-0.4,-0.5,-0.5,-0.4,-0.4,-0.3},
+        {-0.3,-0.4,-0.4,-0.5,-0.5,-0.4,-0.4,-0.3},
+        {-0.3,-0.4,-0.4,-0.5,-0.5,-0.4,-0.4,-0.3},
+        {-0.3,-0.4,-0.4,-0.5,-0.5,-0.4,-0.4,-0.3},
+        {-0.2,-0.3,-0.3,-0.4,-0.4,-0.3,-0.3,-0.2},
+        {-0.1,-0.2,-0.2,-0.2,-0.2,-0.2,-0.2,-0.1},
+        { -0.05, -0.05, -0.05,-0.1,-0.1, -0.05, -0.05, -0.05},
+        { 0.2, 0.3, 0.3,  0,  0,  0, 0.3, 0.2}
+    };
+    
+    static final double[][] kingEndgameTable = new double[][] {
+        {-.50,-.40,-.30,-.20,-.20,-.30,-.40,-.50},
+        {-.30,-.20,-.10,   0,   0,-.10,-.20,-.30},
+        {-.30,-.10, .20, .30, .30, .20,-.10,-.30},
+        {-.30,-.10, .30, .40, .40, .30,-.10,-.30},
+        {-.30,-.10, .30, .40, .40, .30,-.10,-.30},
+        {-.30,-.10, .20, .30, .30, .20,-.10,-.30},
+        {-.30,-.30,   0,   0,   0,   0,-.30,-.30},
+        {-.50,-.30,-.30,-.30,-.30,-.30,-.30,-.50},
+    };
+    
+    static final double[][] queenTable = new double[][] {
+        {-0.2,-0.1,-0.1, -0.05, -0.05,-0.1,-0.1,-0.2},
+        {-0.1,  0,  0,  0,  0,  0,  0,-0.1},
+        {-0.1,  0,  0.05,  0.05,  0.05,  0.05,  0,-0.1},
+        { -0.05,  0,  0.05,  0.05,  0.05,  0.05,  0, -0.05},
+        {  0,  0,  0.05,  0.05,  0.05,  0.05,  0, -0.05},
+        {-0.1,  0.05,  0.05,  0.05,  0.05,  0.05,  0,-0.1},
+        {-0.1,  0,  0.05,  0,  0,  0,  0,-0.1},
+        {-0.2,-0.1,-0.1, -0.05, -0.05,-0.1,-0.1,-0.2}
+    };
+    
+    static final double[][] bishopTable = new double[][] {
+        {-0.2,-0.1,-0.1,-0.1,-0.1,-0.1,-0.1,-0.2},
+        {-0.1,  0,  0,  0,  0,  0,  0,-0.1},
+        {-0.1,  0,  0.05, 0.1, 0.1,  0.05,  0,-0.1},
+        {-0.1,  0.05,  0.05, 0.1, 0.1,  0.05,  0.05,-0.1},
+        {-0.1,  0, 0.1, 0.1, 0.1, 0.1,  0,-0.1},
+        {-0.1, 0.1, 0.1, 0.1, 0.1, 0.1, 0.1,-0.1},
+        {-0.1,  0.05,  0,  0,  0,  0,  0.05,-0.1},
+        {-0.2,-0.1,-0.1,-0.1,-0.1,-0.1,-0.1,-0.2}
+    };
+    
+    static final double[][] knightTable = new double[][] {
+        {-0.5,-0.4,-0.3,-0.3,-0.3,-0.3,-0.4,-0.5},
+        {-0.4,-0.2,   0,  0,  0,  0,-0.2,-0.4},
+        {-0.3,   0, 0.1, 0.15, 0.15, 0.1,  0,-0.3},
+        {-0.3, .05,  0.15, 0.2, 0.2, 0.15,  0.05,-0.3},
+        {-0.3,   0, 0.15, 0.2, 0.2, 0.15,  0,-0.3},
+        {-0.3, .05, 0.1, 0.15, 0.15, 0.1,  0.05,-0.3},
+        {-0.4,-0.2,  0,  0.05,  0.05,  0,-0.2,-0.4},
+        {-0.5,-0.4,-0.3,-0.3,-0.3,-0.3,-0.4,-0.5}
+    };
+    
+    static final double[][] rookTable = new double[][] {
+        {     0,  0,  0,  0,  0,  0,  0,     0},
+        {  0.05, .1, .1, .1, .1, .1, .1,  0.05},
+        { -0.05,  0,  0,  0,  0,  0,  0, -0.05},
+        { -0.05,  0,  0,  0,  0,  0,  0, -0.05},
+        { -0.05,  0,  0,  0,  0,  0,  0, -0.05},
+        { -0.05,  0,  0,  0,  0,  0,  0, -0.05},
+        { -0.05,  0,  0,  0,  0,  0,  0, -0.05},
+        {     0,  0,  0,.05,.05,  0,  0,     0}
+    };
+    
+    static final double[][] pawnTable = new double[][] {
+        {   1.0,   1.0,   1.0,   1.0,   1.0,   1.0,   1.0,   1.0 },
+        {   0.5,   0.5,   0.5,   0.5,   0.5,   0.5,   0.5,   0.5 },
+        {   0.1,   0.1,   0.2,   0.3,   0.3,   0.2,   0.1,   0.1 },
+        {  0.05,  0.05,   0.1,  0.25,  0.25,   0.1,  0.05,  0.05 },
+        {     0,     0,     0,   0.2,   0.2,     0,     0,     0 },
+        {  0.05, -0.05,  -0.1,     0,     0,  -0.1, -0.05,  0.05 },
+        {  0.05,   0.1,   0.1,  -0.3,  -0.3,   0.1,   0.1,  0.05 },
+        {     0,     0,     0,     0,     0,     0,     0,     0 }
+    };
+
+    // Indexed by piece type
+    private static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+    private static final int[] PIECE_VALUES = {Piece.PAWN_CENTIPAWNS, Piece.KNIGHT_CENTIPAWNS,
+            Piece.BISHOP_CENTIPAWNS, Piece.ROOK_CENTIPAWNS, Piece.QUEEN_CENTIPAWNS, Piece.KING_CENTIPAWNS};
+    private static final int[][] MIDDLEGAME = new int[12][64];
+    private static final int[][] ENDGAME = new int[12][64];
+
+    static {
+        double[][][] tables = {pawnTable, knightTable, bishopTable, rookTable, queenTable, kingTable};
+        for (int type = 0; type < 6; type++) {
+            double[][] endgameTable = type == 5 ? kingEndgameTable : tables[type];
+            for (int sq = 0; sq < 64; sq++) {
+                int col = sq & 7;
+                int rank = sq >>> 3;
+                // The first row is the first rank for black and the eighth rank for white
+                MIDDLEGAME[type][sq] = PIECE_VALUES[type] + toCentipawns(tables[type][7 - rank][col]);
+                ENDGAME[type][sq] = PIECE_VALUES[type] + toCentipawns(endgameTable[7 - rank][col]);
+                MIDDLEGAME[6 + type][sq] = PIECE_VALUES[type] + toCentipawns(tables[type][rank][col]);
+                ENDGAME[6 + type][sq] = PIECE_VALUES[type] + toCentipawns(endgameTable[rank][col]);
+            }
+        }
+    }
+
+    private PieceSquareTables() {
+    }
+
+    /**
+     * Get the middlegame value of a piece on a square.
+     *
+     * @param piece  The piece index, team index * 6 + piece type ordinal.
+     * @param square The square index, a1=0, b1=1, ..., h8=63.
+     * @return The value of the piece plus its piece square value, in centipawns.
+     */
+    public static int middlegame(int piece, int square) {
+        return MIDDLEGAME[piece][square];
+    }
+
+    /**
+     * Get the endgame value of a piece on a square.
+     *
+     * @param piece  The piece index, team index * 6 + piece type ordinal.
+     * @param square The square index, a1=0, b1=1, ..., h8=63.
+     * @return The value of the piece plus its piece square value, in centipawns.
+     */
+    public static int endgame(int piece, int square) {
+        return ENDGAME[piece][square];
+    }
+
+    /**
+     * Get how much a piece contributes to the game phase.
+     *
+     * @param type The piece type ordinal.
+     * @return The phase weight, which is 0 for pawns and kings.
+     */
+    public static int phaseWeight(int type) {
+        return PHASE_WEIGHTS[type];
+    }
+
+    /**
+     * Taper between a middlegame and an endgame score.
+     *
+     * @param middlegame The middlegame score.
+     * @param endgame    The endgame score.
+     * @param phase      The game phase. Values above MAX_PHASE are treated as MAX_PHASE.
+     * @return The tapered score.
+     */
+    public static int taper(int middlegame, int endgame, int phase) {
+        phase = Math.min(phase, MAX_PHASE);
+        return (middlegame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+
+    private static int toCentipawns(double pawns) {
+        return (int) Math.round(pawns * 100);
+    }
+}
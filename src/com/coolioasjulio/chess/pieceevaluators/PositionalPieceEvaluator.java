@@ -2,8 +2,6 @@ package com.coolioasjulio.chess.pieceevaluators;
 
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
 
 import com.coolioasjulio.chess.Board;
@@ -11,108 +9,41 @@ import com.coolioasjulio.chess.Square;
 import com.coolioasjulio.chess.endgameevaluators.EndgameEvaluator;
 import com.coolioasjulio.chess.endgameevaluators.SpeelmanEndgameEvaluator;
 import com.coolioasjulio.chess.pieces.Piece;
+import com.coolioasjulio.chess.pieces.PieceType;
 
 public class PositionalPieceEvaluator implements PieceEvaluator {
     
-    private static final double[][] kingTable = new double[][] {
-        {-0.3,-0.4,-0.4,-0.5,-0.5,-0.4,-0.4,-0.3},
-        {-0.3,-0.4,-0.4,-0.5,-0.5,-0.4,-0.4,-0.3},
-        {-0.3,-0.4,-0.4,-0.5,-0.5,-0.4,-0.4,-0.3},
-        {-0.3,-0.4,-0.4,-0.5,-0.5,-0.4,-0.4,-0.3},
-        {-0.2,-0.3,-0.3,-0.4,-0.4,-0.3,-0.3,-0.2},
-        {-0.1,-0.2,-0.2,-0.2,-0.2,-0.2,-0.2,-0.1},
-        { -0.05, -0.05, -0.05,-0.1,-0.1, -0.05, -0.05, -0.05},
-        { 0.2, 0.3, 0.3,  0,  0,  0, 0.3, 0.2}
-    };
-    
-    private static final double[][] kingEndgameTable = new double[][] {
-        {-.50,-.40,-.30,-.20,-.20,-.30,-.40,-.50},
-        {-.30,-.20,-.10,   0,   0,-.10,-.20,-.30},
-        {-.30,-.10, .20, .30, .30, .20,-.10,-.30},
-        {-.30,-.10, .30, .40, .40, .30,-.10,-.30},
-        {-.30,-.10, .30, .40, .40, .30,-.10,-.30},
-        {-.30,-.10, .20, .30, .30, .20,-.10,-.30},
-        {-.30,-.30,   0,   0,   0,   0,-.30,-.30},
-        {-.50,-.30,-.30,-.30,-.30,-.30,-.30,-.50},
-    };
-    
-    private static final double[][] queenTable = new double[][] {
-        {-0.2,-0.1,-0.1, -0.05, -0.05,-0.1,-0.1,-0.2},
-        {-0.1,  0,  0,  0,  0,  0,  0,-0.1},
-        {-0.1,  0,  0.05,  0.05,  0.05,  0.05,  0,-0.1},
-        { -0.05,  0,  0.05,  0.05,  0.05,  0.05,  0, -0.05},
-        {  0,  0,  0.05,  0.05,  0.05,  0.05,  0, -0.05},
-        {-0.1,  0.05,  0.05,  0.05,  0.05,  0.05,  0,-0.1},
-        {-0.1,  0,  0.05,  0,  0,  0,  0,-0.1},
-        {-0.2,-0.1,-0.1, -0.05, -0.05,-0.1,-0.1,-0.2}
-    };
-    
-    private static final double[][] bishopTable = new double[][] {
-        {-0.2,-0.1,-0.1,-0.1,-0.1,-0.1,-0.1,-0.2},
-        {-0.1,  0,  0,  0,  0,  0,  0,-0.1},
-        {-0.1,  0,  0.05, 0.1, 0.1,  0.05,  0,-0.1},
-        {-0.1,  0.05,  0.05, 0.1, 0.1,  0.05,  0.05,-0.1},
-        {-0.1,  0, 0.1, 0.1, 0.1, 0.1,  0,-0.1},
-        {-0.1, 0.1, 0.1, 0.1, 0.1, 0.1, 0.1,-0.1},
-        {-0.1,  0.05,  0,  0,  0,  0,  0.05,-0.1},
-        {-0.2,-0.1,-0.1,-0.1,-0.1,-0.1,-0.1,-0.2}
-    };
-    
-    private static final double[][] knightTable = new double[][] {
-        {-0.5,-0.4,-0.3,-0.3,-0.3,-0.3,-0.4,-0.5},
-        {-0.4,-0.2,   0,  0,  0,  0,-0.2,-0.4},
-        {-0.3,   0, 0.1, 0.15, 0.15, 0.1,  0,-0.3},
-        {-0.3, .05,  0.15, 0.2, 0.2, 0.15,  0.05,-0.3},
-        {-0.3,   0, 0.15, 0.2, 0.2, 0.15,  0,-0.3},
-        {-0.3, .05, 0.1, 0.15, 0.15, 0.1,  0.05,-0.3},
-        {-0.4,-0.2,  0,  0.05,  0.05,  0,-0.2,-0.4},
-        {-0.5,-0.4,-0.3,-0.3,-0.3,-0.3,-0.4,-0.5}
-    };
-    
-    private static final double[][] rookTable = new double[][] {
-        {     0,  0,  0,  0,  0,  0,  0,     0},
-        {  0.05, .1, .1, .1, .1, .1, .1,  0.05},
-        { -0.05,  0,  0,  0,  0,  0,  0, -0.05},
-        { -0.05,  0,  0,  0,  0,  0,  0, -0.05},
-        { -0.05,  0,  0,  0,  0,  0,  0, -0.05},
-        { -0.05,  0,  0,  0,  0,  0,  0, -0.05},
-        { -0.05,  0,  0,  0,  0,  0,  0, -0.05},
-        {     0,  0,  0,.05,.05,  0,  0,     0}
-    };
-    
-    private static final double[][] pawnTable = new double[][] {
-        {   1.0,   1.0,   1.0,   1.0,   1.0,   1.0,   1.0,   1.0 },
-        {   0.5,   0.5,   0.5,   0.5,   0.5,   0.5,   0.5,   0.5 },
-        {   0.1,   0.1,   0.2,   0.3,   0.3,   0.2,   0.1,   0.1 },
-        {  0.05,  0.05,   0.1,  0.25,  0.25,   0.1,  0.05,  0.05 },
-        {     0,     0,     0,   0.2,   0.2,     0,     0,     0 },
-        {  0.05, -0.05,  -0.1,     0,     0,  -0.1, -0.05,  0.05 },
-        {  0.05,   0.1,   0.1,  -0.3,  -0.3,   0.1,   0.1,  0.05 },
-        {     0,     0,     0,     0,     0,     0,     0,     0 }
-    };
-
     private HashMap<String, double[][]> pieceSquareTables = new HashMap<>();
+    // The same tables in centipawns, indexed by team (white=0, black=1) * 6 + piece type ordinal, so lookups don't
+    // build strings
+    private final int[][][] tablesByPiece = new int[12][][];
+    // The endgame king tables in centipawns, indexed by team
+    private final int[][][] kingEndgameTables = new int[2][][];
     private EndgameEvaluator endgameEvaluator = new SpeelmanEndgameEvaluator();
+    // True if the default tables are used, so the score the board keeps incrementally can be used
+    private boolean incremental;
 
     /**
      * Create a positional piece evaluator using the default piece square tables.
      */
     public PositionalPieceEvaluator() {
-        pieceSquareTables.put("wk", flipTable(kingTable));
-        pieceSquareTables.put("wq", flipTable(queenTable));
-        pieceSquareTables.put("wb", flipTable(bishopTable));
-        pieceSquareTables.put("wn", flipTable(knightTable));
-        pieceSquareTables.put("wr", flipTable(rookTable));
-        pieceSquareTables.put("wp", flipTable(pawnTable));
-        pieceSquareTables.put("wke", flipTable(kingEndgameTable));
-
-        pieceSquareTables.put("bk", kingTable);
-        pieceSquareTables.put("bq", queenTable);
-        pieceSquareTables.put("bb", bishopTable);
-        pieceSquareTables.put("bn", knightTable);
-        pieceSquareTables.put("br", rookTable);
-        pieceSquareTables.put("bp", pawnTable);
-        pieceSquareTables.put("bke", kingEndgameTable);
+        pieceSquareTables.put("wk", flipTable(PieceSquareTables.kingTable));
+        pieceSquareTables.put("wq", flipTable(PieceSquareTables.queenTable));
+        pieceSquareTables.put("wb", flipTable(PieceSquareTables.bishopTable));
+        pieceSquareTables.put("wn", flipTable(PieceSquareTables.knightTable));
+        pieceSquareTables.put("wr", flipTable(PieceSquareTables.rookTable));
+        pieceSquareTables.put("wp", flipTable(PieceSquareTables.pawnTable));
+        pieceSquareTables.put("wke", flipTable(PieceSquareTables.kingEndgameTable));
+
+        pieceSquareTables.put("bk", PieceSquareTables.kingTable);
+        pieceSquareTables.put("bq", PieceSquareTables.queenTable);
+        pieceSquareTables.put("bb", PieceSquareTables.bishopTable);
+        pieceSquareTables.put("bn", PieceSquareTables.knightTable);
+        pieceSquareTables.put("br", PieceSquareTables.rookTable);
+        pieceSquareTables.put("bp", PieceSquareTables.pawnTable);
+        pieceSquareTables.put("bke", PieceSquareTables.kingEndgameTable);
+        indexTables();
+        incremental = true;
     }
 
     /**
@@ -138,45 +69,89 @@ public class PositionalPieceEvaluator implements PieceEvaluator {
             }
         }
         this.pieceSquareTables = new HashMap<>(tables);
+        indexTables();
+    }
+
+    private void indexTables() {
+        for (PieceType type : PieceType.values()) {
+            tablesByPiece[type.ordinal()] = toCentipawns(pieceSquareTables.get("w" + type.getLetter()));
+            tablesByPiece[6 + type.ordinal()] = toCentipawns(pieceSquareTables.get("b" + type.getLetter()));
+        }
+        kingEndgameTables[0] = toCentipawns(pieceSquareTables.get("wke"));
+        kingEndgameTables[1] = toCentipawns(pieceSquareTables.get("bke"));
     }
     
+    /**
+     * Set the endgame evaluator, which decides when the endgame king tables are used. By default, the default tables
+     * are tapered between the middlegame and endgame by the game phase instead, see {@link PieceSquareTables}.
+     *
+     * @param endgameEvaluator The endgame evaluator to use.
+     */
     public void setEndgameEvaluator(EndgameEvaluator endgameEvaluator) {
         this.endgameEvaluator = endgameEvaluator;
+        incremental = false;
     }
 
     @Override
     public double getValue(Piece piece) {
-        String name = piece.getName();
+        return getCentipawnValue(piece) / 100.0;
+    }
+
+    @Override
+    public int getCentipawnValue(Piece piece) {
+        int[][] table = null;
         if (piece.getTeam() == Piece.WHITE) {
-            name = "w" + name;
+            table = tablesByPiece[piece.getPieceType().ordinal()];
         } else if (piece.getTeam() == Piece.BLACK) {
-            name = "b" + name;
+            table = tablesByPiece[6 + piece.getPieceType().ordinal()];
         }
 
-        double[][] table = pieceSquareTables.get(name);
-
         if (table == null) {
             throw new IllegalStateException("Table file not found for piece: " + piece.toString());
         }
 
         Square square = piece.getSquare();
-        return piece.getRawValue() + table[square.getY() - 1][square.getX()]; // it's row col not x y.
+        return piece.getCentipawnValue() + table[square.getY() - 1][square.getX()]; // it's row col not x y.
     }
-    
+
     @Override
     public double getMaterialValue(Board board, int team) {
-        List<Piece> pieces = new LinkedList<>(board.getPieces(team));
-        double score = 0;
-        if(endgameEvaluator.inEndgame(board)) {
-            Piece king = board.getKing(team);
-            pieces.remove(king);
-            String name = team == Piece.WHITE ? "wke" : "bke";
-            double[][] table = pieceSquareTables.get(name);
-            if(table != null) {
-                score += king.getRawValue() + table[king.getSquare().getY()-1][king.getSquare().getX()];
+        return getMaterialCentipawns(board, team) / 100.0;
+    }
+
+    @Override
+    public int getMaterialCentipawns(Board board, int team) {
+        if (incremental) {
+            return board.getPieceSquareScore(team);
+        }
+        boolean endgame = endgameEvaluator.inEndgame(board);
+        int score = 0;
+        for (Piece piece : board.getPieces(team)) {
+            if (endgame && piece.getPieceType() == PieceType.KING) {
+                int[][] table = kingEndgameTables[team == Piece.WHITE ? 0 : 1];
+                if (table != null) {
+                    Square square = piece.getSquare();
+                    score += piece.getCentipawnValue() + table[square.getY() - 1][square.getX()];
+                }
+            } else {
+                score += getCentipawnValue(piece);
+            }
+        }
+        return score;
+    }
+
+    private static int[][] toCentipawns(double[][] table) {
+        if (table == null) {
+            return null;
+        }
+        int[][] centipawns = new int[table.length][];
+        for (int row = 0; row < table.length; row++) {
+            centipawns[row] = new int[table[row].length];
+            for (int col = 0; col < table[row].length; col++) {
+                centipawns[row][col] = (int) Math.round(table[row][col] * 100);
             }
         }
-        return score + pieces.stream().mapToDouble(this::getValue).sum();
+        return centipawns;
     }
 
     private static double[][] flipTable(double[][] table) {
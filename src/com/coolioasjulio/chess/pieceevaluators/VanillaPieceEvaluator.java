@@ -1,6 +1,7 @@
 package com.coolioasjulio.chess.pieceevaluators;
 
 import com.coolioasjulio.chess.pieces.Piece;
+import com.coolioasjulio.chess.pieces.PieceType;
 
 public class VanillaPieceEvaluator implements PieceEvaluator {
 
@@ -8,4 +9,13 @@ public class VanillaPieceEvaluator implements PieceEvaluator {
     public double getValue(Piece piece) {
         return piece.getVanillaValue();
     }
+
+    /**
+     * Get the vanilla value of a piece in centipawns. Both teams always have a king, so kings are worth 0 instead of
+     * a value that would overflow.
+     */
+    @Override
+    public int getCentipawnValue(Piece piece) {
+        return piece.getPieceType() == PieceType.KING ? 0 : (int) piece.getVanillaValue() * 100;
+    }
 }
@@ -1,7 +1,6 @@
 package com.coolioasjulio.chess.pieces;
 
-import java.util.ArrayList;
-
+import com.coolioasjulio.chess.Bitboard;
 import com.coolioasjulio.chess.Board;
 import com.coolioasjulio.chess.Move;
 import com.coolioasjulio.chess.Square;
@@ -12,34 +11,25 @@ public class Bishop extends Piece {
         super(square, team, board);
     }
 
+    public PieceType getPieceType() {
+        return PieceType.BISHOP;
+    }
+
     public double getRawValue() {
         return Piece.BISHOP_VALUE;
     }
 
+    public int getCentipawnValue() {
+        return Piece.BISHOP_CENTIPAWNS;
+    }
+
     public double getVanillaValue() {
         return Piece.VANILLA_BISHOP_VALUE;
     }
 
     public Move[] getMoves() {
-        ArrayList<Move> moves = new ArrayList<>();
-        for (int x = -1; x <= 1; x += 2) {
-            for (int y = -1; y <= 1; y += 2) {
-                if (!Square.validSquare(x + square.getX(), y + square.getY())) continue;
-                int mult = 1;
-                Piece p = board.checkSquare(new Square(x + square.getX(), y + square.getY()));
-                while (p == null) {
-                    moves.add(
-                            new Move(this, new Square(x * mult + square.getX(), y * mult + square.getY())));
-                    mult++;
-                    if (!Square.validSquare(x * mult + square.getX(), y * mult + square.getY())) break;
-                    p = board.checkSquare(new Square(x * mult + square.getX(), y * mult + square.getY()));
-                }
-                if (p != null && p.team != team) {
-                    moves.add(new Move(this, p.getSquare(), true));
-                }
-            }
-        }
-        return moves.toArray(new Move[0]);
+        long attacks = Bitboard.bishopAttacks(Bitboard.index(square), board.getOccupancy());
+        return movesTo(attacks & ~board.getOccupancy(team));
     }
 
     public Bishop copy() {
@@ -1,7 +1,6 @@
 package com.coolioasjulio.chess.pieces;
 
-import java.util.ArrayList;
-
+import com.coolioasjulio.chess.Bitboard;
 import com.coolioasjulio.chess.Board;
 import com.coolioasjulio.chess.Move;
 import com.coolioasjulio.chess.Square;
@@ -12,31 +11,25 @@ public class King extends Piece {
         super(square, team, board);
     }
 
+    public PieceType getPieceType() {
+        return PieceType.KING;
+    }
+
     public double getRawValue() {
         return Piece.KING_VALUE;
     }
 
+    public int getCentipawnValue() {
+        return Piece.KING_CENTIPAWNS;
+    }
+
     public double getVanillaValue() {
         return Piece.VANILLA_KING_VALUE;
     }
 
     @Override
     public Move[] getMoves() {
-        ArrayList<Move> moves = new ArrayList<>();
-        for (int x = -1; x <= 1; x++) {
-            for (int y = -1; y <= 1; y++) {
-                if ((x == 0 && y == 0) || !Square.validSquare(x + square.getX(), y + square.getY()))
-                    continue;
-                Square s = new Square(x + square.getX(), y + square.getY());
-                Piece p = board.checkSquare(s);
-                boolean capture = (p != null && p.team != team);
-                if (p == null || capture) {
-                    Move move = new Move(this, s, capture);
-                    moves.add(move);
-                }
-            }
-        }
-        return moves.toArray(new Move[0]);
+        return movesTo(Bitboard.KING_ATTACKS[Bitboard.index(square)] & ~board.getOccupancy(team));
     }
 
     public King copy() {
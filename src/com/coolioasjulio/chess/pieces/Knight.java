@@ -1,7 +1,6 @@
 package com.coolioasjulio.chess.pieces;
 
-import java.util.ArrayList;
-
+import com.coolioasjulio.chess.Bitboard;
 import com.coolioasjulio.chess.Board;
 import com.coolioasjulio.chess.Move;
 import com.coolioasjulio.chess.Square;
@@ -12,32 +11,24 @@ public class Knight extends Piece {
         super(square, team, board);
     }
 
+    public PieceType getPieceType() {
+        return PieceType.KNIGHT;
+    }
+
     public double getRawValue() {
         return Piece.KNIGHT_VALUE;
     }
 
+    public int getCentipawnValue() {
+        return Piece.KNIGHT_CENTIPAWNS;
+    }
+
     public double getVanillaValue() {
         return Piece.VANILLA_KNIGHT_VALUE;
     }
 
     public Move[] getMoves() {
-        ArrayList<Move> moves = new ArrayList<>();
-        for (int i = -2; i <= 2; i++) {
-            if (i == 0 || i + square.getX() < 0 || i + square.getX() > 7) {
-                continue;
-            }
-            for (int j = -2; j <= 2; j++) {
-                if (j != 0 && Math.abs(j) != Math.abs(i) && j + square.getY() >= 1 && j + square.getY() <= 8) {
-                    Square toCheck = new Square(i + square.getX(), j + square.getY());
-                    Piece p = board.checkSquare(toCheck);
-                    if (p == null || p.team != team) {
-                        boolean capture = p != null;
-                        moves.add(new Move(this, toCheck, capture));
-                    }
-                }
-            }
-        }
-        return moves.toArray(new Move[0]);
+        return movesTo(Bitboard.KNIGHT_ATTACKS[Bitboard.index(square)] & ~board.getOccupancy(team));
     }
 
     public Knight copy() {
@@ -3,6 +3,7 @@ package com.coolioasjulio.chess.pieces;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.coolioasjulio.chess.Bitboard;
 import com.coolioasjulio.chess.Board;
 import com.coolioasjulio.chess.Move;
 import com.coolioasjulio.chess.Square;
@@ -14,10 +15,18 @@ public class Pawn extends Piece {
         super(square, team, board);
     }
 
+    public PieceType getPieceType() {
+        return PieceType.PAWN;
+    }
+
     public double getRawValue() {
         return Piece.PAWN_VALUE;
     }
 
+    public int getCentipawnValue() {
+        return Piece.PAWN_CENTIPAWNS;
+    }
+
     public double getVanillaValue() {
         return Piece.VANILLA_PAWN_VALUE;
     }
@@ -34,12 +43,17 @@ public class Pawn extends Piece {
         int minY = team == Piece.WHITE ? 1 : 2;
         int maxY = team == Piece.WHITE ? 7 : 8;
         if (inRange(y, minY, maxY)) {
-            Square inFront = new Square(x, y + team);
-            if (board.checkSquare(inFront) == null) {
+            long occupancy = board.getOccupancy();
+            int from = Bitboard.index(square);
+            int forward = from + 8 * team;
+            if ((occupancy & (1L << forward)) == 0) {
+                Square inFront = Bitboard.toSquare(forward);
                 if (inRange(inFront.getY(), minY, maxY)) {
                     moves.add(new Move(this, inFront));
-                    if (!moved && board.checkSquare(new Square(x, y + 2 * team)) == null) {
-                        moves.add(new Move(this, new Square(x, y + 2 * team)));
+                    int doubleForward = forward + 8 * team;
+                    int startY = team == Piece.WHITE ? 2 : 7;
+                    if (y == startY && (occupancy & (1L << doubleForward)) == 0) {
+                        moves.add(new Move(this, Bitboard.toSquare(doubleForward)));
                     }
                 } else {
                     // deal with promotion
@@ -52,6 +66,11 @@ public class Pawn extends Piece {
 
             addCaptureMoves(moves, -1);
             addCaptureMoves(moves, +1);
+
+            Square enPassant = board.getEnPassantSquare();
+            if (enPassant != null && enPassant.getY() == y + team && Math.abs(enPassant.getX() - x) == 1) {
+                moves.add(new EnPassant(this, enPassant));
+            }
         }
 
         return moves.toArray(new Move[0]);
@@ -60,9 +79,9 @@ public class Pawn extends Piece {
     private void addCaptureMoves(List<Move> moves, int xDelta) {
         int x = getSquare().getX() + xDelta;
         if (inRange(x, 0, 7)) {
-            Square end = new Square(x, getSquare().getY() + team);
-            Piece p = board.checkSquare(end);
-            if (p != null && p.team != team) {
+            int sq = Bitboard.index(square) + xDelta + 8 * team;
+            if ((board.getOccupancy(-team) & (1L << sq)) != 0) {
+                Square end = Bitboard.toSquare(sq);
                 if (inRange(end.getY(), 2, 7)) {
                     moves.add(new Move(this, end, true));
                 } else {
@@ -85,7 +104,10 @@ public class Pawn extends Piece {
         return pawn;
     }
 
-    private static class Promotion extends Move {
+    /**
+     * A pawn moving to the last rank, and being replaced by another piece.
+     */
+    public static class Promotion extends Move {
         private final String promotion;
 
         public Promotion(Pawn pawn, Square end, boolean capture, String promotion) {
@@ -93,8 +115,13 @@ public class Pawn extends Piece {
             this.promotion = promotion;
         }
 
+        public Promotion(int team, Square start, Square end, boolean capture, String promotion) {
+            super(team, start, end, "", capture);
+            this.promotion = promotion;
+        }
+
         @Override
-        public void doMove(Board board) {
+        public void execute(Board board) {
             if (isCapture()) {
                 Piece captured = board.checkSquare(end);
                 if (captured != null && captured.team != team) {
@@ -132,6 +159,11 @@ public class Pawn extends Piece {
             board.addPiece(p);
         }
 
+        @Override
+        public String getPromotion() {
+            return promotion;
+        }
+
         @Override
         public boolean equals(Object o) {
             return o instanceof Promotion && super.equals(o);
@@ -142,4 +174,32 @@ public class Pawn extends Piece {
             return super.toString() + "=" + (promotion.equals("Knight") ? "N" : promotion.substring(0, 1));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * A pawn capturing a pawn that just moved two squares, by moving to the square that pawn skipped over.
+     */
+    public static class EnPassant extends Move {
+        public EnPassant(Pawn pawn, Square end) {
+            super(pawn, end, true);
+        }
+
+        public EnPassant(int team, Square start, Square end) {
+            super(team, start, end, "", true);
+        }
+
+        @Override
+        public void execute(Board board) {
+            Piece captured = board.checkSquare(Square.of(end.getX(), start.getY()));
+            if (!(captured instanceof Pawn) || captured.team == team) {
+                throw new InvalidMoveException("Illegal en passant capture: " + toString());
+            }
+            board.removePiece(captured);
+            board.checkSquare(start).move(end);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof EnPassant && super.equals(o);
+        }
+    }
+}
@@ -1,19 +1,25 @@
 package com.coolioasjulio.chess.pieces;
 
-import java.util.Objects;
-
+import com.coolioasjulio.chess.Bitboard;
 import com.coolioasjulio.chess.Board;
 import com.coolioasjulio.chess.Move;
 import com.coolioasjulio.chess.Square;
 import com.coolioasjulio.chess.exceptions.InvalidMoveException;
 
 public abstract class Piece {
-    public static final double KING_VALUE = 200;
-    public static final double QUEEN_VALUE = 9;
-    public static final double ROOK_VALUE = 5;
-    public static final double BISHOP_VALUE = 3.3;
-    public static final double KNIGHT_VALUE = 3.2;
-    public static final double PAWN_VALUE = 1;
+    public static final int KING_CENTIPAWNS = 20000;
+    public static final int QUEEN_CENTIPAWNS = 900;
+    public static final int ROOK_CENTIPAWNS = 500;
+    public static final int BISHOP_CENTIPAWNS = 330;
+    public static final int KNIGHT_CENTIPAWNS = 320;
+    public static final int PAWN_CENTIPAWNS = 100;
+
+    public static final double KING_VALUE = KING_CENTIPAWNS / 100.0;
+    public static final double QUEEN_VALUE = QUEEN_CENTIPAWNS / 100.0;
+    public static final double ROOK_VALUE = ROOK_CENTIPAWNS / 100.0;
+    public static final double BISHOP_VALUE = BISHOP_CENTIPAWNS / 100.0;
+    public static final double KNIGHT_VALUE = KNIGHT_CENTIPAWNS / 100.0;
+    public static final double PAWN_VALUE = PAWN_CENTIPAWNS / 100.0;
 
     public static final int VANILLA_KING_VALUE = Integer.MAX_VALUE;
     public static final int VANILLA_QUEEN_VALUE = 9;
@@ -26,26 +32,7 @@ public abstract class Piece {
     public static final int BLACK = -1;
 
     public static String getType(Piece p) {
-        if (p instanceof Pawn) {
-            return "";
-        }
-        if (p instanceof Knight) {
-            return "N";
-        }
-        if (p instanceof Rook) {
-            return "R";
-        }
-        if (p instanceof Bishop) {
-            return "B";
-        }
-        if (p instanceof Queen) {
-            return "Q";
-        }
-        if (p instanceof King) {
-            return "K";
-        }
-        System.err.println("Unrecognized piece!");
-        return null;
+        return p == null ? null : p.getPieceType().getSymbol();
     }
 
     protected Square square;
@@ -61,6 +48,8 @@ public abstract class Piece {
 
     public abstract Move[] getMoves();
 
+    public abstract PieceType getPieceType();
+
     public abstract Piece copy();
 
     /**
@@ -70,6 +59,13 @@ public abstract class Piece {
      */
     public abstract double getRawValue();
 
+    /**
+     * Mathematical value of the piece, in centipawns
+     *
+     * @return the raw value of the piece, in hundredths of a pawn
+     */
+    public abstract int getCentipawnValue();
+
     /**
      * INTERNAL USE ONLY.
      * 
@@ -81,9 +77,39 @@ public abstract class Piece {
         if (p != null && p.team == team) {
             throw new InvalidMoveException("Can't move into your own piece!");
         }
+        Square from = square;
+        boolean wasMoved = moved;
         moved = true;
         square = move;
-        board.clearCache();
+        board.relocatePiece(this, from, wasMoved);
+    }
+
+    /**
+     * INTERNAL USE ONLY. Put this piece back on a square without notifying the board. Used to unmake moves.
+     *
+     * @param square The square to put the piece on.
+     * @param moved  The value of the moved flag to restore.
+     */
+    public void restore(Square square, boolean moved) {
+        this.square = square;
+        this.moved = moved;
+    }
+
+    /**
+     * Create a move to each of the specified squares. Squares occupied by an opponent piece are treated as captures.
+     *
+     * @param targets The bitboard of squares to move to.
+     * @return The moves to each of the target squares.
+     */
+    protected Move[] movesTo(long targets) {
+        Move[] moves = new Move[Long.bitCount(targets)];
+        long opponents = board.getOccupancy(-team);
+        for (int i = 0; targets != 0; i++) {
+            int sq = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves[i] = new Move(this, Bitboard.toSquare(sq), (opponents & (1L << sq)) != 0);
+        }
+        return moves;
     }
 
     public boolean hasMove(Move move) {
@@ -104,11 +130,7 @@ public abstract class Piece {
     }
 
     public String getName() {
-        String name = getType().toLowerCase();
-        if (name.length() == 0) {
-            name = "p";
-        }
-        return name;
+        return getPieceType().getLetter();
     }
 
     /**
@@ -146,11 +168,11 @@ public abstract class Piece {
             return false;
         }
         Piece p = (Piece) o;
-        return p.square.equals(this.square) && p.getType().equals(getType()) && p.team == this.team;
+        return p.square.equals(this.square) && p.getPieceType() == getPieceType() && p.team == this.team;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(team, square, getType());
+        return (getPieceType().ordinal() * 64 + square.getIndex()) * team;
     }
 }
@@ -0,0 +1,52 @@
+package com.coolioasjulio.chess.pieces;
+
+/**
+ * The types of chess pieces. The ordinal of each type is its index in the bitboards of a board and in packed moves,
+ * so types can be compared by identity or as ints.
+ */
+public enum PieceType {
+    PAWN("", "p"),
+    KNIGHT("N", "n"),
+    BISHOP("B", "b"),
+    ROOK("R", "r"),
+    QUEEN("Q", "q"),
+    KING("K", "k");
+
+    private static final PieceType[] VALUES = values();
+
+    private final String symbol;
+    private final String letter;
+
+    PieceType(String symbol, String letter) {
+        this.symbol = symbol;
+        this.letter = letter;
+    }
+
+    /**
+     * Get the type with the specified ordinal, without copying the array of values.
+     *
+     * @param ordinal The ordinal of the type, in range [0,5].
+     * @return The piece type.
+     */
+    public static PieceType of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Get the symbol of this type in move notation.
+     *
+     * @return The uppercase letter of the piece, or an empty string for pawns.
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Get the lowercase letter of this type, as used in FEN and for piece images. Pawns are p.
+     *
+     * @return The lowercase letter of the piece.
+     */
+    public String getLetter() {
+        return letter;
+    }
+}
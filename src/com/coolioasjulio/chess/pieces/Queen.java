@@ -1,8 +1,6 @@
 package com.coolioasjulio.chess.pieces;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-
+import com.coolioasjulio.chess.Bitboard;
 import com.coolioasjulio.chess.Board;
 import com.coolioasjulio.chess.Move;
 import com.coolioasjulio.chess.Square;
@@ -12,25 +10,26 @@ public class Queen extends Piece {
         super(square, team, board);
     }
 
+    public PieceType getPieceType() {
+        return PieceType.QUEEN;
+    }
+
     public double getRawValue() {
         return Piece.QUEEN_VALUE;
     }
 
+    public int getCentipawnValue() {
+        return Piece.QUEEN_CENTIPAWNS;
+    }
+
     public double getVanillaValue() {
         return Piece.VANILLA_QUEEN_VALUE;
     }
 
     @Override
     public Move[] getMoves() {
-        Bishop b = new Bishop(square, team, board);
-        ArrayList<Move> moves = new ArrayList<>(Arrays.asList(b.getMoves()));
-        Rook r = new Rook(square, team, board);
-        moves.addAll(Arrays.asList(r.getMoves()));
-        for (int i = 0; i < moves.size(); i++) {
-            Move m = moves.get(i);
-            moves.set(i, new Move(this, m.getEnd(), m.isCapture()));
-        }
-        return moves.toArray(new Move[0]);
+        long attacks = Bitboard.queenAttacks(Bitboard.index(square), board.getOccupancy());
+        return movesTo(attacks & ~board.getOccupancy(team));
     }
 
     public Queen copy() {
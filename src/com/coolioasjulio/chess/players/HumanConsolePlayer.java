@@ -9,18 +9,15 @@ import com.coolioasjulio.chess.exceptions.InvalidMoveException;
 import com.coolioasjulio.chess.pieces.Piece;
 
 public class HumanConsolePlayer extends Player {
-    private final Board board;
     private final Scanner input;
 
     public HumanConsolePlayer(Board board, InputStream is) {
         super(board);
-        this.board = board;
         input = new Scanner(is);
     }
 
     @Override
     public Move getMove() {
-        Board board = this.board.fork();
         Logger.getLogger("HumanConsolePlayer").info("It is " + ((team == Piece.WHITE) ? "white" : "black")
                 + "'s turn! Input move in long notation. Ex: Nb1-c3");
         String response = input.nextLine();
@@ -54,28 +51,30 @@ public class HumanConsolePlayer extends Player {
         if (p == null || pieceType == null || !pieceType.equalsIgnoreCase(type) || p.getTeam() != team)
             throw new InvalidMoveException();
 
-        Move[] possibleMoves = p.getMoves();
-        Move move = new Move(p, end, action == 'x');
-
-        if (hasMove(possibleMoves, move)) {
-            board.doMove(move);
-        } else {
-            throw new InvalidMoveException();
-        }
-
-        if (board.inCheck(team) || board.inCheckMate(team)) {
+        // Use the generated move, since it knows about special moves like en passant
+        int move = findMove(board, Bitboard.index(start), Bitboard.index(end), action == 'x');
+        if (move == PackedMove.NONE) {
             throw new InvalidMoveException();
         }
 
-        return move;
+        return PackedMove.toMove(move);
     }
 
-    private boolean hasMove(Move[] moves, Move move) {
-        for (Move m : moves) {
-            if (m.toString().equals(move.toString())) {
-                return true;
+    /**
+     * Find the legal move with the specified start and end squares. Pawns always promote to a queen.
+     *
+     * @return The packed move, or PackedMove.NONE if there is no such legal move.
+     */
+    private int findMove(Board board, int from, int to, boolean capture) {
+        MoveList moves = new MoveList();
+        board.generateLegalMoves(team, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            // Queen promotions are generated first
+            if (PackedMove.getFrom(move) == from && PackedMove.getTo(move) == to && PackedMove.isCapture(move) == capture) {
+                return move;
             }
         }
-        return false;
+        return PackedMove.NONE;
     }
 }
@@ -70,7 +70,7 @@ public class HumanGUIPlayer extends Player implements MouseListener {
     public void mouseClicked(MouseEvent e) {
         int squareX = e.getX() / chess.getTileSize();
         int squareY = (component.getWidth() - e.getY()) / chess.getTileSize() + 1;
-        Square square = new Square(squareX, squareY);
+        Square square = Square.of(squareX, squareY);
         synchronized (lock) {
             if (fromSquare == null) {
                 Piece p = board.checkSquare(square);
@@ -10,13 +10,17 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
 import com.coolioasjulio.chess.Board;
 import com.coolioasjulio.chess.Move;
 import com.coolioasjulio.chess.MoveCandidate;
+import com.coolioasjulio.chess.MoveList;
+import com.coolioasjulio.chess.PackedMove;
 import com.coolioasjulio.chess.heuristics.Heuristic;
 import com.coolioasjulio.chess.heuristics.MaterialHeuristic;
+import com.coolioasjulio.chess.heuristics.TerminalHeuristic;
 import com.coolioasjulio.chess.selectors.GreedySelector;
 import com.coolioasjulio.chess.selectors.RandomSelector;
 import com.coolioasjulio.chess.selectors.Selector;
@@ -24,10 +28,30 @@ import com.coolioasjulio.configuration.ConfigurationMenu;
 import com.coolioasjulio.configuration.Setting;
 import com.coolioasjulio.configuration.Setting.InputType;
 
+/**
+ * A minimax search that runs in parallel on the common ForkJoinPool. It scores every move at the root, and lets the
+ * selector pick between the best few.
+ * <p>
+ * By default, it uses alpha beta pruning, parallelized with Young Brothers Wait: at each node, the eldest child is
+ * searched first on the current thread to get a bound, then its younger brothers are searched in parallel with that
+ * bound. If one of them causes a cutoff, the others are aborted. The scores of the moves kept at the root are the
+ * same as without pruning.
+ */
 public class MinimaxComputerPlayer extends Player {
     private static final int DEFAULT_KEEP_MOVES = 3;
     private static final int DEFAULT_SEARCH_DEPTH = 2;
+    // Nodes with less depth than this are searched on one thread, since forking them costs more than it saves
+    private static final int MIN_SPLIT_DEPTH = 2;
     private static final Logger logger = Logger.getLogger("MinimaxComputerPlayer");
+    // The move lists of the nodes searched on one thread, indexed by depth. A thread only runs one such search at a
+    // time, since the search never joins other tasks, so the lists can be reused instead of allocated for each task.
+    private static final ThreadLocal<MoveList[]> sequentialMoveLists = ThreadLocal.withInitial(() -> {
+        MoveList[] moveLists = new MoveList[MIN_SPLIT_DEPTH];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList();
+        }
+        return moveLists;
+    });
 
     private static final List<Selector> selectors = new ArrayList<>(
             Arrays.asList(new SoftplusSelector(), new RandomSelector(), new GreedySelector()));
@@ -36,13 +60,26 @@ public class MinimaxComputerPlayer extends Player {
     private int keepMoves;
     private Selector selector;
     private int depth;
+    private boolean pruning = true;
+    private final LongAdder nodes = new LongAdder();
+    private final ConfigurationMenu configurationMenu;
 
     public MinimaxComputerPlayer(Board board) {
         super(board);
         this.board = board;
         this.depth = DEFAULT_SEARCH_DEPTH;
-        setHeuristic(new MaterialHeuristic(0.0)).setKeepMoves(DEFAULT_KEEP_MOVES).setSelector(new SoftplusSelector());
-        ConfigurationMenu.addConfigMenu(createConfigurationMenu());
+        setHeuristic(new TerminalHeuristic(new MaterialHeuristic(0.0))).setKeepMoves(DEFAULT_KEEP_MOVES)
+                .setSelector(new SoftplusSelector());
+        configurationMenu = createConfigurationMenu();
+        ConfigurationMenu.addConfigMenu(configurationMenu);
+    }
+
+    /**
+     * Remove the settings of this player from the settings of the app.
+     */
+    @Override
+    public void close() {
+        ConfigurationMenu.removeConfigMenu(configurationMenu);
     }
 
     public MinimaxComputerPlayer setHeuristic(Heuristic heuristic) {
@@ -76,13 +113,28 @@ public class MinimaxComputerPlayer extends Player {
         return depth;
     }
 
+    public boolean isPruning() {
+        return pruning;
+    }
+
+    /**
+     * Set whether the search uses alpha beta pruning. Without it, the whole tree is searched, which is much slower
+     * but gives the same scores to the moves that are kept.
+     *
+     * @param pruning True to use alpha beta pruning, false otherwise.
+     */
+    public void setPruning(boolean pruning) {
+        this.pruning = pruning;
+    }
+
     private ConfigurationMenu createConfigurationMenu() {
         return new ConfigurationMenu("BotLvl2",
                 new Setting<>("Keep Moves", InputType.INTEGER, this::setKeepMoves, this::getKeepMoves),
                 new Setting<>("Selector", this::setSelector, this::getSelector,
                         selectors.toArray(new Selector[0])),
                 new Setting<>("Search Depth", InputType.INTEGER, this::setSearchDepth, this::getSearchDepth)
-                        .setValidator(this::validSearchDepth));
+                        .setValidator(this::validSearchDepth),
+                new Setting<>("Alpha Beta Pruning", this::setPruning, this::isPruning, Boolean.TRUE, Boolean.FALSE));
     }
 
     private boolean validSearchDepth(String text) {
@@ -99,7 +151,15 @@ public class MinimaxComputerPlayer extends Player {
 
     @Override
     public Move getMove() {
-        List<MoveCandidate> bestMoves = ForkJoinPool.commonPool().invoke(new MinimaxRecursiveTask(board, depth, team));
+        nodes.reset();
+        long start = System.currentTimeMillis();
+        List<MoveCandidate> bestMoves = pruning ?
+                ForkJoinPool.commonPool().invoke(new RootTask(board.fork())) :
+                ForkJoinPool.commonPool().invoke(new MinimaxRecursiveTask(board.fork(), depth, team));
+        if (pruning) {
+            logger.info(String.format("Evaluated %d nodes in %.3f seconds", nodes.sum(),
+                    (System.currentTimeMillis() - start) / 1000.0));
+        }
 
         int toKeep = Math.min(keepMoves, bestMoves.size());
         logger.info(bestMoves.toString());
@@ -156,35 +216,24 @@ public class MinimaxComputerPlayer extends Player {
         }
 
         private List<MinimaxRecursiveTask> createSubtasks() {
-            Move[] moves = board.getMoves(team);
+            Move[] moves = board.getLegalMoves(team);
             List<MinimaxRecursiveTask> subtasks = new ArrayList<>(moves.length);
             for (Move m : moves) {
-                Board boardCopy = board.fork();
-                boardCopy.doMove(m);
-
-                if (boardCopy.inCheck(team)) {
-                    continue;
-                }
-
-                MinimaxRecursiveTask task = new MinimaxRecursiveTask(boardCopy, depth - 1, -team, m);
-                subtasks.add(task);
+                board.makeMove(m);
+                // Each subtask needs its own copy of the board, since the subtasks run concurrently
+                subtasks.add(new MinimaxRecursiveTask(board.fork(), depth - 1, -team, m));
+                board.unmakeMove();
             }
             return subtasks;
         }
 
         private List<MoveCandidate> work() {
-            Move[] moves = board.getMoves(team);
+            Move[] moves = board.getLegalMoves(team);
             List<MoveCandidate> candidates = new ArrayList<>(moves.length);
             for (Move m : moves) {
-                Board boardCopy = board.fork();
-
-                boardCopy.doMove(m);
-
-                if (boardCopy.inCheck(team)) {
-                    continue;
-                }
-
-                candidates.add(new MoveCandidate(m, heuristic.getScore(boardCopy, playerTeam)));
+                board.makeMove(m);
+                candidates.add(new MoveCandidate(m, heuristic.getScore(board, playerTeam)));
+                board.unmakeMove();
             }
 
             return ordered(candidates);
@@ -208,4 +257,208 @@ public class MinimaxComputerPlayer extends Player {
             }
         }
     }
+
+    /**
+     * Order moves so the ones most likely to cause a cutoff come first. Captures of the most valuable pieces go first,
+     * then quiet moves in the order they were generated.
+     */
+    private static void orderMoves(MoveList moves) {
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (PackedMove.isCapture(move)) {
+                moves.setScore(i, 1 + PackedMove.getCaptured(move) * 8 - PackedMove.getPieceType(move));
+            }
+        }
+        moves.sort();
+    }
+
+    /**
+     * Searches the root. Every move gets a score, so the selector can choose between the best ones.
+     */
+    private class RootTask extends RecursiveTask<List<MoveCandidate>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+
+        private RootTask(Board board) {
+            this.board = board;
+        }
+
+        @Override
+        protected List<MoveCandidate> compute() {
+            MoveList moves = new MoveList();
+            board.generateLegalMoves(team, moves);
+            orderMoves(moves);
+            List<MoveCandidate> candidates = new ArrayList<>(moves.size());
+            if (moves.isEmpty()) {
+                return candidates;
+            }
+
+            board.makeMove(moves.get(0));
+            double eldestScore = depth == 0 ?
+                    heuristic.getScore(board, team) :
+                    new AlphaBetaTask(board, depth - 1, -team, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                            null).compute();
+            board.unmakeMove();
+            candidates.add(new MoveCandidate(PackedMove.toMove(moves.get(0)), eldestScore));
+
+            // Moves scoring below the bound can't be kept, so their exact scores aren't needed. Only one score is
+            // known at this point, so there's only a bound if only one move is kept.
+            double alpha = keepMoves <= 1 ? eldestScore : Double.NEGATIVE_INFINITY;
+            List<AlphaBetaTask> tasks = new ArrayList<>(moves.size() - 1);
+            for (int i = 1; i < moves.size(); i++) {
+                board.makeMove(moves.get(i));
+                if (depth == 0) {
+                    candidates.add(new MoveCandidate(PackedMove.toMove(moves.get(i)), heuristic.getScore(board, team)));
+                } else {
+                    tasks.add(new AlphaBetaTask(board.fork(), depth - 1, -team, alpha, Double.POSITIVE_INFINITY,
+                            null));
+                }
+                board.unmakeMove();
+            }
+            invokeAll(tasks);
+            for (int i = 0; i < tasks.size(); i++) {
+                candidates.add(new MoveCandidate(PackedMove.toMove(moves.get(i + 1)), tasks.get(i).join()));
+            }
+
+            candidates.sort(Comparator.comparing(MoveCandidate::getScore).reversed());
+            return candidates;
+        }
+    }
+
+    /**
+     * Searches a position with alpha beta pruning, using Young Brothers Wait to search in parallel.
+     * Scores are from the perspective of this player.
+     */
+    private class AlphaBetaTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int depth;
+        private final int team;
+        private final double alpha;
+        private final double beta;
+        private final AlphaBetaTask parent;
+        private final int playerTeam;
+        private volatile boolean cutoff;
+
+        /**
+         * @param depth  The depth to search to. At depth 0, the moves are scored with the heuristic.
+         * @param parent The task that forked this one, or null. If it or any of its parents has a cutoff, this task
+         *               is aborted.
+         */
+        private AlphaBetaTask(Board board, int depth, int team, double alpha, double beta, AlphaBetaTask parent) {
+            this.board = board;
+            this.depth = depth;
+            this.team = team;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.parent = parent;
+            playerTeam = MinimaxComputerPlayer.this.team;
+        }
+
+        /**
+         * Check if this task has been aborted, because it or one of its parents has a cutoff.
+         * The result of an aborted task is never used.
+         */
+        private boolean isAborted() {
+            for (AlphaBetaTask task = this; task != null; task = task.parent) {
+                if (task.cutoff) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        protected Double compute() {
+            if (depth < MIN_SPLIT_DEPTH) {
+                return search(depth, team, alpha, beta, sequentialMoveLists.get());
+            }
+
+            // Other tasks may run on this thread while it waits for its forked children, so this list can't be shared
+            MoveList moves = new MoveList();
+            board.generateLegalMoves(team, moves);
+            if (moves.isEmpty()) {
+                // Checkmate or stalemate, which the heuristic knows how to score
+                return heuristic.getScore(board, playerTeam);
+            }
+            orderMoves(moves);
+
+            // The eldest brother is searched first, on this thread, so the younger ones get its bound
+            board.makeMove(moves.get(0));
+            nodes.increment();
+            double bestScore = new AlphaBetaTask(board, depth - 1, -team, alpha, beta, this).compute();
+            board.unmakeMove();
+            double alpha = this.alpha;
+            double beta = this.beta;
+            if (team == playerTeam) alpha = Math.max(bestScore, alpha);
+            else beta = Math.min(bestScore, beta);
+            if (beta <= alpha || moves.size() == 1 || isAborted()) {
+                return bestScore;
+            }
+
+            List<AlphaBetaTask> tasks = new ArrayList<>(moves.size() - 1);
+            for (int i = 1; i < moves.size(); i++) {
+                board.makeMove(moves.get(i));
+                nodes.increment();
+                // Each younger brother needs its own copy of the board, since they run concurrently
+                AlphaBetaTask task = new AlphaBetaTask(board.fork(), depth - 1, -team, alpha, beta, this);
+                board.unmakeMove();
+                task.fork();
+                tasks.add(task);
+            }
+            for (AlphaBetaTask task : tasks) {
+                double score = task.join();
+                if (cutoff) {
+                    // The rest were aborted, but they still need to be joined
+                    continue;
+                }
+                if ((team == playerTeam && score > bestScore) || (team != playerTeam && score < bestScore)) {
+                    bestScore = score;
+                }
+                if (team == playerTeam) alpha = Math.max(score, alpha);
+                else beta = Math.min(score, beta);
+                if (beta <= alpha) {
+                    cutoff = true;
+                }
+            }
+            return bestScore;
+        }
+
+        /**
+         * Search a position on this thread. The board is restored before returning.
+         */
+        private double search(int depth, int team, double alpha, double beta, MoveList[] moveLists) {
+            MoveList moves = moveLists[depth];
+            board.generateLegalMoves(team, moves);
+            if (moves.isEmpty()) {
+                return heuristic.getScore(board, playerTeam);
+            }
+            orderMoves(moves);
+
+            double bestScore = 0;
+            for (int i = 0; i < moves.size(); i++) {
+                if (isAborted()) {
+                    return bestScore;
+                }
+                board.makeMove(moves.get(i));
+                nodes.increment();
+                double score = depth == 0 ?
+                        heuristic.getScore(board, playerTeam) :
+                        search(depth - 1, -team, alpha, beta, moveLists);
+                board.unmakeMove();
+
+                if (i == 0 || (team == playerTeam && score > bestScore) || (team != playerTeam && score < bestScore)) {
+                    bestScore = score;
+                }
+                if (team == playerTeam) alpha = Math.max(score, alpha);
+                else beta = Math.min(score, beta);
+                if (beta <= alpha) {
+                    break;
+                }
+            }
+            return bestScore;
+        }
+    }
 }
@@ -20,5 +20,28 @@ public abstract class Player {
         return team;
     }
 
+    /**
+     * Set the board this player plays on, so the player can be reused for another game.
+     *
+     * @param board The board of the next game.
+     */
+    public void setBoard(Board board) {
+        this.board = board;
+    }
+
+    /**
+     * Called before the player plays a new game, so it can forget anything it learned in the previous one.
+     */
+    public void newGame() {
+        // Empty
+    }
+
+    /**
+     * Called once the player won't be used anymore, so it can release its resources, such as its threads.
+     */
+    public void close() {
+        // Empty
+    }
+
     public abstract Move getMove();
 }
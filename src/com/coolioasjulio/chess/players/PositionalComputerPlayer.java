@@ -8,6 +8,7 @@ import com.coolioasjulio.chess.Move;
 import com.coolioasjulio.chess.exceptions.InvalidMoveException;
 import com.coolioasjulio.chess.heuristics.Heuristic;
 import com.coolioasjulio.chess.heuristics.MaterialHeuristic;
+import com.coolioasjulio.chess.heuristics.TerminalHeuristic;
 import com.coolioasjulio.chess.pieceevaluators.PieceEvaluator;
 import com.coolioasjulio.chess.pieceevaluators.PositionalPieceEvaluator;
 import com.coolioasjulio.chess.pieces.Pawn;
@@ -24,18 +25,14 @@ public class PositionalComputerPlayer extends Player {
      */
     public PositionalComputerPlayer(Board board) {
         super(board);
-        heuristic = new MaterialHeuristic(SPACE_SCORE);
+        heuristic = new TerminalHeuristic(new MaterialHeuristic(SPACE_SCORE));
         pieceEvaluator = new PositionalPieceEvaluator();
     }
 
-    private int numAttackers(Move move) {
-        Board board = this.board.fork();
-        board.doMove(move);
+    private int numAttackers(Board board, Move move) {
+        board.makeMove(move);
         int attackers = 0;
-        for (int i = 0; i < board.getPieces().size(); i++) {
-            Piece p = board.getPieces().get(i);
-            if (p.getTeam() == team)
-                continue;
+        for (Piece p : board.getPieces(-team)) {
             Move[] moves = p.getMoves();
             for (Move m : moves) {
                 if (m.getEnd().equals(move.getEnd())) {
@@ -43,17 +40,15 @@ public class PositionalComputerPlayer extends Player {
                 }
             }
         }
+        board.unmakeMove();
         return attackers;
     }
 
-    private int numDefenders(Move move) {
-        Board board = this.board.fork();
-        board.removePiece(board.checkSquare(move.getStart()));
+    private int numDefenders(Board board, Move move) {
+        Piece moving = board.checkSquare(move.getStart());
+        board.removePiece(moving);
         int defenders = 0;
-        for (int i = 0; i < board.getPieces().size(); i++) {
-            Piece p = board.getPieces().get(i);
-            if (p.getTeam() != team)
-                continue;
+        for (Piece p : board.getPieces(team)) {
             Move[] moves = p.getMoves();
             for (Move m : moves) {
                 if (m.getEnd().equals(move.getEnd())) {
@@ -61,10 +56,11 @@ public class PositionalComputerPlayer extends Player {
                 }
             }
         }
+        board.addPiece(moving);
         return defenders;
     }
 
-    private boolean safeMove(Move move) throws InvalidMoveException {
+    private boolean safeMove(Board board, Move move) throws InvalidMoveException {
         Piece piece = board.checkSquare(move.getStart());
         if (piece instanceof Pawn)
             return true;
@@ -73,34 +69,26 @@ public class PositionalComputerPlayer extends Player {
                 return true;
             }
         }
-        int numDefenders = numDefenders(move);
-        int numAttackers = numAttackers(move);
+        int numDefenders = numDefenders(board, move);
+        int numAttackers = numAttackers(board, move);
         return numDefenders >= numAttackers;
     }
 
     @Override
     public Move getMove() {
         HashMap<Double, Move> moves = new HashMap<>();
-        for (int i = 0; i < board.getPieces().size(); i++) {
-            Piece p = board.getPieces().get(i);
-            if (p.getTeam() != team)
-                continue;
-            Move[] possible = p.getMoves();
-            for (Move m : possible) {
-                Board board = this.board.fork();
-                double score = 0;
-                if (!safeMove(m)) {
-                    score -= pieceEvaluator.getValue(board.checkSquare(m.getStart()));
-                }
-                board.doMove(m);
-                score += heuristic.getScore(board, team);
-                if (board.inCheckMate(-team))
-                    score += 99999;
-                boolean check = board.inCheck(board.getKing(team));
-                if (!check) {
-                    moves.put(score, m);
-                }
+        Board board = this.board.fork();
+        for (Move m : board.getLegalMoves(team)) {
+            double score = 0;
+            if (!safeMove(board, m)) {
+                score -= pieceEvaluator.getValue(board.checkSquare(m.getStart()));
             }
+            board.makeMove(m);
+            score += heuristic.getScore(board, team);
+            if (board.inCheckMate(-team))
+                score += 99999;
+            moves.put(score, m);
+            board.unmakeMove();
         }
         double bestScore = moves.keySet().stream().reduce(Math::max).orElseThrow(IllegalStateException::new);
         Move bestMove = moves.get(bestScore);
@@ -3,34 +3,133 @@ package com.coolioasjulio.chess.players;
 import com.coolioasjulio.chess.Board;
 import com.coolioasjulio.chess.Move;
 import com.coolioasjulio.chess.MoveCandidate;
+import com.coolioasjulio.chess.MoveList;
+import com.coolioasjulio.chess.PackedMove;
+import com.coolioasjulio.chess.Score;
 import com.coolioasjulio.chess.heuristics.Heuristic;
 import com.coolioasjulio.chess.heuristics.MaterialHeuristic;
-import com.coolioasjulio.chess.pieceevaluators.PositionalPieceEvaluator;
 import com.coolioasjulio.chess.pieces.Piece;
+import com.coolioasjulio.chess.pieces.PieceType;
+import com.coolioasjulio.chess.search.MovePicker;
+import com.coolioasjulio.chess.search.SearchInfo;
+import com.coolioasjulio.chess.search.TranspositionTable;
 import com.coolioasjulio.configuration.ConfigurationMenu;
 import com.coolioasjulio.configuration.Setting;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
+/**
+ * A principal variation search with iterative deepening and a transposition table. The first move of each node is
+ * searched with the full window, and the others with a null window, which only proves that they are worse. A move is
+ * searched again with the full window only if that proof fails, which is rare when the moves are ordered well.
+ * The search detects the end of the game itself: checkmate and stalemate when there are no legal moves, and draws by
+ * repetition or the fifty move rule from the board's history, so the heuristic only has to score the material.
+ * At the leaves, a quiescence search plays out captures and promotions until the position is quiet, so positions
+ * aren't scored in the middle of an exchange. Captures which lose material according to a static exchange evaluation
+ * are skipped there, since they would almost never be played.
+ * <p>
+ * The search is also selective, and each technique can be turned off in the settings:
+ * <ul>
+ * <li>Null move pruning: if the team to move is still doing well enough after passing, the node is cut off with a
+ * shallower search. It is skipped when the team has only pawns, since passing is only safe when it isn't in zugzwang.</li>
+ * <li>Late move reductions: quiet moves late in the ordering are searched shallower, and searched again at the full
+ * depth only if they turn out better than expected.</li>
+ * <li>Futility pruning and razoring: near the leaves, quiet moves are skipped if the static score is so far below the
+ * window that they are very unlikely to reach it.</li>
+ * </ul>
+ * <p>
+ * With more than one thread, it uses Lazy SMP: helper threads search the same root as the main thread, with their own
+ * board, move lists and history scores, and share only the transposition table. The helpers fill the table with
+ * results the main thread can use, so it searches deeper in the same time. The helpers keep searching deeper until the
+ * main thread finishes, and the move is always that of the main thread. The helper threads are kept between searches,
+ * so {@link #close()} should be called once the player is no longer needed.
+ */
 public class PrunedMinimaxComputerPlayer extends Player {
     private static final int DEFAULT_SEARCH_DEPTH = 2;
-    private static final int DEFAULT_MAX_SEARCH_DEPTH = 4;
+    private static final int DEFAULT_QUIESCENCE_DEPTH = 8;
+    private static final int DEFAULT_HASH_SIZE_MB = 64;
+    private static final int DEFAULT_TIME_LIMIT_MS = 0;
+    private static final int DEFAULT_NODE_LIMIT = 0;
+    private static final int DEFAULT_THREADS = 1;
+    // Helper threads keep deepening past the search depth until the main thread finishes, up to this depth
+    private static final int MAX_HELPER_DEPTH = 64;
+    // Aspiration windows start this far on each side of the previous score, and double on each fail
+    private static final int ASPIRATION_WINDOW = 50;
+    private static final int MAX_ASPIRATION_WINDOW = 400;
+    // The limits are only checked every this many nodes, since the clock and the shared node count are relatively
+    // slow to access. Must be a power of 2.
+    private static final int LIMIT_CHECK_INTERVAL = 1024;
+    // The ordering score of moves the quiescence search skips, which sorts them after all the others
+    private static final int SKIPPED_SCORE = Integer.MIN_VALUE;
+    // Captures in the quiescence search are skipped if they can't bring the score within this much of the window
+    private static final int DELTA_MARGIN = 200;
+    // Null move searches are this many plies shallower than the normal search, plus one more at deep nodes
+    private static final int NULL_MOVE_REDUCTION = 2;
+    private static final int NULL_MOVE_DEEP_DEPTH = 6;
+    // Quiet moves after this many moves are reduced, by one ply or two if they are very late
+    private static final int LMR_MIN_MOVES = 3;
+    private static final int LMR_LATE_MOVES = 8;
+    // Quiet moves at the frontier are pruned if the static score is at least this far below the window
+    private static final int FUTILITY_MARGIN = 150;
+    // Nodes one ply above the frontier are razored if the static score is at least this far below the window
+    private static final int RAZOR_MARGIN = 300;
+    // Indexed by piece type, for estimating the material a capture or promotion wins
+    private static final int[] PIECE_VALUES = {Piece.PAWN_CENTIPAWNS, Piece.KNIGHT_CENTIPAWNS,
+            Piece.BISHOP_CENTIPAWNS, Piece.ROOK_CENTIPAWNS, Piece.QUEEN_CENTIPAWNS, Piece.KING_CENTIPAWNS};
 
     private int depth = DEFAULT_SEARCH_DEPTH;
-    private int maxDepth = DEFAULT_MAX_SEARCH_DEPTH;
+    private int quiescenceDepth = DEFAULT_QUIESCENCE_DEPTH;
+    private int timeLimit = DEFAULT_TIME_LIMIT_MS;
+    private int nodeLimit = DEFAULT_NODE_LIMIT;
+    private boolean nullMovePruning = true;
+    private boolean lateMoveReductions = true;
+    private boolean futilityPruning = true;
     private final Heuristic heuristic = new MaterialHeuristic(0);
-    private int nodes;
-    private int nonTerminalNodes;
-    private int cacheHits;
-    private final long[][][] historyScores = new long[2][64][64]; // 0=white, 1=black, a1=0,a2=1,...,h8=63
-    private final Map<Transposition, TranspositionValue> transpositionTableW = new LimitedLinkedHashMap<>(4194304);
-    private final Map<Transposition, TranspositionValue> transpositionTableB = new LimitedLinkedHashMap<>(4194304);
-    private final int[] nodesAtDepth = new int[maxDepth+1];
+    private final TranspositionTable transpositionTable;
+    private SearchWorker[] workers = new SearchWorker[0];
+    private ExecutorService helperPool;
+    private Consumer<SearchInfo> infoListener;
+    private SearchInfo lastSearchInfo;
+    private final ConfigurationMenu configurationMenu;
+
+    // The state of the current search, shared by all the threads
+    private volatile long deadline;
+    private final AtomicLong searchNodes = new AtomicLong();
+    private volatile boolean hasMove;
+    private volatile boolean stopped;
 
     public PrunedMinimaxComputerPlayer(Board board) {
+        this(board, DEFAULT_HASH_SIZE_MB);
+    }
+
+    /**
+     * Create a player with a transposition table of the specified size, instead of the default 64 MB.
+     *
+     * @param board  The board the player plays on.
+     * @param sizeMB The size of the transposition table, in megabytes. Must be at least 1.
+     */
+    public PrunedMinimaxComputerPlayer(Board board, int sizeMB) {
         super(board);
-        ConfigurationMenu.addConfigMenu(createConfigurationMenu());
+        transpositionTable = new TranspositionTable(sizeMB);
+        setThreads(DEFAULT_THREADS);
+        configurationMenu = createConfigurationMenu();
+        ConfigurationMenu.addConfigMenu(configurationMenu);
+    }
+
+    /**
+     * Get the settings of this player, which are also shown in the settings of the app.
+     *
+     * @return The configuration menu of this player.
+     */
+    public ConfigurationMenu getConfigurationMenu() {
+        return configurationMenu;
     }
 
     public int getSearchDepth() {
@@ -41,23 +140,214 @@ public class PrunedMinimaxComputerPlayer extends Player {
         this.depth = depth;
     }
 
-    public int getMaxDepth() {
-        return maxDepth;
+    public int getQuiescenceDepth() {
+        return quiescenceDepth;
+    }
+
+    /**
+     * Set the maximum depth of the quiescence search. Positions that still aren't quiet this many plies past the
+     * search depth are scored anyway. It is only a safeguard, since exchanges almost always end much sooner.
+     *
+     * @param quiescenceDepth The maximum depth. If 0, there is no quiescence search.
+     */
+    public void setQuiescenceDepth(int quiescenceDepth) {
+        this.quiescenceDepth = quiescenceDepth;
+    }
+
+    public int getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * Set the time limit of each search. When it runs out, the best move of the deepest completed iteration is used.
+     *
+     * @param timeLimit The time limit in milliseconds, or 0 for no limit.
+     */
+    public void setTimeLimit(int timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    public int getNodeLimit() {
+        return nodeLimit;
+    }
+
+    /**
+     * Set the node limit of each search. When it runs out, the best move of the deepest completed iteration is used.
+     *
+     * @param nodeLimit The maximum number of nodes, or 0 for no limit.
+     */
+    public void setNodeLimit(int nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    public boolean isNullMovePruning() {
+        return nullMovePruning;
+    }
+
+    public void setNullMovePruning(boolean nullMovePruning) {
+        this.nullMovePruning = nullMovePruning;
+    }
+
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    public boolean isFutilityPruning() {
+        return futilityPruning;
+    }
+
+    /**
+     * Set whether futility pruning and razoring are used near the leaves of the search.
+     *
+     * @param futilityPruning True to prune, false otherwise.
+     */
+    public void setFutilityPruning(boolean futilityPruning) {
+        this.futilityPruning = futilityPruning;
+    }
+
+    /**
+     * Set the listener which is given the result of each completed iteration of a search, such as the depth and the
+     * principal variation. It is called on the thread that called {@link #getMove()}.
+     *
+     * @param infoListener The listener, or null for none.
+     */
+    public void setInfoListener(Consumer<SearchInfo> infoListener) {
+        this.infoListener = infoListener;
+    }
+
+    /**
+     * Get the result of the last completed iteration of the last search.
+     *
+     * @return The search info, or null if there hasn't been a search yet.
+     */
+    public SearchInfo getLastSearchInfo() {
+        return lastSearchInfo;
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    /**
+     * Set the number of threads to search with. The transposition table is shared between them.
+     *
+     * @param threads The number of threads. Must be at least 1.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Must have at least 1 thread!");
+        }
+        if (threads == workers.length) {
+            return;
+        }
+        int oldThreads = workers.length;
+        workers = Arrays.copyOf(workers, threads);
+        for (int i = oldThreads; i < threads; i++) {
+            workers[i] = new SearchWorker(i);
+        }
+        shutdownHelpers();
+    }
+
+    public int getHashSize() {
+        return transpositionTable.getSizeMB();
     }
 
-    public void setMaxDepth(int maxDepth) {
-        this.maxDepth = maxDepth;
+    public void setHashSize(int sizeMB) {
+        transpositionTable.resize(sizeMB);
+    }
+
+    /**
+     * Forget everything learned in previous searches, such as the transposition table and the history scores.
+     * Afterwards, searching a position gives the same result as a new player would.
+     */
+    public void clearSearchState() {
+        transpositionTable.clear();
+        for (SearchWorker worker : workers) {
+            worker.clearHistory();
+        }
+    }
+
+    @Override
+    public void newGame() {
+        clearSearchState();
+    }
+
+    /**
+     * Stop the helper threads, and remove the settings of this player from the settings of the app. If the player
+     * searches again, the helper threads are started again.
+     */
+    @Override
+    public void close() {
+        ConfigurationMenu.removeConfigMenu(configurationMenu);
+        shutdownHelpers();
+    }
+
+    private void shutdownHelpers() {
+        if (helperPool != null) {
+            helperPool.shutdown();
+            helperPool = null;
+        }
+    }
+
+    /**
+     * Stop the current search, as if its time limit had run out. This can be called from any thread, and the search
+     * stops within a few milliseconds, once it has completed its first iteration. {@link #getMove()} then returns the
+     * best move of the deepest completed iteration. It has no effect if the player isn't searching.
+     */
+    public void stop() {
+        deadline = 0;
+    }
+
+    /**
+     * Change when the current search must end, for example to give a search that was started without a time limit
+     * one. This can be called from any thread, and has no effect if the player isn't searching. Like
+     * {@link #stop()}, at least one iteration always completes.
+     *
+     * @param deadline The time the search must end by, as a value of {@link System#nanoTime()}.
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
     }
 
     private ConfigurationMenu createConfigurationMenu() {
         return new ConfigurationMenu("BotLvl2.5",
                 new Setting<>("Search Depth", Setting.InputType.INTEGER, this::setSearchDepth, this::getSearchDepth)
-                        .setValidator(this::validSearchDepth),
-                new Setting<>("Max Search Depth", Setting.InputType.INTEGER, this::setMaxDepth, this::getMaxDepth)
-                        .setValidator(this::validSearchDepth));
+                        .setValidator(this::validNonNegative),
+                new Setting<>("Max Quiescence Depth", Setting.InputType.INTEGER, this::setQuiescenceDepth,
+                        this::getQuiescenceDepth).setValidator(this::validNonNegative),
+                new Setting<>("Time Limit (ms)", Setting.InputType.INTEGER, this::setTimeLimit, this::getTimeLimit)
+                        .setValidator(this::validNonNegative),
+                new Setting<>("Node Limit", Setting.InputType.INTEGER, this::setNodeLimit, this::getNodeLimit)
+                        .setValidator(this::validNonNegative),
+                new Setting<>("Null Move Pruning", this::setNullMovePruning, this::isNullMovePruning,
+                        Boolean.TRUE, Boolean.FALSE),
+                new Setting<>("Late Move Reductions", this::setLateMoveReductions, this::isLateMoveReductions,
+                        Boolean.TRUE, Boolean.FALSE),
+                new Setting<>("Futility Pruning", this::setFutilityPruning, this::isFutilityPruning,
+                        Boolean.TRUE, Boolean.FALSE),
+                new Setting<>("Threads", Setting.InputType.INTEGER, this::setThreads, this::getThreads)
+                        .setValidator(this::validPositive),
+                new Setting<>("Hash Size (MB)", Setting.InputType.INTEGER, this::setHashSize, this::getHashSize)
+                        .setValidator(this::validPositive));
+    }
+
+    private boolean validPositive(String text) {
+        try {
+            if ("".equals(text)) {
+                return true;
+            }
+            int i = Integer.parseInt(text);
+            return i >= 1;
+        } catch (NumberFormatException e) {
+            return false;
+        }
     }
 
-    private boolean validSearchDepth(String text) {
+    private boolean validNonNegative(String text) {
         try {
             if ("".equals(text)) {
                 return true;
@@ -71,178 +361,625 @@ public class PrunedMinimaxComputerPlayer extends Player {
 
     @Override
     public Move getMove() {
-        nonTerminalNodes = 1;
-        nodes = 1;
-        cacheHits = 0;
-        transpositionTableW.clear();
-        transpositionTableB.clear();
-        Arrays.fill(nodesAtDepth, 0);
-        long start = System.currentTimeMillis();
-        MoveCandidate move = null;
-        for (int d = 2; d <= depth; d++) {
-            move = minimax(board, depth, team, false, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
-        }
-        long end = System.currentTimeMillis();
+        int searchDepth = Math.max(depth, 1);
+        transpositionTable.newSearch();
+        searchNodes.set(0);
+        hasMove = false;
+        stopped = false;
+        long start = System.nanoTime();
+        deadline = timeLimit > 0 ? start + timeLimit * 1_000_000L : Long.MAX_VALUE;
+
+        // The boards are forked on this thread, since the board may be changed once this returns
+        for (SearchWorker worker : workers) {
+            worker.prepare(board.fork(), searchDepth);
+        }
+        List<Future<?>> helpers = new ArrayList<>();
+        if (workers.length > 1) {
+            if (helperPool == null) {
+                helperPool = Executors.newFixedThreadPool(workers.length - 1, r -> {
+                    Thread thread = new Thread(r, "PrunedMinimaxComputerPlayer helper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            for (int i = 1; i < workers.length; i++) {
+                helpers.add(helperPool.submit(workers[i]::search));
+            }
+        }
+        SearchWorker main = workers[0];
+        main.search();
+        stopped = true;
+        for (Future<?> helper : helpers) {
+            try {
+                helper.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+
+        long nodes = 0;
+        long nonTerminalNodes = 0;
+        // The helpers may have searched deeper, but only the depths of the main thread are shown
+        long[] nodesAtDepth = new long[main.nodesAtDepth.length];
+        for (SearchWorker worker : workers) {
+            nodes += worker.nodes;
+            nonTerminalNodes += worker.nonTerminalNodes;
+            for (int i = 0; i < nodesAtDepth.length; i++) {
+                nodesAtDepth[i] += worker.nodesAtDepth[i];
+            }
+        }
+        MoveCandidate move = new MoveCandidate(PackedMove.toMove(main.bestMove), Score.toPawns(main.bestScore));
+        double elapsedSec = (System.nanoTime() - start) / 1e9;
         Logger logger = Logger.getLogger("PrunedMinimaxComputerPlayer");
         logger.info(move.toString());
+        logger.info(lastSearchInfo.toString());
         logger.info(String.format("Avg branching factor: %.2f", ((double) nodes) / nonTerminalNodes));
         logger.info("Nodes at depth: " + Arrays.toString(nodesAtDepth));
-        double elapsedSec = (end - start) / 1000.0;
         double rate = ((double) nodes) / elapsedSec;
         logger.info(String.format("Evaluated %d nodes, %d leaves, in %.3f seconds, %.1f nodes/sec, %.1f leaves/sec\n",
                 nodes, nodes-nonTerminalNodes, elapsedSec, rate, (nodes - nonTerminalNodes) / elapsedSec));
-        transpositionTableW.clear();
-        transpositionTableB.clear();
         return move.getMove();
     }
 
-    private void sortMoves(Board board, Move[] moves, int team) {
-        Comparator<Move> comparator = (m1, m2) -> {
-            if (m1.equals(m2)) {
-                return 0;
-            } else if (m1.isCapture() != m2.isCapture()) {
-                return m1.isCapture() ? -1 : 1;
-            } else if (m1.isCapture()) {
-                PositionalPieceEvaluator eval = new PositionalPieceEvaluator();
-                double scoreDiff1 = eval.getValue(board.checkSquare(m1.getEnd())) - eval.getValue(board.checkSquare(m1.getStart()));
-                double scoreDiff2 = eval.getValue(board.checkSquare(m2.getEnd())) - eval.getValue(board.checkSquare(m2.getStart()));
+    /**
+     * Searches on one thread. Everything but the transposition table is owned by one worker, so they don't need to
+     * synchronize.
+     */
+    private class SearchWorker {
+        private final int index;
+        private final long[][][] historyScores = new long[2][64][64]; // 0=white, 1=black, a1=0,a2=1,...,h8=63
+        // The quiet move that last caused a cutoff after each move, indexed by the moving piece and its end square
+        private final int[][] counterMoves = new int[12][64];
+        private int[][] killers = new int[0][2]; // indexed by ply
+        private MoveList[] moveLists = new MoveList[0];
+        private MovePicker[] movePickers = new MovePicker[0];
+        private Board board;
+        private int searchDepth;
+        // The deepest iteration this worker searches, which is deeper than the search depth for helpers
+        private int maxDepth;
+        private long nodes;
+        private long nonTerminalNodes;
+        private int cacheHits;
+        private long[] nodesAtDepth = new long[0];
+        private int rootBestMove;
+        private int bestMove;
+        private int bestScore;
+        private int[] previousPv = new int[0];
+        // Triangular table of the principal variation found at each ply, which starts at index ply of its row
+        private int[][] pvTable = new int[0][0];
+        private int[] pvLength = new int[0];
+        private int selectiveDepth;
+
+        private SearchWorker(int index) {
+            this.index = index;
+        }
 
-                if (scoreDiff1 > scoreDiff2) return -1;
-                else if (scoreDiff1 < scoreDiff2) return 1;
-            } else {
-                int from1 = (m1.getStart().getY() - 1) * 8 + m1.getStart().getX();
-                int from2 = (m2.getStart().getY() - 1) * 8 + m2.getStart().getX();
-                int to1 = (m1.getEnd().getY() - 1) * 8 + m1.getEnd().getX();
-                int to2 = (m2.getEnd().getY() - 1) * 8 + m2.getEnd().getX();
-                int teamIndex = m1.getTeam() == Piece.WHITE ? 0 : 1;
+        private void clearHistory() {
+            for (long[][] teamScores : historyScores) {
+                for (long[] scores : teamScores) {
+                    Arrays.fill(scores, 0);
+                }
+            }
+            for (int[] moves : counterMoves) {
+                Arrays.fill(moves, PackedMove.NONE);
+            }
+        }
 
-                long history1 = historyScores[teamIndex][from1][to1];
-                long history2 = historyScores[teamIndex][from2][to2];
+        private void prepare(Board board, int searchDepth) {
+            this.board = board;
+            this.searchDepth = searchDepth;
+            maxDepth = index == 0 ? searchDepth : Math.max(searchDepth, MAX_HELPER_DEPTH);
+            nodes = 1;
+            nonTerminalNodes = 0;
+            cacheHits = 0;
+            nodesAtDepth = new long[maxDepth + quiescenceDepth + 1];
+            // Full width nodes are at most maxDepth plies from the root
+            killers = new int[maxDepth + 1][2];
+            bestMove = PackedMove.NONE;
+            bestScore = 0;
+            previousPv = new int[0];
+            // Nodes with a principal variation are at most maxDepth plies from the root
+            pvTable = new int[maxDepth + 1][maxDepth + 1];
+            pvLength = new int[maxDepth + 1];
+        }
 
-                if (history1 > history2) return -1;
-                else if (history1 < history2) return 1;
+        /**
+         * Search with iterative deepening until the maximum depth is reached or the search is stopped. The helpers
+         * are stopped by the main thread once it is done, so they don't sit idle while it finishes its last iteration.
+         */
+        private void search() {
+            Logger logger = Logger.getLogger("PrunedMinimaxComputerPlayer");
+            long start = System.nanoTime();
+            // Half of the helpers start a ply deeper, so the threads are less likely to search the same nodes at once
+            int startDepth = index % 2 == 0 ? 1 : Math.min(2, searchDepth);
+            for (int d = startDepth; d <= maxDepth && !stopped; d++) {
+                selectiveDepth = 0;
+                int iterationScore = aspirationSearch(board, d, bestScore);
+                if (stopped) {
+                    // The iteration didn't finish, so its best move may not have been compared against the others
+                    break;
+                }
+                bestScore = iterationScore;
+                bestMove = rootBestMove;
+                previousPv = principalVariation(board, d);
+                if (index != 0) {
+                    continue;
+                }
+                hasMove = true;
+                long elapsed = System.nanoTime() - start;
+                long totalNodes = searchNodes.get() + (nodes & (LIMIT_CHECK_INTERVAL - 1));
+                SearchInfo info = new SearchInfo(d, selectiveDepth, bestScore, totalNodes, elapsed,
+                        transpositionTable.hashfull(), previousPv);
+                lastSearchInfo = info;
+                logger.info(info.toString());
+                if (infoListener != null) {
+                    infoListener.accept(info);
+                }
+                if (Score.isMate(bestScore) && Score.MATE - Math.abs(bestScore) <= d) {
+                    // Every line was searched as deep as the mate, so a deeper search can't find a faster one
+                    break;
+                }
+                long deadline = PrunedMinimaxComputerPlayer.this.deadline;
+                if (deadline != Long.MAX_VALUE && elapsed > deadline - start - elapsed) {
+                    // The next iteration takes longer than all the previous ones, so it wouldn't finish in time
+                    break;
+                }
             }
-            return m1.toString().compareTo(m2.toString());
-        };
+        }
 
-        if (team != this.team) {
-            comparator = comparator.reversed();
+        /**
+         * Search the root to the specified depth with a window around the score of the previous iteration.
+         * A narrow window causes more cutoffs, but if the score falls outside of it, the window is widened and the
+         * root is searched again.
+         */
+        private int aspirationSearch(Board board, int depth, int previousScore) {
+            int window = ASPIRATION_WINDOW;
+            int alpha = depth == 1 ? -Score.INFINITE : previousScore - window;
+            int beta = depth == 1 ? Score.INFINITE : previousScore + window;
+            while (true) {
+                int score = minimax(board, depth, 0, team, true, false, alpha, beta);
+                if (stopped) {
+                    return score;
+                }
+                if (score <= alpha && alpha != -Score.INFINITE) {
+                    window *= 2;
+                    alpha = window > MAX_ASPIRATION_WINDOW ? -Score.INFINITE : previousScore - window;
+                } else if (score >= beta && beta != Score.INFINITE) {
+                    window *= 2;
+                    beta = window > MAX_ASPIRATION_WINDOW ? Score.INFINITE : previousScore + window;
+                } else {
+                    return score;
+                }
+            }
         }
 
-        Arrays.sort(moves, comparator);
-    }
+        /**
+         * Count a node, and check if the search has run out of time or nodes.
+         * At least one iteration of the main thread always finishes, so there is a move.
+         */
+        private void countNode() {
+            nodes++;
+            if ((nodes & (LIMIT_CHECK_INTERVAL - 1)) == 0) {
+                long total = searchNodes.addAndGet(LIMIT_CHECK_INTERVAL);
+                if (hasMove && ((nodeLimit > 0 && total >= nodeLimit) || System.nanoTime() >= deadline)) {
+                    stopped = true;
+                }
+            }
+        }
+
+        /**
+         * Get the line the search expects from the root, which is the principal variation of the root. If it was cut
+         * short by a transposition table hit, it is continued with the best moves stored in the table.
+         */
+        private int[] principalVariation(Board board, int depth) {
+            int[] pv = new int[depth];
+            int length = 0;
+            int team = PrunedMinimaxComputerPlayer.this.team;
+            while (length < depth) {
+                int move;
+                if (length < pvLength[0]) {
+                    move = pvTable[0][length];
+                } else {
+                    long entry = transpositionTable.probe(board.getHash());
+                    move = entry == 0 ? PackedMove.NONE : board.findLegalMove(team, TranspositionTable.getMove(entry));
+                }
+                if (move == PackedMove.NONE) {
+                    break;
+                }
+                pv[length] = move;
+                board.makeMove(move);
+                length++;
+                team = -team;
+            }
+            for (int i = 0; i < length; i++) {
+                board.unmakeMove();
+            }
+            return Arrays.copyOf(pv, length);
+        }
 
-    public MoveCandidate minimax(Board board, int depth, int team, boolean didCapture, double alpha, double beta) {
-        Transposition transposition = new Transposition(board);
-        Map<Transposition, TranspositionValue> transpositionTable = team == Piece.WHITE ? transpositionTableW : transpositionTableB;
-        if (transpositionTable.containsKey(transposition)) {
-            TranspositionValue val = transpositionTable.get(transposition);
-            if (val.computedDepth >= depth) {
-                cacheHits++;
-                return val.moveCandidate;
+        /**
+         * Get the move list for the specified ply. The lists are reused, so searching doesn't allocate any.
+         */
+        private MoveList moveList(int ply) {
+            if (ply >= moveLists.length) {
+                moveLists = Arrays.copyOf(moveLists, ply + 1);
             }
+            if (moveLists[ply] == null) {
+                moveLists[ply] = new MoveList();
+            }
+            return moveLists[ply];
         }
 
-        int playerTeam = this.team;
-        Move[] moves = board.getMoves(team);
-        sortMoves(board, moves, team);
-        MoveCandidate bestMove = null;
-        for (Move move : moves) {
-            Board b = board.fork();
-            b.doMove(move);
-            if (b.inCheck(move.getTeam())) {
-                continue;
+        private MovePicker movePicker(int ply) {
+            if (ply >= movePickers.length) {
+                movePickers = Arrays.copyOf(movePickers, ply + 1);
             }
-            nodesAtDepth[this.depth - depth]++;
-            nodes++;
-            Double score = null;
-            if (depth > this.depth - this.maxDepth && (depth > 0 || didCapture)) {
-                MoveCandidate mc = minimax(b, depth - 1, -team, move.isCapture(), alpha, beta);
-                if (mc != null) {
-                    score = mc.getScore();
-                    nonTerminalNodes++;
-                }
+            if (movePickers[ply] == null) {
+                movePickers[ply] = new MovePicker();
             }
+            return movePickers[ply];
+        }
 
-            if (score == null) {
-                score = heuristic.getScore(b, playerTeam);
+        /**
+         * Check if a position is drawn by repetition or by the fifty move rule. Stalemate is detected by the search
+         * when there are no legal moves, so the heuristic doesn't have to check for the end of the game.
+         */
+        private boolean isDraw(Board board, int team) {
+            if (board.isRepetition()) {
+                return true;
             }
+            // Checkmate takes precedence over the fifty move rule
+            return board.isDrawByFiftyMoveRule() && (!board.inCheck(team) || board.getLegalMoveCount(team) > 0);
+        }
 
-            MoveCandidate candidate = new MoveCandidate(move, score);
+        /**
+         * Score a position with the heuristic, from the perspective of this player. A checkmate is scored by its
+         * distance from the root.
+         */
+        private int evaluate(Board board, int ply) {
+            int score = heuristic.getCentipawnScore(board, PrunedMinimaxComputerPlayer.this.team);
+            return Score.relativeToRoot(score, ply);
+        }
 
-            if (bestMove == null) bestMove = candidate;
-            else if (team == playerTeam && candidate.getScore() > bestMove.getScore()) {
-                bestMove = candidate;
-            } else if (team != playerTeam && candidate.getScore() < bestMove.getScore()) {
-                bestMove = candidate;
+        /**
+         * Search a position with alpha beta pruning. Scores are in centipawns from the perspective of this player.
+         *
+         * @param followPv True if every move leading to this position was on the principal variation of the previous
+         *                 iteration, so the next move of it should be searched first.
+         * @param afterNullMove True if the last move was a null move, so this team can't pass again.
+         */
+        private int minimax(Board board, int depth, int ply, int team, boolean followPv, boolean afterNullMove,
+                            int alpha, int beta) {
+            if (depth < 0) {
+                return quiescence(board, ply, quiescenceDepth, team, alpha, beta);
+            }
+            selectiveDepth = Math.max(selectiveDepth, ply);
+            pvLength[ply] = ply;
+            if (ply > 0 && isDraw(board, team)) {
+                return Score.DRAW;
+            }
+            int playerTeam = PrunedMinimaxComputerPlayer.this.team;
+            boolean maximizing = team == playerTeam;
+            long key = board.getHash();
+            long entry = transpositionTable.probe(key);
+            // The move is also checked so a collision of two keys is very unlikely to give a wrong score
+            int hashMove = entry == 0 ? PackedMove.NONE : board.findLegalMove(team, TranspositionTable.getMove(entry));
+            // The root and nodes with a full window are always searched, so the principal variation is complete and
+            // the repetitions of this game are checked. The hash move is still searched first there.
+            boolean pvNode = beta - alpha > 1;
+            if (hashMove != PackedMove.NONE && ply > 0 && !pvNode && TranspositionTable.getDepth(entry) >= depth) {
+                // Scores are only usable if they were computed with a window that makes them valid for this one
+                int score = Score.relativeToRoot(TranspositionTable.getScore(entry), ply);
+                int bound = TranspositionTable.getBound(entry);
+                if (!maximizing) {
+                    score = -score;
+                    bound = invertBound(bound);
+                }
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    cacheHits++;
+                    return score;
+                }
             }
 
-            if (team == playerTeam) alpha = Math.max(candidate.getScore(), alpha);
-            else beta = Math.min(candidate.getScore(), beta);
+            boolean inCheck = board.inCheck(team);
+            // Pruning is only safe away from the root, when not in check, and when the window isn't about checkmates
+            boolean canPrune = ply > 0 && !inCheck && !Score.isMate(maximizing ? beta : alpha);
+            int staticScore = canPrune && (depth <= 1 ? futilityPruning : nullMovePruning && !afterNullMove)
+                    ? evaluate(board, ply) : 0;
+
+            if (canPrune && nullMovePruning && !afterNullMove && depth >= 2 && board.hasNonPawnMaterial(team)
+                    && (maximizing ? staticScore >= beta : staticScore <= alpha)) {
+                int reduction = NULL_MOVE_REDUCTION + (depth >= NULL_MOVE_DEEP_DEPTH ? 1 : 0);
+                board.makeNullMove();
+                countNode();
+                // A null window on the bound this team is trying to beat, since only that is being tested
+                int score = maximizing
+                        ? minimax(board, depth - 1 - reduction, ply + 1, -team, false, true, beta - 1, beta)
+                        : minimax(board, depth - 1 - reduction, ply + 1, -team, false, true, alpha, alpha + 1);
+                board.unmakeNullMove();
+                if (stopped) {
+                    return 0;
+                }
+                if (maximizing ? score >= beta : score <= alpha) {
+                    // Don't return unproven checkmate scores from a search where this team skipped a move
+                    return maximizing ? beta : alpha;
+                }
+            }
 
-            if (beta <= alpha) {
-                if (!move.isCapture()) {
-                    int teamIndex = move.getTeam() == Piece.WHITE ? 0 : 1;
-                    int from = (move.getStart().getY() - 1) * 8 + move.getStart().getX();
-                    int to = (move.getEnd().getY() - 1) * 8 + move.getEnd().getX();
-                    historyScores[teamIndex][from][to] += 1 << (this.depth - depth);
+            if (canPrune && futilityPruning && depth == 1
+                    && (maximizing ? staticScore + RAZOR_MARGIN <= alpha : staticScore - RAZOR_MARGIN >= beta)) {
+                // Razoring: only a tactic could save this node, so if the quiescence search doesn't find one, give up
+                int score = maximizing
+                        ? quiescence(board, ply, quiescenceDepth, team, alpha, alpha + 1)
+                        : quiescence(board, ply, quiescenceDepth, team, beta - 1, beta);
+                if (stopped) {
+                    return 0;
+                }
+                if (maximizing ? score <= alpha : score >= beta) {
+                    return score;
                 }
-                break;
             }
-        }
+            // Futility pruning: quiet moves at the frontier can't make up the difference
+            boolean futile = canPrune && futilityPruning && depth == 0
+                    && (maximizing ? staticScore + FUTILITY_MARGIN <= alpha : staticScore - FUTILITY_MARGIN >= beta);
+
+            int originalAlpha = alpha;
+            int originalBeta = beta;
+            int pvMove = PackedMove.NONE;
+            if (followPv && ply < previousPv.length) {
+                // The transposition table entry may have been replaced, but the previous iteration's line is still good
+                pvMove = board.findLegalMove(team, previousPv[ply]);
+            }
+            int teamIndex = team == Piece.WHITE ? 0 : 1;
+            // A null move isn't in the move history, so the last move would be this team's own
+            int lastMove = afterNullMove ? PackedMove.NONE : board.getLastPackedMove();
+            int counterMove = lastMove == PackedMove.NONE ? PackedMove.NONE
+                    : counterMoves[PackedMove.getPiece(lastMove)][PackedMove.getTo(lastMove)];
+            MovePicker picker = movePicker(ply);
+            picker.init(board, team, pvMove != PackedMove.NONE ? pvMove : hashMove, killers[ply][0], killers[ply][1],
+                    counterMove, historyScores[teamIndex]);
+
+            nonTerminalNodes++;
+            int bestMove = PackedMove.NONE;
+            int bestScore = 0;
+            int move;
+            for (int i = 0; (move = picker.next()) != PackedMove.NONE; i++) {
+                boolean quiet = !PackedMove.isCapture(move) && PackedMove.getPromotion(move) == 0;
+                board.makeMove(move);
+                boolean givesCheck = quiet && board.inCheck(-team);
+                if (futile && quiet && !givesCheck && bestMove != PackedMove.NONE) {
+                    board.unmakeMove();
+                    // The move is assumed to be worth at most the margin, which still fails low
+                    bestScore = maximizing ? Math.max(bestScore, staticScore + FUTILITY_MARGIN)
+                            : Math.min(bestScore, staticScore - FUTILITY_MARGIN);
+                    continue;
+                }
+                nodesAtDepth[ply]++;
+                countNode();
+                int score = 0;
+                if (stopped) {
+                    // The result of this search won't be used, so unwind as fast as possible
+                } else {
+                    boolean followMove = pvMove != PackedMove.NONE && move == pvMove;
+                    int reduction = 0;
+                    if (lateMoveReductions && depth >= 2 && i >= LMR_MIN_MOVES && quiet && !inCheck && !givesCheck
+                            && !followMove) {
+                        reduction = i >= LMR_LATE_MOVES && depth >= 4 ? 2 : 1;
+                    }
+                    if (bestMove == PackedMove.NONE) {
+                        score = minimax(board, depth - 1, ply + 1, -team, followMove, false, alpha, beta);
+                    } else {
+                        // Only try to prove that the move is worse than the best one, with a null window on its bound
+                        int scoutAlpha = maximizing ? alpha : beta - 1;
+                        int scoutBeta = maximizing ? alpha + 1 : beta;
+                        score = minimax(board, depth - 1 - reduction, ply + 1, -team, false, false,
+                                scoutAlpha, scoutBeta);
+                        if (reduction > 0 && !stopped && (maximizing ? score > alpha : score < beta)) {
+                            // The reduced search was too optimistic about this move being bad, so verify it
+                            score = minimax(board, depth - 1, ply + 1, -team, false, false, scoutAlpha, scoutBeta);
+                        }
+                        if (!stopped && score > alpha && score < beta) {
+                            // The move is better than the best one, so find out by how much
+                            score = minimax(board, depth - 1, ply + 1, -team, false, false, alpha, beta);
+                        }
+                    }
+                }
+                board.unmakeMove();
+                if (stopped) {
+                    // Don't store or use scores that were cut short
+                    return 0;
+                }
 
-        if (bestMove != null) {
-            (team == Piece.WHITE ? transpositionTableW : transpositionTableB).put(new Transposition(board), new TranspositionValue(bestMove, depth));
-        }
+                if (bestMove == PackedMove.NONE
+                        || (maximizing && score > bestScore)
+                        || (!maximizing && score < bestScore)) {
+                    bestMove = move;
+                    bestScore = score;
+                }
 
-        return bestMove;
-    }
+                if (score > alpha && score < beta) {
+                    // An exact score, so this is the new principal variation. A child in the quiescence search doesn't
+                    // have one.
+                    pvTable[ply][ply] = move;
+                    pvLength[ply] = ply + 1;
+                    if (depth > 0) {
+                        int childLength = pvLength[ply + 1];
+                        System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, childLength - ply - 1);
+                        pvLength[ply] = childLength;
+                    }
+                }
 
-    private static class LimitedLinkedHashMap<K, V> extends LinkedHashMap<K, V> {
-        private final int maxSize;
+                if (maximizing) alpha = Math.max(score, alpha);
+                else beta = Math.min(score, beta);
+
+                if (beta <= alpha) {
+                    if (quiet) {
+                        historyScores[teamIndex][PackedMove.getFrom(move)][PackedMove.getTo(move)] += 1 << ply;
+                        if (killers[ply][0] != move) {
+                            killers[ply][1] = killers[ply][0];
+                            killers[ply][0] = move;
+                        }
+                        if (lastMove != PackedMove.NONE) {
+                            counterMoves[PackedMove.getPiece(lastMove)][PackedMove.getTo(lastMove)] = move;
+                        }
+                    }
+                    break;
+                }
+            }
+
+            if (bestMove == PackedMove.NONE) {
+                // There are no legal moves, so it's checkmate or stalemate
+                if (inCheck) {
+                    return maximizing ? Score.matedIn(ply) : Score.mateIn(ply);
+                }
+                return Score.DRAW;
+            }
 
-        public LimitedLinkedHashMap(int maxSize) {
-            super(maxSize);
-            this.maxSize = maxSize;
+            int bound;
+            if (bestScore <= originalAlpha) {
+                bound = TranspositionTable.UPPER_BOUND;
+            } else if (bestScore >= originalBeta) {
+                bound = TranspositionTable.LOWER_BOUND;
+            } else {
+                bound = TranspositionTable.EXACT;
+            }
+            // Stored from the perspective of the team to move, since the player may search for the other team later
+            transpositionTable.store(key, bestMove, Score.relativeToNode(maximizing ? bestScore : -bestScore, ply),
+                    depth, maximizing ? bound : invertBound(bound));
+
+            if (ply == 0) {
+                rootBestMove = bestMove;
+            }
+            return bestScore;
         }
 
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-            return size() > maxSize;
+        /**
+         * Convert the bound of a score to the bound of the negated score.
+         */
+        private int invertBound(int bound) {
+            if (bound == TranspositionTable.LOWER_BOUND) {
+                return TranspositionTable.UPPER_BOUND;
+            } else if (bound == TranspositionTable.UPPER_BOUND) {
+                return TranspositionTable.LOWER_BOUND;
+            }
+            return bound;
         }
-    }
 
-    private static class Transposition {
-        public Board.PositionFingerprint fingerprint;
-        public int occurrences;
+        /**
+         * Search only captures and promotions, until the position is quiet. The team to move can also stand pat,
+         * which means taking the static score of the position instead, since it usually has a quiet move that is at
+         * least as good. When in check it can't, so all moves are searched. Scores are from the perspective of this
+         * player.
+         *
+         * @param qDepth The number of plies left before the position is scored even if it isn't quiet.
+         */
+        private int quiescence(Board board, int ply, int qDepth, int team, int alpha, int beta) {
+            int playerTeam = PrunedMinimaxComputerPlayer.this.team;
+            selectiveDepth = Math.max(selectiveDepth, ply);
+            if (isDraw(board, team)) {
+                return Score.DRAW;
+            }
+            if (qDepth <= 0) {
+                return evaluate(board, ply);
+            }
 
-        public Transposition(Board board) {
-            this.fingerprint = board.getFingerprint();
-            this.occurrences = board.getNumOccurrences(fingerprint);
-        }
+            boolean maximizing = team == playerTeam;
+            boolean inCheck = board.inCheck(team);
+            MoveList moves = moveList(ply);
+            MovePicker picker = movePicker(ply);
+            int standPat = 0;
+            int bestScore;
+            if (inCheck) {
+                // Checkmate, unless a legal move is found
+                bestScore = maximizing ? Score.matedIn(ply) : Score.mateIn(ply);
+                picker.init(board, team, PackedMove.NONE, PackedMove.NONE, PackedMove.NONE, PackedMove.NONE,
+                        historyScores[team == Piece.WHITE ? 0 : 1]);
+            } else {
+                standPat = bestScore = evaluate(board, ply);
+                if (maximizing) alpha = Math.max(bestScore, alpha);
+                else beta = Math.min(bestScore, beta);
+                if (beta <= alpha) {
+                    return bestScore;
+                }
+                board.generateTacticalMoves(team, moves);
+                sortTacticalMoves(board, moves);
+            }
 
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            Transposition that = (Transposition) o;
-            return occurrences == that.occurrences &&
-                    fingerprint.equals(that.fingerprint);
-        }
+            nonTerminalNodes++;
+            for (int i = 0; ; i++) {
+                int move;
+                if (inCheck) {
+                    move = picker.next();
+                    if (move == PackedMove.NONE) {
+                        break;
+                    }
+                } else {
+                    if (i >= moves.size() || moves.getScore(i) == SKIPPED_SCORE) {
+                        // Only underpromotions and losing captures are left
+                        break;
+                    }
+                    move = moves.get(i);
+                }
+                if (!inCheck) {
+                    // Delta pruning: even winning the material for free wouldn't be enough to matter
+                    int gain = materialGain(move) + DELTA_MARGIN;
+                    if (maximizing ? standPat + gain <= alpha : standPat - gain >= beta) {
+                        continue;
+                    }
+                }
+                board.makeMove(move);
+                nodesAtDepth[ply]++;
+                countNode();
+                int score = stopped ? 0 : quiescence(board, ply + 1, qDepth - 1, -team, alpha, beta);
+                board.unmakeMove();
+                if (stopped) {
+                    return 0;
+                }
 
-        @Override
-        public int hashCode() {
-            return Objects.hash(fingerprint, occurrences);
+                if (maximizing ? score > bestScore : score < bestScore) {
+                    bestScore = score;
+                }
+                if (maximizing) alpha = Math.max(score, alpha);
+                else beta = Math.min(score, beta);
+                if (beta <= alpha) {
+                    break;
+                }
+            }
+            return bestScore;
         }
-    }
 
-    private static class TranspositionValue {
-        public final MoveCandidate moveCandidate;
-        public final int computedDepth;
+        private int materialGain(int move) {
+            int gain = PackedMove.isCapture(move) ? PIECE_VALUES[PackedMove.getCaptured(move)] : 0;
+            int promotion = PackedMove.getPromotion(move);
+            return promotion == 0 ? gain : gain + PIECE_VALUES[promotion] - Piece.PAWN_CENTIPAWNS;
+        }
 
-        public TranspositionValue(MoveCandidate moveCandidate, int computedDepth) {
-            this.moveCandidate = moveCandidate;
-            this.computedDepth = computedDepth;
+        /**
+         * Order the captures and promotions of a quiescence search by most valuable victim, then least valuable
+         * attacker. Everything else, including captures that lose material, gets SKIPPED_SCORE.
+         */
+        private void sortTacticalMoves(Board board, MoveList moves) {
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                int promotion = PackedMove.getPromotion(move);
+                boolean capture = PackedMove.isCapture(move);
+                int score = SKIPPED_SCORE;
+                // Underpromotions are only worth searching if they capture something
+                if (capture || promotion == PieceType.QUEEN.ordinal()) {
+                    int victim = capture ? PackedMove.getCaptured(move) + 1 : 0;
+                    int attacker = PackedMove.getPieceType(move);
+                    // Capturing a piece at least as valuable as the attacker can't lose material, so skip the SEE
+                    if ((promotion == 0 && victim > attacker) || board.staticExchange(move) >= 0) {
+                        score = victim * 8 + promotion * 64 - attacker;
+                    }
+                }
+                moves.setScore(i, score);
+            }
+            moves.sort();
         }
     }
 }
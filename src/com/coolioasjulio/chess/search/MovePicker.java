@@ -0,0 +1,206 @@
+package com.coolioasjulio.chess.search;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.MoveList;
+import com.coolioasjulio.chess.PackedMove;
+import com.coolioasjulio.chess.pieces.PieceType;
+
+/**
+ * Picks the legal moves of a position one at a time, in the order they are most likely to cause a cutoff.
+ * The moves are generated in stages, so if an early move causes a cutoff, the later ones are never generated:
+ * <ol>
+ * <li>The hash move, which was the best move the last time the position was searched.</li>
+ * <li>Captures and promotions that don't lose material, most valuable victim first, then least valuable attacker.</li>
+ * <li>Two killer moves, which are quiet moves that caused a cutoff in another position at the same ply.</li>
+ * <li>The countermove, which is the quiet move that last refuted the opponent's previous move.</li>
+ * <li>The other quiet moves, by their history score.</li>
+ * <li>Captures that lose material according to static exchange evaluation, and underpromotions.</li>
+ * </ol>
+ * Each legal move is picked exactly once. Instead of sorting each stage, the best remaining move is selected every
+ * time, since usually only the first few moves are needed.
+ */
+public class MovePicker {
+    private static final int HASH_MOVE = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int GOOD_CAPTURES = 2;
+    private static final int FIRST_KILLER = 3;
+    private static final int SECOND_KILLER = 4;
+    private static final int COUNTER_MOVE = 5;
+    private static final int GENERATE_QUIETS = 6;
+    private static final int QUIETS = 7;
+    private static final int BAD_CAPTURES = 8;
+    private static final int DONE = 9;
+
+    private final MoveList moves = new MoveList();
+    private final MoveList badCaptures = new MoveList();
+    private Board board;
+    private int team;
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private int counterMove;
+    private long[][] history;
+    private int stage = DONE;
+    private int index;
+    private int size; // the number of moves of the current stage in the list
+
+    /**
+     * Start picking the moves of a position. The hint moves are checked for legality, so they can come from other
+     * positions or from a transposition table.
+     *
+     * @param board        The board to pick moves for. Moves may be made on it between picks, but must be unmade
+     *                     before the next pick.
+     * @param team         The team to move.
+     * @param hashMove     The move to pick first, or PackedMove.NONE. Only the lowest 16 bits are used.
+     * @param firstKiller  The first killer move, or PackedMove.NONE.
+     * @param secondKiller The second killer move, or PackedMove.NONE.
+     * @param counterMove  The countermove, or PackedMove.NONE.
+     * @param history      The history scores of the team, indexed by start square and then end square.
+     */
+    public void init(Board board, int team, int hashMove, int firstKiller, int secondKiller, int counterMove,
+                     long[][] history) {
+        this.board = board;
+        this.team = team;
+        this.hashMove = hashMove;
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+        this.counterMove = counterMove;
+        this.history = history;
+        stage = HASH_MOVE;
+    }
+
+    /**
+     * Pick the next move.
+     *
+     * @return The next packed move, see {@link PackedMove}, or PackedMove.NONE if all moves have been picked.
+     */
+    public int next() {
+        while (true) {
+            switch (stage) {
+                case HASH_MOVE:
+                    stage = GENERATE_CAPTURES;
+                    hashMove = board.findLegalMove(team, hashMove);
+                    if (hashMove != PackedMove.NONE) {
+                        return hashMove;
+                    }
+                    break;
+                case GENERATE_CAPTURES:
+                    board.generateTacticalMoves(team, moves);
+                    scoreCaptures();
+                    index = 0;
+                    stage = GOOD_CAPTURES;
+                    break;
+                case GOOD_CAPTURES:
+                    while (index < size) {
+                        int move = selectBest();
+                        if (move != hashMove) {
+                            return move;
+                        }
+                    }
+                    stage = FIRST_KILLER;
+                    break;
+                case FIRST_KILLER:
+                    stage = SECOND_KILLER;
+                    firstKiller = findQuietMove(firstKiller);
+                    if (firstKiller != PackedMove.NONE) {
+                        return firstKiller;
+                    }
+                    break;
+                case SECOND_KILLER:
+                    stage = COUNTER_MOVE;
+                    secondKiller = findQuietMove(secondKiller);
+                    if (secondKiller != PackedMove.NONE && secondKiller != firstKiller) {
+                        return secondKiller;
+                    }
+                    break;
+                case COUNTER_MOVE:
+                    stage = GENERATE_QUIETS;
+                    counterMove = findQuietMove(counterMove);
+                    if (counterMove != PackedMove.NONE && counterMove != firstKiller && counterMove != secondKiller) {
+                        return counterMove;
+                    }
+                    break;
+                case GENERATE_QUIETS:
+                    board.generateQuietMoves(team, moves);
+                    for (int i = 0; i < moves.size(); i++) {
+                        int move = moves.get(i);
+                        long score = history[PackedMove.getFrom(move)][PackedMove.getTo(move)];
+                        moves.setScore(i, (int) Math.min(score, Integer.MAX_VALUE));
+                    }
+                    size = moves.size();
+                    index = 0;
+                    stage = QUIETS;
+                    break;
+                case QUIETS:
+                    while (index < size) {
+                        int move = selectBest();
+                        if (move != hashMove && move != firstKiller && move != secondKiller && move != counterMove) {
+                            return move;
+                        }
+                    }
+                    index = 0;
+                    stage = BAD_CAPTURES;
+                    break;
+                case BAD_CAPTURES:
+                    while (index < badCaptures.size()) {
+                        int move = badCaptures.get(index++);
+                        if (move != hashMove) {
+                            return move;
+                        }
+                    }
+                    stage = DONE;
+                    break;
+                default:
+                    return PackedMove.NONE;
+            }
+        }
+    }
+
+    /**
+     * Score the captures and promotions, and move the ones that lose material to the bad captures.
+     * The good ones are moved to the start of the list.
+     */
+    private void scoreCaptures() {
+        badCaptures.clear();
+        int good = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int promotion = PackedMove.getPromotion(move);
+            int victim = PackedMove.isCapture(move) ? PackedMove.getCaptured(move) + 1 : 0;
+            int attacker = PackedMove.getPieceType(move);
+            // Capturing a piece at least as valuable as the attacker can't lose material, so skip the SEE
+            boolean bad = (promotion != 0 && promotion != PieceType.QUEEN.ordinal())
+                    || ((promotion != 0 || victim <= attacker) && board.staticExchange(move) < 0);
+            if (bad) {
+                badCaptures.add(move);
+            } else {
+                moves.swap(good, i);
+                moves.setScore(good, victim * 8 + promotion * 64 - attacker);
+                good++;
+            }
+        }
+        size = good;
+    }
+
+    private int findQuietMove(int move) {
+        if (move == PackedMove.NONE || (move & 0xFFFF) == (hashMove & 0xFFFF)) {
+            return PackedMove.NONE;
+        }
+        move = board.findLegalMove(team, move);
+        return PackedMove.isCapture(move) || PackedMove.getPromotion(move) != 0 ? PackedMove.NONE : move;
+    }
+
+    /**
+     * Move the best scored move from the current index onwards to the current index, and pick it.
+     */
+    private int selectBest() {
+        int best = index;
+        for (int i = index + 1; i < size; i++) {
+            if (moves.getScore(i) > moves.getScore(best)) {
+                best = i;
+            }
+        }
+        moves.swap(index, best);
+        return moves.get(index++);
+    }
+}
@@ -0,0 +1,107 @@
+package com.coolioasjulio.chess.search;
+
+import com.coolioasjulio.chess.Move;
+import com.coolioasjulio.chess.PackedMove;
+import com.coolioasjulio.chess.Score;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The result of one completed iteration of a search.
+ */
+public class SearchInfo {
+    private final int depth;
+    private final int selectiveDepth;
+    private final int score;
+    private final long nodes;
+    private final long nanos;
+    private final int hashfull;
+    private final int[] pv;
+
+    /**
+     * Create the result of an iteration.
+     *
+     * @param depth          The depth of the iteration, in plies.
+     * @param selectiveDepth The deepest ply reached, including the quiescence search.
+     * @param score          The score of the position in centipawns, from the perspective of the searching player.
+     *                       Mates are scored by their distance from the root, see {@link Score}.
+     * @param nodes          The number of nodes searched since the search started.
+     * @param nanos          The time since the search started, in nanoseconds.
+     * @param hashfull       How full the transposition table is, in entries per thousand.
+     * @param pv             The principal variation, as packed moves, see {@link PackedMove}.
+     */
+    public SearchInfo(int depth, int selectiveDepth, int score, long nodes, long nanos, int hashfull, int[] pv) {
+        this.depth = depth;
+        this.selectiveDepth = selectiveDepth;
+        this.score = score;
+        this.nodes = nodes;
+        this.nanos = nanos;
+        this.hashfull = hashfull;
+        this.pv = pv.clone();
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getSelectiveDepth() {
+        return selectiveDepth;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public long getNodesPerSecond() {
+        return nanos == 0 ? 0 : (long) (nodes * 1e9 / nanos);
+    }
+
+    public int getHashfull() {
+        return hashfull;
+    }
+
+    /**
+     * Get the principal variation, which is the line the search expects both teams to play.
+     *
+     * @return A copy of the line, as packed moves, see {@link PackedMove}. The first move is the best move.
+     */
+    public int[] getPackedPv() {
+        return pv.clone();
+    }
+
+    /**
+     * Get the principal variation, which is the line the search expects both teams to play.
+     *
+     * @return A new list of the moves of the line. The first move is the best move.
+     */
+    public List<Move> getPv() {
+        List<Move> moves = new ArrayList<>(pv.length);
+        for (int move : pv) {
+            moves.add(PackedMove.toMove(move));
+        }
+        return moves;
+    }
+
+    @Override
+    public String toString() {
+        String scoreString = Score.isMate(score) ? "mate " + Score.toMateMoves(score) : "cp " + score;
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                "depth %d seldepth %d score %s nodes %d time %d nps %d hashfull %d pv",
+                depth, selectiveDepth, scoreString, nodes, nanos / 1_000_000, getNodesPerSecond(), hashfull));
+        for (int move : pv) {
+            sb.append(' ').append(PackedMove.toString(move));
+        }
+        return sb.toString();
+    }
+
+}
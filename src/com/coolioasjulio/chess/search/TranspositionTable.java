@@ -0,0 +1,197 @@
+package com.coolioasjulio.chess.search;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size transposition table backed by a long array, so it doesn't create any objects after construction.
+ * Each entry is two longs: the 64-bit key of the position XORed with the data, and the packed data, which is:
+ * <pre>
+ * bits  0-15: best move, see {@link #getMove(long)}
+ * bits 16-47: score, in centipawns, see {@link com.coolioasjulio.chess.Score}
+ * bits 48-55: search depth, offset by 128 so negative depths can be stored
+ * bits 56-57: bound type, one of EXACT, LOWER_BOUND or UPPER_BOUND
+ * bits 58-63: age of the search that stored the entry
+ * </pre>
+ * Entries are grouped into buckets of 4, which fit in one cache line. When a bucket is full, the shallowest entry
+ * is replaced, with entries from older searches treated as shallower. This means entries are kept between searches,
+ * but are gradually replaced with more relevant ones.
+ * <p>
+ * The table can be shared between search threads without locking. The key is stored XORed with the data, so if two
+ * threads write the same entry at once and the key of one ends up with the data of the other, the entry doesn't
+ * match either key and is ignored, instead of returning the data of the wrong position.
+ */
+public class TranspositionTable {
+    /**
+     * The stored score is the exact score of the position.
+     */
+    public static final int EXACT = 1;
+    /**
+     * The search failed high, so the score of the position is at least the stored score.
+     */
+    public static final int LOWER_BOUND = 2;
+    /**
+     * The search failed low, so the score of the position is at most the stored score.
+     */
+    public static final int UPPER_BOUND = 3;
+
+    private static final int BUCKET_SIZE = 4;
+    private static final int ENTRY_BYTES = 16;
+    private static final int AGE_MASK = 63;
+
+    /**
+     * Get the move stored in a probed entry.
+     *
+     * @param entry The entry returned by {@link #probe(long)}.
+     * @return The move, as the start square, end square and promotion packed into 16 bits.
+     */
+    public static int getMove(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    public static int getScore(long entry) {
+        return (int) (entry >>> 16);
+    }
+
+    public static int getDepth(long entry) {
+        return (int) ((entry >>> 48) & 0xFF) - 128;
+    }
+
+    public static int getBound(long entry) {
+        return (int) ((entry >>> 56) & 3);
+    }
+
+    private static int getAge(long entry) {
+        return (int) (entry >>> 58);
+    }
+
+    private long[] table;
+    private int bucketMask;
+    private int sizeMB;
+    private int age;
+
+    /**
+     * Create a transposition table that uses approximately the specified amount of memory.
+     *
+     * @param sizeMB The memory budget, in megabytes. The actual size is rounded down to a power of two.
+     */
+    public TranspositionTable(int sizeMB) {
+        resize(sizeMB);
+    }
+
+    /**
+     * Resize the table to use approximately the specified amount of memory. This clears the table.
+     *
+     * @param sizeMB The memory budget, in megabytes. The actual size is rounded down to a power of two.
+     */
+    public void resize(int sizeMB) {
+        if (sizeMB < 1) {
+            throw new IllegalArgumentException("Size must be at least 1 MB!");
+        }
+        long buckets = Long.highestOneBit(((long) sizeMB << 20) / (ENTRY_BYTES * BUCKET_SIZE));
+        // Arrays are indexed by int, so cap the size
+        buckets = Math.min(buckets, 1L << 27);
+        this.sizeMB = sizeMB;
+        // Drop the old table first, so both don't have to fit in memory at once
+        table = null;
+        table = new long[(int) buckets * BUCKET_SIZE * 2];
+        bucketMask = (int) buckets - 1;
+        age = 0;
+    }
+
+    public int getSizeMB() {
+        return sizeMB;
+    }
+
+    /**
+     * Remove all entries from the table.
+     */
+    public void clear() {
+        Arrays.fill(table, 0);
+        age = 0;
+    }
+
+    /**
+     * Notify the table that a new search is starting. Entries from previous searches will be preferred for replacement.
+     */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * Look up a position in the table.
+     *
+     * @param key The key of the position.
+     * @return The packed entry, to be unpacked with the static getters, or 0 if the position isn't in the table.
+     */
+    public long probe(long key) {
+        int index = bucketIndex(key);
+        for (int i = index; i < index + BUCKET_SIZE * 2; i += 2) {
+            long data = table[i + 1];
+            if (data != 0 && (table[i] ^ data) == key) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Store the result of a search in the table.
+     *
+     * @param key   The key of the position.
+     * @param move  The best move, packed as returned by {@link #getMove(long)}, or 0 if unknown.
+     * @param score The score of the position, in centipawns. Mate scores should be relative to the position, so they
+     *              are still correct if the position is reached at another ply.
+     * @param depth The depth the position was searched to. Must be in range [-128, 127].
+     * @param bound The type of the score. One of EXACT, LOWER_BOUND or UPPER_BOUND.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = bucketIndex(key);
+        int replace = -1;
+        int worstValue = Integer.MAX_VALUE;
+        for (int i = index; i < index + BUCKET_SIZE * 2; i += 2) {
+            long data = table[i + 1];
+            if (data == 0 || (table[i] ^ data) == key) {
+                if (data != 0 && move == 0) {
+                    // Don't lose the best move if this search didn't find one
+                    move = getMove(data);
+                }
+                replace = i;
+                break;
+            }
+            int value = getDepth(data) - 8 * ((age - getAge(data)) & AGE_MASK);
+            if (value < worstValue) {
+                worstValue = value;
+                replace = i;
+            }
+        }
+
+        long data = (move & 0xFFFFL)
+                | (score & 0xFFFFFFFFL) << 16
+                | (long) (depth + 128) << 48
+                | (long) bound << 56
+                | (long) age << 58;
+        table[replace] = key ^ data;
+        table[replace + 1] = data;
+    }
+
+    /**
+     * Get how full the table is, by sampling the first entries.
+     *
+     * @return The number of entries per thousand which were stored during the current search.
+     */
+    public int hashfull() {
+        int count = 0;
+        int samples = Math.min(1000, table.length / 2);
+        for (int i = 0; i < samples; i++) {
+            long data = table[i * 2 + 1];
+            if (data != 0 && getAge(data) == age) {
+                count++;
+            }
+        }
+        return count * 1000 / samples;
+    }
+
+    private int bucketIndex(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_SIZE * 2;
+    }
+}
@@ -0,0 +1,222 @@
+package com.coolioasjulio.chess.tournament;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.players.MinimaxComputerPlayer;
+import com.coolioasjulio.chess.players.Player;
+import com.coolioasjulio.chess.players.PositionalComputerPlayer;
+import com.coolioasjulio.chess.players.PrunedMinimaxComputerPlayer;
+
+/**
+ * A configured computer player that can play in a {@link Tournament}. Every thread of a tournament creates its own
+ * players, and reuses them for all of its games.
+ */
+public class Engine {
+    // Many engines search at once in a tournament, so they get smaller transposition tables by default
+    private static final int DEFAULT_HASH_SIZE_MB = 16;
+
+    private final String name;
+    private final Function<Board, Player> factory;
+    private final ObjIntConsumer<Player> moveTimeSetter;
+
+    /**
+     * Create an engine whose players can't be given a time limit.
+     *
+     * @param name    The name of the engine, for the results.
+     * @param factory Creates a player on the specified board.
+     */
+    public Engine(String name, Function<Board, Player> factory) {
+        this(name, factory, null);
+    }
+
+    /**
+     * Create an engine.
+     *
+     * @param name           The name of the engine, for the results.
+     * @param factory        Creates a player on the specified board.
+     * @param moveTimeSetter Sets the time limit of the next move of a player, in milliseconds, or null if the players
+     *                       can't be given a time limit.
+     */
+    public Engine(String name, Function<Board, Player> factory, ObjIntConsumer<Player> moveTimeSetter) {
+        this.name = name;
+        this.factory = factory;
+        this.moveTimeSetter = moveTimeSetter;
+    }
+
+    /**
+     * Create an engine from a specification, which is the type of player followed by its options. For example:
+     * <pre>
+     * pruned:depth=6,hash=32,nmp=false
+     * minimax:depth=2,keep=1
+     * positional
+     * </pre>
+     * The options of each type are:
+     * <ul>
+     * <li>pruned: depth, qdepth, time, nodes, nmp, lmr, futility, threads and hash, which are the settings of
+     * {@link PrunedMinimaxComputerPlayer}. The hash size defaults to 16 MB. With a time control, the depth should be
+     * large, so that the time limit ends the search.</li>
+     * <li>minimax: depth, keep and pruning, which are the settings of {@link MinimaxComputerPlayer}.</li>
+     * <li>positional: no options.</li>
+     * </ul>
+     * Every type also accepts a name. By default, the name is the specification.
+     *
+     * @param spec The specification.
+     * @return The engine.
+     * @throws IllegalArgumentException If the specification is malformed.
+     */
+    public static Engine parse(String spec) {
+        String[] parts = spec.split(":", 2);
+        Map<String, String> options = new LinkedHashMap<>();
+        if (parts.length == 2 && !parts[1].isEmpty()) {
+            for (String option : parts[1].split(",")) {
+                String[] keyValue = option.split("=", 2);
+                if (keyValue.length != 2) {
+                    throw new IllegalArgumentException("Invalid engine option: " + option);
+                }
+                options.put(keyValue[0], keyValue[1]);
+            }
+        }
+        String name = options.containsKey("name") ? options.remove("name") : spec;
+
+        switch (parts[0]) {
+            case "pruned":
+                checkOptions(options, "depth", "qdepth", "time", "nodes", "nmp", "lmr", "futility", "threads",
+                        "hash");
+                return new Engine(name, board -> createPrunedPlayer(board, options),
+                        (player, millis) -> ((PrunedMinimaxComputerPlayer) player).setTimeLimit(millis));
+            case "minimax":
+                checkOptions(options, "depth", "keep", "pruning");
+                return new Engine(name, board -> createMinimaxPlayer(board, options));
+            case "positional":
+                checkOptions(options);
+                return new Engine(name, PositionalComputerPlayer::new);
+            default:
+                throw new IllegalArgumentException("Unknown engine type: " + parts[0]);
+        }
+    }
+
+    private static Player createPrunedPlayer(Board board, Map<String, String> options) {
+        // The table is created with its size, since creating the default one first would waste a lot of memory
+        int hashSize = options.containsKey("hash") ? parseInt(options.get("hash")) : DEFAULT_HASH_SIZE_MB;
+        PrunedMinimaxComputerPlayer player = new PrunedMinimaxComputerPlayer(board, hashSize);
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            String value = option.getValue();
+            switch (option.getKey()) {
+                case "depth":
+                    player.setSearchDepth(parseInt(value));
+                    break;
+                case "qdepth":
+                    player.setQuiescenceDepth(parseInt(value));
+                    break;
+                case "time":
+                    player.setTimeLimit(parseInt(value));
+                    break;
+                case "nodes":
+                    player.setNodeLimit(parseInt(value));
+                    break;
+                case "nmp":
+                    player.setNullMovePruning(parseBoolean(value));
+                    break;
+                case "lmr":
+                    player.setLateMoveReductions(parseBoolean(value));
+                    break;
+                case "futility":
+                    player.setFutilityPruning(parseBoolean(value));
+                    break;
+                case "threads":
+                    player.setThreads(parseInt(value));
+                    break;
+            }
+        }
+        return player;
+    }
+
+    private static Player createMinimaxPlayer(Board board, Map<String, String> options) {
+        MinimaxComputerPlayer player = new MinimaxComputerPlayer(board);
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            String value = option.getValue();
+            switch (option.getKey()) {
+                case "depth":
+                    player.setSearchDepth(parseInt(value));
+                    break;
+                case "keep":
+                    player.setKeepMoves(parseInt(value));
+                    break;
+                case "pruning":
+                    player.setPruning(parseBoolean(value));
+                    break;
+            }
+        }
+        return player;
+    }
+
+    private static void checkOptions(Map<String, String> options, String... allowed) {
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            boolean found = false;
+            for (String key : allowed) {
+                found |= key.equals(option.getKey());
+            }
+            if (!found) {
+                throw new IllegalArgumentException("Unknown engine option: " + option.getKey());
+            }
+            // Check the values now, instead of when the players are created on the tournament threads
+            if (option.getKey().equals("nmp") || option.getKey().equals("lmr")
+                    || option.getKey().equals("futility") || option.getKey().equals("pruning")) {
+                parseBoolean(option.getValue());
+            } else {
+                parseInt(option.getValue());
+            }
+        }
+    }
+
+    private static int parseInt(String value) {
+        try {
+            int i = Integer.parseInt(value);
+            if (i < 0) {
+                throw new IllegalArgumentException("Engine option must not be negative: " + value);
+            }
+            return i;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid engine option value: " + value);
+        }
+    }
+
+    private static boolean parseBoolean(String value) {
+        if (value.equals("true") || value.equals("false")) {
+            return Boolean.parseBoolean(value);
+        }
+        throw new IllegalArgumentException("Invalid engine option value: " + value);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Create a player of this engine.
+     *
+     * @param board The board the player will play on.
+     * @return The new player.
+     */
+    public Player createPlayer(Board board) {
+        return factory.apply(board);
+    }
+
+    /**
+     * Get the function that sets the time limit of the next move of a player of this engine.
+     *
+     * @return The function, or null if the players of this engine can't be given a time limit.
+     */
+    public ObjIntConsumer<Player> getMoveTimeSetter() {
+        return moveTimeSetter;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
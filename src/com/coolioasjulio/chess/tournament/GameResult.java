@@ -0,0 +1,144 @@
+package com.coolioasjulio.chess.tournament;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.coolioasjulio.chess.Move;
+import com.coolioasjulio.chess.pgn.PgnGame;
+import com.coolioasjulio.chess.pieces.Piece;
+
+/**
+ * The result of a game played by a {@link HeadlessChessGame}.
+ */
+public class GameResult {
+    /**
+     * The reason a game ended.
+     */
+    public enum Termination {
+        CHECKMATE,
+        STALEMATE,
+        REPETITION,
+        FIFTY_MOVE_RULE,
+        INSUFFICIENT_MATERIAL,
+        /**
+         * The game reached the maximum number of plies, and was adjudicated as a draw.
+         */
+        MOVE_LIMIT,
+        /**
+         * One team was far enough ahead in material for long enough that the game was adjudicated as a win.
+         */
+        ADJUDICATION,
+        TIME_FORFEIT,
+        /**
+         * A player made an illegal move, or failed to make a move at all.
+         */
+        ILLEGAL_MOVE,
+        /**
+         * The game was interrupted before it ended, so it has no result.
+         */
+        INTERRUPTED
+    }
+
+    private final int winner;
+    private final Termination termination;
+    private final String startFen;
+    private final List<Move> moves;
+
+    /**
+     * Create the result of a game.
+     *
+     * @param winner      The team that won, or 0 for a draw.
+     * @param termination The reason the game ended.
+     * @param startFen    The position the game started from.
+     * @param moves       The moves of the game, from first to last.
+     */
+    public GameResult(int winner, Termination termination, String startFen, List<Move> moves) {
+        this.winner = winner;
+        this.termination = termination;
+        this.startFen = startFen;
+        this.moves = new ArrayList<>(moves);
+    }
+
+    public int getWinner() {
+        return winner;
+    }
+
+    public Termination getTermination() {
+        return termination;
+    }
+
+    public String getStartFen() {
+        return startFen;
+    }
+
+    /**
+     * Get the moves of the game.
+     *
+     * @return A new list of the moves, from first to last.
+     */
+    public List<Move> getMoves() {
+        return new ArrayList<>(moves);
+    }
+
+    public boolean isInterrupted() {
+        return termination == Termination.INTERRUPTED;
+    }
+
+    /**
+     * Get the score of a team, which is 1 for a win, 0.5 for a draw and 0 for a loss.
+     *
+     * @param team The team to get the score of.
+     * @return The score of the team.
+     */
+    public double getScore(int team) {
+        return winner == 0 ? 0.5 : winner == team ? 1 : 0;
+    }
+
+    /**
+     * Get the result in the usual notation.
+     *
+     * @return 1-0, 0-1, 1/2-1/2, or * if the game was interrupted.
+     */
+    public String getResultString() {
+        if (isInterrupted()) {
+            return "*";
+        }
+        return winner == Piece.WHITE ? "1-0" : winner == Piece.BLACK ? "0-1" : "1/2-1/2";
+    }
+
+    /**
+     * Get the game as a PGN game, which can be written with a {@link com.coolioasjulio.chess.pgn.PgnWriter}.
+     *
+     * @param tags The tags of the game, such as the players. The result and the Termination tag are added.
+     * @return The game.
+     */
+    public PgnGame toPgnGame(Map<String, String> tags) {
+        Map<String, String> allTags = new LinkedHashMap<>(tags);
+        allTags.put("Result", getResultString());
+        allTags.put("Termination", getPgnTermination());
+        return PgnGame.fromMoves(allTags, startFen, moves);
+    }
+
+    private String getPgnTermination() {
+        switch (termination) {
+            case MOVE_LIMIT:
+            case ADJUDICATION:
+                return "adjudication";
+            case TIME_FORFEIT:
+                return "time forfeit";
+            case ILLEGAL_MOVE:
+                return "rules infraction";
+            case INTERRUPTED:
+                return "unterminated";
+            default:
+                return "normal";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getResultString() + " (" + termination.toString().toLowerCase().replace('_', ' ') + ")";
+    }
+}
@@ -0,0 +1,230 @@
+package com.coolioasjulio.chess.tournament;
+
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+import java.util.logging.Logger;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.ChessGame;
+import com.coolioasjulio.chess.Move;
+import com.coolioasjulio.chess.PackedMove;
+import com.coolioasjulio.chess.heuristics.Heuristic;
+import com.coolioasjulio.chess.heuristics.MaterialHeuristic;
+import com.coolioasjulio.chess.pieceevaluators.VanillaPieceEvaluator;
+import com.coolioasjulio.chess.pieces.Piece;
+import com.coolioasjulio.chess.pieces.PieceType;
+import com.coolioasjulio.chess.players.Player;
+
+/**
+ * A chess game that isn't rendered, for playing computer players against each other as fast as possible.
+ * Unlike {@link ChessGame#playGame(Player, Player)}, an illegal move loses the game instead of being retried, so the
+ * board never has to be saved and restored. The game also ends by the rules of chess that ChessGame doesn't check,
+ * and can be adjudicated:
+ * <ul>
+ * <li>As a draw by threefold repetition, the fifty move rule or insufficient material.</li>
+ * <li>As a draw once it reaches the maximum number of plies.</li>
+ * <li>As a win for a team that is ahead by at least the resign score in material for enough consecutive plies.</li>
+ * <li>As a loss for a team that runs out of time, if there is a time control.</li>
+ * </ul>
+ */
+public class HeadlessChessGame extends ChessGame {
+    private static final Logger logger = Logger.getLogger("HeadlessChessGame");
+    private static final int DEFAULT_MAX_PLIES = 400;
+    private static final int DEFAULT_RESIGN_SCORE = 1000;
+    private static final int DEFAULT_RESIGN_PLIES = 8;
+
+    private final Heuristic materialHeuristic = new MaterialHeuristic(0, new VanillaPieceEvaluator());
+    private final String startFen;
+    private int maxPlies = DEFAULT_MAX_PLIES;
+    private int resignScore = DEFAULT_RESIGN_SCORE;
+    private int resignPlies = DEFAULT_RESIGN_PLIES;
+    private TimeControl timeControl;
+    private ObjIntConsumer<Player> moveTimeSetter;
+    private GameResult result;
+
+    /**
+     * Create a game from a position.
+     *
+     * @param fen The position to start from, in Forsyth-Edwards Notation.
+     */
+    public HeadlessChessGame(String fen) {
+        super(Board.fromFEN(fen), 0);
+        startFen = fen;
+    }
+
+    public int getMaxPlies() {
+        return maxPlies;
+    }
+
+    /**
+     * Set the maximum length of the game. Once it is reached, the game is adjudicated as a draw.
+     *
+     * @param maxPlies The maximum number of plies, or 0 for no limit.
+     */
+    public void setMaxPlies(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Set when the game is adjudicated as a win. Material is counted with the vanilla piece values.
+     *
+     * @param resignScore The material lead, in centipawns, at which the team that is behind resigns. If 0, games are
+     *                    never adjudicated as a win.
+     * @param resignPlies The number of consecutive plies the lead must last for.
+     */
+    public void setResignAdjudication(int resignScore, int resignPlies) {
+        this.resignScore = resignScore;
+        this.resignPlies = resignPlies;
+    }
+
+    /**
+     * Set the time control of the game.
+     *
+     * @param timeControl    The time control, or null for no time control.
+     * @param moveTimeSetter Called before each move with the player to move and the time it should spend on the move,
+     *                       in milliseconds, so the player can set its own limit. May be null if the players can't be
+     *                       limited.
+     */
+    public void setTimeControl(TimeControl timeControl, ObjIntConsumer<Player> moveTimeSetter) {
+        this.timeControl = timeControl;
+        this.moveTimeSetter = moveTimeSetter;
+    }
+
+    /**
+     * Get the result of the game.
+     *
+     * @return The result, or null if the game hasn't been played.
+     */
+    public GameResult getResult() {
+        return result;
+    }
+
+    @Override
+    protected String getResultString() {
+        return result == null ? super.getResultString() : result.getResultString();
+    }
+
+    /**
+     * Play the game to the end on this thread. The game stops early if this thread is interrupted.
+     *
+     * @param white The white player.
+     * @param black The black player.
+     * @return The team that won, or 0 for a draw. The details are available from {@link #getResult()}.
+     */
+    @Override
+    public int playGame(Player white, Player black) {
+        white.setTeam(Piece.WHITE);
+        black.setTeam(Piece.BLACK);
+        long[] clocks = new long[2];
+        if (timeControl != null) {
+            clocks[0] = clocks[1] = timeControl.getBaseMillis() * 1_000_000L;
+        }
+        int team = board.getTeamToMove();
+        int adjudicationTeam = 0;
+        int adjudicationPlies = 0;
+
+        while (result == null) {
+            if (Thread.currentThread().isInterrupted()) {
+                endGame(0, GameResult.Termination.INTERRUPTED);
+                break;
+            }
+            if (board.getLegalMoveCount(team) == 0) {
+                if (board.inCheck(team)) {
+                    endGame(-team, GameResult.Termination.CHECKMATE);
+                } else {
+                    endGame(0, GameResult.Termination.STALEMATE);
+                }
+                break;
+            } else if (board.isDrawByThreeFoldRepetition()) {
+                endGame(0, GameResult.Termination.REPETITION);
+                break;
+            } else if (board.isDrawByFiftyMoveRule()) {
+                endGame(0, GameResult.Termination.FIFTY_MOVE_RULE);
+                break;
+            } else if (isInsufficientMaterial()) {
+                endGame(0, GameResult.Termination.INSUFFICIENT_MATERIAL);
+                break;
+            } else if (maxPlies > 0 && moves.size() >= maxPlies) {
+                endGame(0, GameResult.Termination.MOVE_LIMIT);
+                break;
+            }
+
+            if (resignScore > 0) {
+                int score = materialHeuristic.getCentipawnScore(board, Piece.WHITE);
+                int leader = score >= resignScore ? Piece.WHITE : score <= -resignScore ? Piece.BLACK : 0;
+                adjudicationPlies = leader != 0 && leader == adjudicationTeam ? adjudicationPlies + 1 : 1;
+                adjudicationTeam = leader;
+                if (leader != 0 && adjudicationPlies >= resignPlies) {
+                    endGame(leader, GameResult.Termination.ADJUDICATION);
+                    break;
+                }
+            }
+
+            onTurnStarted(team);
+            Player toMove = team == Piece.WHITE ? white : black;
+            int clock = team == Piece.WHITE ? 0 : 1;
+            if (timeControl != null && moveTimeSetter != null) {
+                moveTimeSetter.accept(toMove, timeControl.getMoveTime(clocks[clock] / 1_000_000L));
+            }
+
+            long start = System.nanoTime();
+            int move;
+            try {
+                Move m = toMove.getMove();
+                move = m == null ? PackedMove.NONE : board.findLegalMove(team, PackedMove.fromMove(board, m));
+            } catch (RuntimeException e) {
+                logger.warning("Player failed to move: " + e);
+                move = PackedMove.NONE;
+            }
+            // The search may have been cut short, so the move doesn't count
+            if (Thread.currentThread().isInterrupted()) {
+                endGame(0, GameResult.Termination.INTERRUPTED);
+                break;
+            }
+            if (timeControl != null) {
+                clocks[clock] -= System.nanoTime() - start;
+                if (clocks[clock] < 0) {
+                    endGame(-team, GameResult.Termination.TIME_FORFEIT);
+                    break;
+                }
+                clocks[clock] += timeControl.getIncrementMillis() * 1_000_000L;
+            }
+            if (move == PackedMove.NONE) {
+                endGame(-team, GameResult.Termination.ILLEGAL_MOVE);
+                break;
+            }
+
+            board.makeMove(move);
+            moves.add(PackedMove.toMove(move));
+            team = -team;
+            onTurnEnded(-team, board.inCheck(team));
+        }
+
+        return result.getWinner();
+    }
+
+    private void endGame(int winner, GameResult.Termination termination) {
+        result = new GameResult(winner, termination, startFen, moves);
+    }
+
+    /**
+     * Check if neither team can checkmate, because only kings and at most one knight or bishop are left.
+     */
+    private boolean isInsufficientMaterial() {
+        if (Long.bitCount(board.getOccupancy()) > 3) {
+            return false;
+        }
+        for (Piece piece : board.getPieces()) {
+            PieceType type = piece.getPieceType();
+            if (type != PieceType.KING && type != PieceType.KNIGHT && type != PieceType.BISHOP) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void draw(List<Piece> toDraw) {
+        // Headless games are never drawn
+    }
+}
@@ -0,0 +1,120 @@
+package com.coolioasjulio.chess.tournament;
+
+import java.util.Locale;
+
+/**
+ * The wins, draws and losses of one engine against another, and the Elo difference they imply. This is safe to use
+ * from multiple threads.
+ */
+public class MatchStatistics {
+    // The number of standard deviations of a 95% confidence interval
+    private static final double Z_95 = 1.959964;
+
+    private int wins;
+    private int draws;
+    private int losses;
+
+    /**
+     * Add the result of a game.
+     *
+     * @param score The score of the engine, which is 1 for a win, 0.5 for a draw and 0 for a loss.
+     */
+    public synchronized void add(double score) {
+        if (score == 1) {
+            wins++;
+        } else if (score == 0.5) {
+            draws++;
+        } else if (score == 0) {
+            losses++;
+        } else {
+            throw new IllegalArgumentException("Invalid score: " + score);
+        }
+    }
+
+    public synchronized int getWins() {
+        return wins;
+    }
+
+    public synchronized int getDraws() {
+        return draws;
+    }
+
+    public synchronized int getLosses() {
+        return losses;
+    }
+
+    public synchronized int getGames() {
+        return wins + draws + losses;
+    }
+
+    /**
+     * Get the average score of the engine.
+     *
+     * @return The average score, between 0 and 1, or 0.5 if no games have been played.
+     */
+    public synchronized double getScore() {
+        int games = getGames();
+        return games == 0 ? 0.5 : (wins + draws / 2.0) / games;
+    }
+
+    /**
+     * Get the Elo difference between the engine and its opponent.
+     *
+     * @return The difference, which is positive if the engine is stronger. It is infinite if the engine won or lost
+     * every game.
+     */
+    public synchronized double getEloDifference() {
+        return toElo(getScore());
+    }
+
+    /**
+     * Get the margin of error of the Elo difference, as half the width of its 95% confidence interval.
+     *
+     * @return The margin of error, which is infinite if no games have been played, or the engine won or lost every
+     * game.
+     */
+    public synchronized double getEloError() {
+        int games = getGames();
+        double score = getScore();
+        if (games == 0 || score == 0 || score == 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double variance = (wins * (1 - score) * (1 - score) + draws * (0.5 - score) * (0.5 - score)
+                + losses * score * score) / games;
+        double error = Z_95 * Math.sqrt(variance / games);
+        // Converted with the slope of toElo at the score, since the interval of the score can reach past 0 or 1,
+        // where the Elo difference is infinite
+        return error * 400 / (Math.log(10) * score * (1 - score));
+    }
+
+    /**
+     * Convert an average score to the Elo difference that predicts it.
+     *
+     * @param score The average score, between 0 and 1.
+     * @return The Elo difference.
+     */
+    public static double toElo(double score) {
+        if (score <= 0) {
+            return Double.NEGATIVE_INFINITY;
+        } else if (score >= 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    /**
+     * Convert an Elo difference to the average score it predicts.
+     *
+     * @param elo The Elo difference.
+     * @return The average score, between 0 and 1.
+     */
+    public static double toScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "W/D/L: %d/%d/%d, score %.3f, Elo %+.1f +/- %.1f",
+                wins, draws, losses, getScore(), getEloDifference(), getEloError());
+    }
+}
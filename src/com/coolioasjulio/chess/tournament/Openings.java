@@ -0,0 +1,113 @@
+package com.coolioasjulio.chess.tournament;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.MoveList;
+import com.coolioasjulio.chess.heuristics.Heuristic;
+import com.coolioasjulio.chess.heuristics.MaterialHeuristic;
+import com.coolioasjulio.chess.pieceevaluators.VanillaPieceEvaluator;
+
+/**
+ * The starting positions of the games of a tournament. Computer players are mostly deterministic, so without varied
+ * openings they would play the same few games over and over. Each opening is played twice, once with each engine as
+ * white, so an unbalanced opening favors neither engine.
+ * <p>
+ * Openings are either read from a file, or made by playing random moves from the starting position. Both are
+ * reproducible, since the order of the file and the random moves are determined by a seed.
+ */
+public class Openings {
+    // Random openings that win more material than this are discarded, since they would decide the game
+    private static final int MAX_IMBALANCE = 100;
+
+    private final List<String> positions;
+    private final int randomPlies;
+    private final long seed;
+
+    private Openings(List<String> positions, int randomPlies, long seed) {
+        this.positions = positions;
+        this.randomPlies = randomPlies;
+        this.seed = seed;
+    }
+
+    /**
+     * Create openings by playing random legal moves from the starting position.
+     *
+     * @param plies The number of random plies of each opening.
+     * @param seed  The seed of the random moves.
+     * @return The openings.
+     */
+    public static Openings random(int plies, long seed) {
+        return new Openings(null, plies, seed);
+    }
+
+    /**
+     * Read openings from a file. Each line is a position in Forsyth-Edwards Notation or EPD, and anything after a
+     * semicolon is ignored. Empty lines and lines starting with # are skipped.
+     *
+     * @param file The file to read.
+     * @param seed The seed of the order the openings are played in.
+     * @return The openings.
+     * @throws IOException              If the file can't be read.
+     * @throws IllegalArgumentException If the file has no positions, or a position is malformed.
+     */
+    public static Openings fromFile(Path file, long seed) throws IOException {
+        List<String> positions = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            line = line.split(";")[0].trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\s+");
+            // EPD has the operations instead of the move counters
+            if (fields.length > 4 && !fields[4].matches("\\d+")) {
+                line = String.join(" ", fields[0], fields[1], fields[2], fields[3]);
+            }
+            Board.fromFEN(line);
+            positions.add(line);
+        }
+        if (positions.isEmpty()) {
+            throw new IllegalArgumentException("No openings in " + file);
+        }
+        Collections.shuffle(positions, new Random(seed));
+        return new Openings(positions, 0, seed);
+    }
+
+    /**
+     * Get an opening. This is safe to call from multiple threads.
+     *
+     * @param index The index of the opening. If there are fewer openings, they are repeated.
+     * @return The starting position of the opening, in Forsyth-Edwards Notation.
+     */
+    public String getOpening(int index) {
+        if (positions != null) {
+            return positions.get(index % positions.size());
+        }
+
+        Random random = new Random(seed * 31 + index);
+        Heuristic heuristic = new MaterialHeuristic(0, new VanillaPieceEvaluator());
+        MoveList moves = new MoveList();
+        while (true) {
+            Board board = Board.fromFEN(Board.STARTING_FEN);
+            for (int i = 0; i < randomPlies; i++) {
+                board.generateLegalMoves(board.getTeamToMove(), moves);
+                if (moves.isEmpty()) {
+                    break;
+                }
+                board.makeMove(moves.get(random.nextInt(moves.size())));
+            }
+            int team = board.getTeamToMove();
+            if (board.getLegalMoveCount(team) > 0
+                    && Math.abs(heuristic.getCentipawnScore(board, team)) <= MAX_IMBALANCE) {
+                return board.getFEN();
+            }
+        }
+    }
+}
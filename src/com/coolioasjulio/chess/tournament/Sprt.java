@@ -0,0 +1,162 @@
+package com.coolioasjulio.chess.tournament;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A sequential probability ratio test of whether an engine is stronger than its opponent. Instead of playing a fixed
+ * number of games, the test stops as soon as the results are enough to accept one of two hypotheses:
+ * <ul>
+ * <li>H0: the Elo difference is elo0.</li>
+ * <li>H1: the Elo difference is elo1, which is larger than elo0.</li>
+ * </ul>
+ * The log likelihood ratio (LLR) of the hypotheses is updated after every result, and H1 is accepted once it reaches
+ * the upper bound, or H0 once it reaches the lower bound. The bounds are set by the chances of accepting the wrong
+ * hypothesis, alpha and beta.
+ * <p>
+ * The games of a {@link Tournament} are played in pairs with the same opening, so the results are counted per pair,
+ * as the number of pairs with each total score from 0 to 2. This removes the noise of unbalanced openings, which
+ * typically saves many games. The LLR is the usual normal approximation of the generalized SPRT.
+ * This is safe to use from multiple threads.
+ */
+public class Sprt {
+    /**
+     * The outcome of the test so far.
+     */
+    public enum Result {
+        /**
+         * Neither hypothesis has been accepted yet.
+         */
+        CONTINUE,
+        /**
+         * H0 was accepted, so the engine isn't as strong as elo1.
+         */
+        ACCEPT_H0,
+        /**
+         * H1 was accepted, so the engine isn't as weak as elo0.
+         */
+        ACCEPT_H1
+    }
+
+    // Every pair count gets this pseudo-count when estimating the LLR. Otherwise, if all the pairs have the same
+    // score, such as all 2-0 or all 1-1, the variance is 0 and the LLR can't be estimated, so the test never stops.
+    // It is too small to change the LLR noticeably otherwise.
+    private static final double PSEUDO_COUNT = 1e-3;
+
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+    // The number of pairs with each total score, in half points
+    private final int[] pairs = new int[5];
+    // The scores of the games whose pair hasn't finished yet, by pair
+    private final Map<Integer, Double> pendingGames = new HashMap<>();
+
+    /**
+     * Create a test.
+     *
+     * @param elo0  The Elo difference of H0.
+     * @param elo1  The Elo difference of H1, which must be larger.
+     * @param alpha The chance of accepting H1 when H0 is true.
+     * @param beta  The chance of accepting H0 when H1 is true.
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        if (elo1 <= elo0) {
+            throw new IllegalArgumentException("elo1 must be larger than elo0!");
+        }
+        if (alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1) {
+            throw new IllegalArgumentException("alpha and beta must be between 0 and 1!");
+        }
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        lowerBound = Math.log(beta / (1 - alpha));
+        upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Add the result of a game. Games 2n and 2n + 1 are a pair, which is counted once both have been added.
+     *
+     * @param game  The index of the game in the tournament.
+     * @param score The score of the engine, which is 1 for a win, 0.5 for a draw and 0 for a loss.
+     * @return True if this completed a pair, so the LLR may have changed.
+     */
+    public synchronized boolean addGame(int game, double score) {
+        Double other = pendingGames.remove(game / 2);
+        if (other == null) {
+            pendingGames.put(game / 2, score);
+            return false;
+        }
+        pairs[(int) Math.round((score + other) * 2)]++;
+        return true;
+    }
+
+    public synchronized int getPairs() {
+        int total = 0;
+        for (int count : pairs) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of pairs with each total score.
+     *
+     * @return A new array of the counts, indexed by the total score of the pair in half points, from 0 to 4.
+     */
+    public synchronized int[] getPairCounts() {
+        return pairs.clone();
+    }
+
+    /**
+     * Get the log likelihood ratio of H1 to H0.
+     *
+     * @return The LLR, or 0 if no pairs have finished.
+     */
+    public synchronized double getLlr() {
+        int total = getPairs();
+        if (total == 0) {
+            return 0;
+        }
+        // The mean and variance of the score of a pair, scaled to between 0 and 1
+        double count = total + PSEUDO_COUNT * pairs.length;
+        double mean = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            mean += (pairs[i] + PSEUDO_COUNT) * i / 4.0;
+        }
+        mean /= count;
+        double variance = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            variance += (pairs[i] + PSEUDO_COUNT) * (i / 4.0 - mean) * (i / 4.0 - mean);
+        }
+        variance /= count;
+        double score0 = MatchStatistics.toScore(elo0);
+        double score1 = MatchStatistics.toScore(elo1);
+        return count * (score1 - score0) * (2 * mean - score0 - score1) / (2 * variance);
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    public synchronized Result getResult() {
+        double llr = getLlr();
+        if (llr >= upperBound) {
+            return Result.ACCEPT_H1;
+        } else if (llr <= lowerBound) {
+            return Result.ACCEPT_H0;
+        }
+        return Result.CONTINUE;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "LLR %.2f (%.2f, %.2f) [%.1f, %.1f], pairs %d (%d/%d/%d/%d/%d)",
+                getLlr(), lowerBound, upperBound, elo0, elo1, getPairs(),
+                pairs[0], pairs[1], pairs[2], pairs[3], pairs[4]);
+    }
+}
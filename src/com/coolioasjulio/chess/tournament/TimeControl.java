@@ -0,0 +1,86 @@
+package com.coolioasjulio.chess.tournament;
+
+/**
+ * A clock for each team, which starts with a base time and gains an increment after each move. A team whose clock
+ * runs out loses the game.
+ */
+public class TimeControl {
+    // Players are given enough time per move to make this many more moves
+    private static final int MOVES_TO_GO = 30;
+
+    private final long baseMillis;
+    private final long incrementMillis;
+
+    /**
+     * Create a time control.
+     *
+     * @param baseMillis      The time each team starts with, in milliseconds.
+     * @param incrementMillis The time added to a team's clock after each of its moves, in milliseconds.
+     */
+    public TimeControl(long baseMillis, long incrementMillis) {
+        if (baseMillis <= 0 || incrementMillis < 0) {
+            throw new IllegalArgumentException("Invalid time control: " + baseMillis + "+" + incrementMillis);
+        }
+        this.baseMillis = baseMillis;
+        this.incrementMillis = incrementMillis;
+    }
+
+    /**
+     * Parse a time control in the usual notation, which is the base time and the increment in seconds. For example,
+     * 10+0.1 is 10 seconds plus 0.1 seconds per move.
+     *
+     * @param timeControl The time control. The increment is optional.
+     * @return The parsed time control.
+     * @throws IllegalArgumentException If the time control is malformed.
+     */
+    public static TimeControl parse(String timeControl) {
+        String[] parts = timeControl.split("\\+");
+        try {
+            if (parts.length == 1) {
+                return new TimeControl(Math.round(Double.parseDouble(parts[0]) * 1000), 0);
+            } else if (parts.length == 2) {
+                return new TimeControl(Math.round(Double.parseDouble(parts[0]) * 1000),
+                        Math.round(Double.parseDouble(parts[1]) * 1000));
+            }
+        } catch (NumberFormatException e) {
+            // Handled below
+        }
+        throw new IllegalArgumentException("Invalid time control: " + timeControl);
+    }
+
+    public long getBaseMillis() {
+        return baseMillis;
+    }
+
+    public long getIncrementMillis() {
+        return incrementMillis;
+    }
+
+    /**
+     * Get the time a player should spend on its next move.
+     *
+     * @param remainingMillis The time left on the player's clock, in milliseconds.
+     * @return The time to spend, in milliseconds. It is always at least 1, and at most half of the remaining time.
+     */
+    public int getMoveTime(long remainingMillis) {
+        return getMoveTime(remainingMillis, incrementMillis, 0);
+    }
+
+    /**
+     * Get the time a player should spend on its next move, under any time control.
+     *
+     * @param remainingMillis The time left on the player's clock, in milliseconds.
+     * @param incrementMillis The time added to the player's clock after the move, in milliseconds.
+     * @param movesToGo       The number of moves until more time is added to the clock, or 0 if that never happens.
+     * @return The time to spend, in milliseconds. It is always at least 1, and at most half of the remaining time.
+     */
+    public static int getMoveTime(long remainingMillis, long incrementMillis, int movesToGo) {
+        long time = remainingMillis / (movesToGo > 0 ? movesToGo : MOVES_TO_GO) + incrementMillis * 3 / 4;
+        return (int) Math.max(1, Math.min(time, remainingMillis / 2));
+    }
+
+    @Override
+    public String toString() {
+        return baseMillis / 1000.0 + "+" + incrementMillis / 1000.0;
+    }
+}
@@ -0,0 +1,233 @@
+package com.coolioasjulio.chess.tournament;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjIntConsumer;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.pieces.Piece;
+import com.coolioasjulio.chess.players.Player;
+
+/**
+ * Plays a match between two engines, with many games at once on separate threads. Each thread creates its own
+ * players, and reuses them for every game it plays. The games are played in pairs with the same opening, with the
+ * engines swapping colors.
+ * <p>
+ * The results are from the perspective of the first engine, so a positive Elo difference means it is stronger.
+ */
+public class Tournament {
+    /**
+     * Receives the result of each game of a tournament as it finishes.
+     */
+    public interface Listener {
+        /**
+         * Called when a game finishes. It is called on the thread that played the game, but only one game is
+         * reported at a time.
+         *
+         * @param game            The index of the game, from 0.
+         * @param firstEngineTeam The team the first engine played.
+         * @param result          The result of the game.
+         * @param statistics      The statistics of the match, including this game.
+         */
+        void gameFinished(int game, int firstEngineTeam, GameResult result, MatchStatistics statistics);
+    }
+
+    private static final int DEFAULT_MAX_PLIES = 400;
+    private static final int DEFAULT_RESIGN_SCORE = 1000;
+    private static final int DEFAULT_RESIGN_PLIES = 8;
+
+    private final Engine first;
+    private final Engine second;
+    private final Openings openings;
+    private int concurrency = Runtime.getRuntime().availableProcessors();
+    private TimeControl timeControl;
+    private int maxPlies = DEFAULT_MAX_PLIES;
+    private int resignScore = DEFAULT_RESIGN_SCORE;
+    private int resignPlies = DEFAULT_RESIGN_PLIES;
+    private Listener listener;
+
+    private final MatchStatistics statistics = new MatchStatistics();
+    private ExecutorService pool;
+    private volatile boolean stopped;
+
+    /**
+     * Create a match.
+     *
+     * @param first    The engine the results are reported for.
+     * @param second   Its opponent.
+     * @param openings The openings of the games.
+     */
+    public Tournament(Engine first, Engine second, Openings openings) {
+        this.first = first;
+        this.second = second;
+        this.openings = openings;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Set the number of games played at once. Each game needs a thread for each search thread of its players.
+     *
+     * @param concurrency The number of games. By default, this is the number of processors.
+     */
+    public void setConcurrency(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Concurrency must be at least 1!");
+        }
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Set the time control of each game.
+     *
+     * @param timeControl The time control, or null for no time control.
+     * @see HeadlessChessGame#setTimeControl(TimeControl, ObjIntConsumer)
+     */
+    public void setTimeControl(TimeControl timeControl) {
+        this.timeControl = timeControl;
+    }
+
+    /**
+     * @see HeadlessChessGame#setMaxPlies(int)
+     */
+    public void setMaxPlies(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * @see HeadlessChessGame#setResignAdjudication(int, int)
+     */
+    public void setResignAdjudication(int resignScore, int resignPlies) {
+        this.resignScore = resignScore;
+        this.resignPlies = resignPlies;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public MatchStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Play the games of the match, and wait for them to finish.
+     *
+     * @param games The number of games to play. It should be even, so every opening is played with both colors.
+     * @return The statistics of the match.
+     * @throws InterruptedException If this thread is interrupted while waiting. The match is stopped.
+     */
+    public MatchStatistics play(int games) throws InterruptedException {
+        synchronized (this) {
+            if (pool != null) {
+                throw new IllegalStateException("Tournament has already been played! Create a new instance!");
+            }
+            pool = Executors.newFixedThreadPool(concurrency, r -> {
+                Thread thread = new Thread(r, "Tournament game");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // The match may have been stopped before it started
+            if (stopped) {
+                pool.shutdown();
+                return statistics;
+            }
+        }
+
+        AtomicInteger nextGame = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(pool.submit(() -> playGames(games, nextGame)));
+        }
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            stop();
+            throw e;
+        } catch (ExecutionException e) {
+            stop();
+            throw new RuntimeException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return statistics;
+    }
+
+    /**
+     * Stop the match. Games in progress are abandoned, and aren't counted. This can be called from a listener.
+     */
+    public synchronized void stop() {
+        stopped = true;
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void playGames(int games, AtomicInteger nextGame) {
+        Player firstPlayer = null;
+        Player secondPlayer = null;
+        int game;
+        try {
+            while (!stopped && (game = nextGame.getAndIncrement()) < games) {
+                HeadlessChessGame chessGame = new HeadlessChessGame(openings.getOpening(game / 2));
+                chessGame.setMaxPlies(maxPlies);
+                chessGame.setResignAdjudication(resignScore, resignPlies);
+                Board board = chessGame.getBoard();
+                firstPlayer = preparePlayer(firstPlayer, first, board);
+                secondPlayer = preparePlayer(secondPlayer, second, board);
+                Player p1 = firstPlayer;
+                chessGame.setTimeControl(timeControl, (player, millis) -> {
+                    ObjIntConsumer<Player> setter = (player == p1 ? first : second).getMoveTimeSetter();
+                    if (setter != null) {
+                        setter.accept(player, millis);
+                    }
+                });
+
+                int firstEngineTeam = game % 2 == 0 ? Piece.WHITE : Piece.BLACK;
+                if (firstEngineTeam == Piece.WHITE) {
+                    chessGame.playGame(firstPlayer, secondPlayer);
+                } else {
+                    chessGame.playGame(secondPlayer, firstPlayer);
+                }
+
+                GameResult result = chessGame.getResult();
+                if (result.isInterrupted()) {
+                    break;
+                }
+                synchronized (this) {
+                    statistics.add(result.getScore(firstEngineTeam));
+                    if (listener != null) {
+                        listener.gameFinished(game, firstEngineTeam, result, statistics);
+                    }
+                }
+            }
+        } finally {
+            // The players of this thread are only used for its games
+            if (firstPlayer != null) {
+                firstPlayer.close();
+            }
+            if (secondPlayer != null) {
+                secondPlayer.close();
+            }
+        }
+    }
+
+    private Player preparePlayer(Player player, Engine engine, Board board) {
+        if (player == null) {
+            player = engine.createPlayer(board);
+        } else {
+            player.setBoard(board);
+        }
+        player.newGame();
+        return player;
+    }
+}
@@ -0,0 +1,177 @@
+package com.coolioasjulio.chess.tournament;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.coolioasjulio.chess.pgn.PgnWriter;
+import com.coolioasjulio.chess.pieces.Piece;
+
+/**
+ * Plays a match between two engines without a UI, and reports the results of the first engine.
+ * <p>
+ * Usage:
+ * <pre>
+ * TournamentRunner --engine SPEC --engine SPEC [--games N] [--concurrency N] [--tc BASE+INC]
+ *                  [--openings FILE | --plies N] [--seed N] [--max-plies N] [--resign CENTIPAWNS PLIES]
+ *                  [--sprt ELO0 ELO1 [--alpha A] [--beta B]] [--pgn FILE]
+ * </pre>
+ * The engine specifications are described in {@link Engine#parse(String)}. By default, 100 games are played from
+ * openings of 8 random plies, as many at once as there are processors. The time control is in seconds, for example
+ * 10+0.1, and there is none by default.
+ * <p>
+ * With --sprt, the match stops as soon as a {@link Sprt} accepts or rejects that the first engine is stronger, and
+ * the LLR is printed after each pair of games. The number of games is then only a limit, which defaults to 20000.
+ * Alpha and beta default to 0.05.
+ * <p>
+ * With --pgn, every finished game is written to the file in Portable Game Notation, in the order they finish.
+ */
+public class TournamentRunner {
+    private static final int DEFAULT_GAMES = 100;
+    private static final int DEFAULT_RANDOM_PLIES = 8;
+    private static final int DEFAULT_SPRT_GAMES = 20000;
+    private static final double DEFAULT_SPRT_ERROR = 0.05;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<Engine> engines = new ArrayList<>();
+        Integer games = null;
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        TimeControl timeControl = null;
+        String openingsFile = null;
+        int plies = DEFAULT_RANDOM_PLIES;
+        long seed = new Random().nextLong();
+        Integer maxPlies = null;
+        int[] resign = null;
+        double[] sprtElo = null;
+        double alpha = DEFAULT_SPRT_ERROR;
+        double beta = DEFAULT_SPRT_ERROR;
+        String pgnFile = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--engine":
+                    engines.add(Engine.parse(args[++i]));
+                    break;
+                case "--games":
+                    games = Integer.parseInt(args[++i]);
+                    break;
+                case "--concurrency":
+                    concurrency = Integer.parseInt(args[++i]);
+                    break;
+                case "--tc":
+                    timeControl = TimeControl.parse(args[++i]);
+                    break;
+                case "--openings":
+                    openingsFile = args[++i];
+                    break;
+                case "--plies":
+                    plies = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--max-plies":
+                    maxPlies = Integer.parseInt(args[++i]);
+                    break;
+                case "--resign":
+                    resign = new int[]{Integer.parseInt(args[++i]), Integer.parseInt(args[++i])};
+                    break;
+                case "--sprt":
+                    sprtElo = new double[]{Double.parseDouble(args[++i]), Double.parseDouble(args[++i])};
+                    break;
+                case "--alpha":
+                    alpha = Double.parseDouble(args[++i]);
+                    break;
+                case "--beta":
+                    beta = Double.parseDouble(args[++i]);
+                    break;
+                case "--pgn":
+                    pgnFile = args[++i];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        if (engines.size() != 2) {
+            throw new IllegalArgumentException("Exactly two engines must be given!");
+        }
+        Sprt sprt = sprtElo == null ? null : new Sprt(sprtElo[0], sprtElo[1], alpha, beta);
+        if (games == null) {
+            games = sprt == null ? DEFAULT_GAMES : DEFAULT_SPRT_GAMES;
+        }
+        // The players log every move they search
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        Openings openings = openingsFile == null
+                ? Openings.random(plies, seed)
+                : Openings.fromFile(Paths.get(openingsFile), seed);
+        Tournament tournament = new Tournament(engines.get(0), engines.get(1), openings);
+        tournament.setConcurrency(concurrency);
+        tournament.setTimeControl(timeControl);
+        if (maxPlies != null) {
+            tournament.setMaxPlies(maxPlies);
+        }
+        if (resign != null) {
+            tournament.setResignAdjudication(resign[0], resign[1]);
+        }
+        PgnWriter pgn = pgnFile == null ? null : PgnWriter.open(Paths.get(pgnFile));
+        final int totalGames = games;
+        tournament.setListener((game, firstEngineTeam, result, statistics) -> {
+            String white = engines.get(firstEngineTeam == Piece.WHITE ? 0 : 1).getName();
+            String black = engines.get(firstEngineTeam == Piece.WHITE ? 1 : 0).getName();
+            System.out.printf("Game %d/%d: %s vs %s, %s in %d plies. %s%n", statistics.getGames(), totalGames,
+                    white, black, result, result.getMoves().size(), statistics);
+            if (pgn != null) {
+                Map<String, String> tags = new LinkedHashMap<>();
+                tags.put("Event", "TournamentRunner");
+                tags.put("Round", Integer.toString(game + 1));
+                tags.put("White", white);
+                tags.put("Black", black);
+                try {
+                    pgn.write(result.toPgnGame(tags));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            if (sprt != null && sprt.addGame(game, result.getScore(firstEngineTeam))) {
+                System.out.println("SPRT: " + sprt);
+                if (sprt.getResult() != Sprt.Result.CONTINUE) {
+                    tournament.stop();
+                }
+            }
+        });
+
+        System.out.printf("%s vs %s, %d games, %d at once, time control %s, seed %d%n", engines.get(0),
+                engines.get(1), games, concurrency, timeControl == null ? "none" : timeControl, seed);
+        long start = System.nanoTime();
+        MatchStatistics statistics;
+        try {
+            statistics = tournament.play(games);
+        } finally {
+            if (pgn != null) {
+                pgn.close();
+            }
+        }
+        System.out.printf("%nFinished %d games in %.1fs%n", statistics.getGames(), (System.nanoTime() - start) / 1e9);
+        System.out.println(engines.get(0) + " vs " + engines.get(1) + ": " + statistics);
+        if (sprt != null) {
+            switch (sprt.getResult()) {
+                case ACCEPT_H1:
+                    System.out.println("SPRT: H1 accepted, " + sprt);
+                    break;
+                case ACCEPT_H0:
+                    System.out.println("SPRT: H0 accepted, " + sprt);
+                    break;
+                default:
+                    System.out.println("SPRT: inconclusive, " + sprt);
+                    break;
+            }
+        }
+    }
+}
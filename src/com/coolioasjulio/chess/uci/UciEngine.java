@@ -0,0 +1,487 @@
+package com.coolioasjulio.chess.uci;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.Move;
+import com.coolioasjulio.chess.PackedMove;
+import com.coolioasjulio.chess.pieces.Piece;
+import com.coolioasjulio.chess.players.PrunedMinimaxComputerPlayer;
+import com.coolioasjulio.chess.search.SearchInfo;
+import com.coolioasjulio.chess.tournament.TimeControl;
+import com.coolioasjulio.configuration.Setting;
+
+/**
+ * Plays as a {@link PrunedMinimaxComputerPlayer} over the Universal Chess Interface, so the engine can be used by
+ * chess GUIs and match managers. Commands are read from the input, and responses are written to the output.
+ * <p>
+ * The settings of the player are the UCI options, with the same names, except that the hash size and the threads have
+ * the standard names Hash and Threads, which GUIs set themselves. Searches run on a background thread, which
+ * reports each completed iteration as an info line, so the engine keeps responding to commands while it searches.
+ * The limits of a go command replace the depth, time and node limit settings for that search only. A go command
+ * without limits searches with the settings.
+ * <p>
+ * A go ponder command searches without a time limit, and waits for ponderhit or stop before reporting its move, like
+ * an infinite search. On ponderhit, the time limit the search would have had starts from then.
+ */
+public class UciEngine {
+    private static final String NAME = "JavaChessAI";
+    private static final String AUTHOR = "coolioasjulio";
+    // The depth of searches that are only limited by time or nodes, or not limited at all
+    private static final int MAX_DEPTH = 64;
+    // The standard UCI names of the settings that have one, by the name of the setting
+    private static final Map<String, String> STANDARD_OPTION_NAMES = Map.of(
+            "Hash Size (MB)", "Hash",
+            "Threads", "Threads");
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final PrunedMinimaxComputerPlayer player;
+    private final ExecutorService searchThread;
+    private Board board;
+    private Future<?> search;
+    private boolean infinite;
+    private boolean pondering;
+    // The time limit of a pondering search once the opponent plays the expected move, in milliseconds, or 0 for none
+    private int ponderTimeLimit;
+    // The deadline set on ponderhit, as a value of System.nanoTime(), or 0 if there was no ponderhit
+    private long ponderhitDeadline;
+    private boolean stopRequested;
+
+    /**
+     * Create an engine.
+     *
+     * @param in  The commands from the GUI.
+     * @param out The responses to the GUI.
+     */
+    public UciEngine(InputStream in, PrintStream out) {
+        this.in = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.out = out;
+        board = Board.fromFEN(Board.STARTING_FEN);
+        player = new PrunedMinimaxComputerPlayer(board);
+        player.setInfoListener(this::onSearchInfo);
+        searchThread = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "UciEngine search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) throws IOException {
+        // The player logs every move it searches, and the output is only for the protocol
+        Logger.getLogger("").setLevel(Level.WARNING);
+        new UciEngine(System.in, System.out).run();
+    }
+
+    /**
+     * Respond to commands until the quit command, or the end of the input.
+     *
+     * @throws IOException If the input can't be read.
+     */
+    public void run() throws IOException {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    if (!handleCommand(line)) {
+                        break;
+                    }
+                } catch (IllegalArgumentException e) {
+                    out.println("info string " + e.getMessage());
+                }
+            }
+        } finally {
+            stopSearch();
+            searchThread.shutdown();
+            player.close();
+        }
+    }
+
+    /**
+     * Respond to a command.
+     *
+     * @return False if the command was quit, true otherwise.
+     * @throws IllegalArgumentException If the command is malformed.
+     */
+    private boolean handleCommand(String line) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "uci":
+                out.println("id name " + NAME);
+                out.println("id author " + AUTHOR);
+                for (Setting<?> setting : player.getConfigurationMenu().getSettings()) {
+                    out.println(describeOption(setting));
+                }
+                // Tells the GUI it may send go ponder
+                out.println("option name Ponder type check default false");
+                out.println("uciok");
+                break;
+            case "isready":
+                out.println("readyok");
+                break;
+            case "ucinewgame":
+                stopSearch();
+                player.newGame();
+                break;
+            case "setoption":
+                stopSearch();
+                setOption(line);
+                break;
+            case "position":
+                stopSearch();
+                setPosition(tokens);
+                break;
+            case "go":
+                stopSearch();
+                go(tokens);
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "ponderhit":
+                ponderhit();
+                break;
+            case "quit":
+                return false;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + line);
+        }
+        return true;
+    }
+
+    private static String optionName(Setting<?> setting) {
+        return STANDARD_OPTION_NAMES.getOrDefault(setting.getName(), setting.getName());
+    }
+
+    private String describeOption(Setting<?> setting) {
+        String name = optionName(setting);
+        String current = String.valueOf(setting.getCurrentSetting());
+        switch (setting.getInputType()) {
+            case INTEGER:
+                int min = setting.getValidator().isValid("0") ? 0 : 1;
+                return String.format("option name %s type spin default %s min %d max %d",
+                        name, current, min, Integer.MAX_VALUE);
+            case CHOICE:
+                if (setting.getChoices()[0] instanceof Boolean) {
+                    return String.format("option name %s type check default %s", name, current);
+                }
+                StringBuilder sb = new StringBuilder(
+                        String.format("option name %s type combo default %s", name, current));
+                for (String choice : setting.getChoicesNames()) {
+                    sb.append(" var ").append(choice);
+                }
+                return sb.toString();
+            default:
+                return String.format("option name %s type string default %s", name, current);
+        }
+    }
+
+    /**
+     * Handle "setoption name NAME [value VALUE]". Option names are case insensitive, and may contain spaces. The
+     * settings with a standard name can also be set by the name of the setting.
+     */
+    private void setOption(String line) {
+        int nameIndex = line.indexOf(" name ");
+        if (nameIndex < 0) {
+            throw new IllegalArgumentException("Missing option name: " + line);
+        }
+        int valueIndex = line.indexOf(" value ");
+        String name = (valueIndex < 0 ? line.substring(nameIndex + 6) : line.substring(nameIndex + 6, valueIndex))
+                .trim();
+        String value = valueIndex < 0 ? "" : line.substring(valueIndex + 7).trim();
+        if (name.equalsIgnoreCase("Ponder")) {
+            // The GUI decides when to ponder, so there is nothing to set
+            return;
+        }
+
+        for (Setting<?> setting : player.getConfigurationMenu().getSettings()) {
+            if (!optionName(setting).equalsIgnoreCase(name) && !setting.getName().equalsIgnoreCase(name)) {
+                continue;
+            }
+            if (!setting.getValidator().isValid(value)) {
+                throw new IllegalArgumentException("Invalid value for " + optionName(setting) + ": " + value);
+            }
+            switch (setting.getInputType()) {
+                case INTEGER:
+                    setting.updateUntypedValue(Integer.parseInt(value));
+                    return;
+                case DOUBLE:
+                    setting.updateUntypedValue(Double.parseDouble(value));
+                    return;
+                case CHOICE:
+                    String[] choices = setting.getChoicesNames();
+                    for (int i = 0; i < choices.length; i++) {
+                        if (choices[i].equalsIgnoreCase(value)) {
+                            setting.updateUntypedValue(setting.getChoices()[i]);
+                            return;
+                        }
+                    }
+                    throw new IllegalArgumentException("Invalid value for " + optionName(setting) + ": " + value);
+                default:
+                    setting.updateUntypedValue(value);
+                    return;
+            }
+        }
+        throw new IllegalArgumentException("Unknown option: " + name);
+    }
+
+    /**
+     * Handle "position (startpos | fen FEN) [moves MOVE...]". The moves are in long algebraic notation.
+     */
+    private void setPosition(String[] tokens) {
+        int movesIndex = tokens.length;
+        for (int i = 1; i < tokens.length; i++) {
+            if (tokens[i].equals("moves")) {
+                movesIndex = i;
+                break;
+            }
+        }
+        Board position;
+        if (tokens.length > 1 && tokens[1].equals("startpos")) {
+            position = Board.fromFEN(Board.STARTING_FEN);
+        } else if (tokens.length > 2 && tokens[1].equals("fen")) {
+            position = Board.fromFEN(String.join(" ", Arrays.copyOfRange(tokens, 2, movesIndex)));
+        } else {
+            throw new IllegalArgumentException("Invalid position: " + String.join(" ", tokens));
+        }
+        for (int i = movesIndex + 1; i < tokens.length; i++) {
+            int move = position.findLegalMove(position.getTeamToMove(), parseMove(tokens[i]));
+            if (move == PackedMove.NONE) {
+                throw new IllegalArgumentException("Illegal move: " + tokens[i]);
+            }
+            position.makeMove(move);
+        }
+        board = position;
+        player.setBoard(board);
+    }
+
+    /**
+     * Parse a move in long algebraic notation, such as e2e4 or e7e8q, into the lowest 16 bits of a packed move.
+     */
+    private static int parseMove(String move) {
+        if (!move.matches("[a-h][1-8][a-h][1-8][nbrq]?")) {
+            throw new IllegalArgumentException("Invalid move: " + move);
+        }
+        int from = (move.charAt(0) - 'a') + (move.charAt(1) - '1') * 8;
+        int to = (move.charAt(2) - 'a') + (move.charAt(3) - '1') * 8;
+        int promotion = move.length() == 5 ? "nbrq".indexOf(move.charAt(4)) + 1 : 0;
+        return PackedMove.create(from, to, 0, 0, promotion, 0);
+    }
+
+    /**
+     * Handle "go [ponder] [depth N] [nodes N] [movetime MS] [wtime MS] [btime MS] [winc MS] [binc MS] [movestogo N]
+     * [infinite]", and start the search on the search thread.
+     */
+    private void go(String[] tokens) {
+        Integer depth = null;
+        Integer nodes = null;
+        Integer moveTime = null;
+        long[] clocks = new long[2];
+        long[] increments = new long[2];
+        boolean hasClock = false;
+        int movesToGo = 0;
+        boolean searchInfinite = false;
+        boolean searchPonder = false;
+        for (int i = 1; i < tokens.length; i++) {
+            switch (tokens[i]) {
+                case "depth":
+                    depth = parseInt(tokens, ++i);
+                    break;
+                case "nodes":
+                    nodes = parseInt(tokens, ++i);
+                    break;
+                case "movetime":
+                    moveTime = parseInt(tokens, ++i);
+                    break;
+                case "wtime":
+                    clocks[0] = parseInt(tokens, ++i);
+                    hasClock = true;
+                    break;
+                case "btime":
+                    clocks[1] = parseInt(tokens, ++i);
+                    hasClock = true;
+                    break;
+                case "winc":
+                    increments[0] = parseInt(tokens, ++i);
+                    break;
+                case "binc":
+                    increments[1] = parseInt(tokens, ++i);
+                    break;
+                case "movestogo":
+                    movesToGo = parseInt(tokens, ++i);
+                    break;
+                case "infinite":
+                    searchInfinite = true;
+                    break;
+                case "ponder":
+                    searchPonder = true;
+                    break;
+                default:
+                    // Ignore the parameters that aren't supported, such as searchmoves
+                    break;
+            }
+        }
+
+        int team = board.getTeamToMove();
+        int searchDepth = player.getSearchDepth();
+        int timeLimit = player.getTimeLimit();
+        int nodeLimit = player.getNodeLimit();
+        if (depth != null || nodes != null || moveTime != null || hasClock || searchInfinite) {
+            player.setSearchDepth(depth != null ? Math.max(1, depth) : MAX_DEPTH);
+            player.setNodeLimit(nodes != null ? nodes : 0);
+            if (moveTime != null) {
+                player.setTimeLimit(Math.max(1, moveTime));
+            } else if (hasClock && !searchInfinite) {
+                int clock = team == Piece.WHITE ? 0 : 1;
+                player.setTimeLimit(TimeControl.getMoveTime(clocks[clock], increments[clock], movesToGo));
+            } else {
+                player.setTimeLimit(0);
+            }
+        }
+        int moveTimeLimit = player.getTimeLimit();
+        if (searchPonder) {
+            // The opponent is thinking, so there is no time limit until ponderhit
+            if (depth == null && nodes == null) {
+                player.setSearchDepth(MAX_DEPTH);
+            }
+            player.setTimeLimit(0);
+        }
+        player.setTeam(team);
+        Board searchBoard = board;
+        synchronized (this) {
+            infinite = searchInfinite;
+            pondering = searchPonder;
+            ponderTimeLimit = searchInfinite ? 0 : moveTimeLimit;
+            ponderhitDeadline = 0;
+            stopRequested = false;
+        }
+        search = searchThread.submit(() -> {
+            try {
+                out.println("bestmove " + search(searchBoard));
+            } finally {
+                player.setSearchDepth(searchDepth);
+                player.setTimeLimit(timeLimit);
+                player.setNodeLimit(nodeLimit);
+            }
+        });
+    }
+
+    /**
+     * Search the position on the search thread.
+     *
+     * @return The best move and the move to ponder on, as the bestmove command expects them.
+     */
+    private String search(Board searchBoard) {
+        int team = searchBoard.getTeamToMove();
+        String bestMove;
+        if (searchBoard.getLegalMoveCount(team) == 0) {
+            // The game is over, so there is no move to search
+            bestMove = PackedMove.toString(PackedMove.NONE);
+        } else {
+            try {
+                Move move = player.getMove();
+                int packed = searchBoard.findLegalMove(team, PackedMove.fromMove(searchBoard, move));
+                bestMove = PackedMove.toString(packed);
+                int[] pv = player.getLastSearchInfo().getPackedPv();
+                if (pv.length > 1 && (pv[0] & 0xFFFF) == (packed & 0xFFFF)) {
+                    bestMove += " ponder " + PackedMove.toString(pv[1]);
+                }
+            } catch (RuntimeException e) {
+                out.println("info string Search failed: " + e);
+                bestMove = PackedMove.toString(PackedMove.NONE);
+            }
+        }
+        // An infinite or pondering search may only report its move once it is stopped, or the ponder move is played
+        synchronized (this) {
+            while ((infinite || pondering) && !stopRequested) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return bestMove;
+    }
+
+    private void onSearchInfo(SearchInfo info) {
+        out.println("info " + info);
+        // A stop or ponderhit before the search started would have been forgotten, so it is repeated after each
+        // iteration
+        synchronized (this) {
+            if (stopRequested) {
+                player.stop();
+            } else if (ponderhitDeadline != 0) {
+                player.setDeadline(ponderhitDeadline);
+            }
+        }
+    }
+
+    /**
+     * The opponent played the move that was pondered on, so continue the search as a normal one, with the time limit
+     * starting now.
+     */
+    private synchronized void ponderhit() {
+        if (search == null || !pondering) {
+            return;
+        }
+        pondering = false;
+        if (ponderTimeLimit > 0) {
+            ponderhitDeadline = System.nanoTime() + ponderTimeLimit * 1_000_000L;
+            player.setDeadline(ponderhitDeadline);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Stop the search, if there is one, and wait for it to report its move.
+     */
+    private void stopSearch() {
+        if (search == null) {
+            return;
+        }
+        synchronized (this) {
+            stopRequested = true;
+            notifyAll();
+        }
+        player.stop();
+        try {
+            search.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+        search = null;
+    }
+
+    private static int parseInt(String[] tokens, int index) {
+        if (index >= tokens.length) {
+            throw new IllegalArgumentException("Missing value for " + tokens[index - 1]);
+        }
+        try {
+            // Clocks can be negative if the GUI is late, so they are clamped to 0
+            return (int) Math.max(0, Math.min(Integer.MAX_VALUE, Long.parseLong(tokens[index])));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + tokens[index - 1] + ": " + tokens[index]);
+        }
+    }
+}
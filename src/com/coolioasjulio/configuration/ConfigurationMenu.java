@@ -6,10 +6,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ConfigurationMenu {
 
-    private static final Set<ConfigurationMenu> configMenus = new HashSet<>();
+    // Players register their menus when they are created, which may be on several threads at once
+    private static final Set<ConfigurationMenu> configMenus = ConcurrentHashMap.newKeySet();
 
     public static void addConfigMenu(ConfigurationMenu menu) {
         configMenus.add(menu);
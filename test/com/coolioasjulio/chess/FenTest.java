@@ -0,0 +1,121 @@
+package com.coolioasjulio.chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.coolioasjulio.chess.pieces.Piece;
+
+class FenTest {
+    private static final String[] POSITIONS = {
+            Board.STARTING_FEN,
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+            "rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 3",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 12 57",
+            "r3k2r/8/8/8/8/8/8/R3K2R b Kq - 3 20",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "7k/8/8/1Q1Q4/8/1Q1Q4/8/K7 w - - 0 80",
+    };
+
+    /**
+     * Play moves given as from and to squares, such as e2e4.
+     */
+    private static void play(Board board, String... moves) {
+        for (String move : moves) {
+            int from = (move.charAt(0) - 'a') + (move.charAt(1) - '1') * 8;
+            int to = (move.charAt(2) - 'a') + (move.charAt(3) - '1') * 8;
+            int packed = board.findLegalMove(board.getTeamToMove(), PackedMove.create(from, to, 0, 0, 0, 0));
+            assertNotEquals(PackedMove.NONE, packed, "Illegal move: " + move);
+            board.makeMove(packed);
+        }
+    }
+
+    @Test
+    void roundTrips() {
+        for (String fen : POSITIONS) {
+            assertEquals(fen, Board.fromFEN(fen).getFEN());
+        }
+    }
+
+    @Test
+    void defaultsTheMoveCounters() {
+        assertEquals("4k3/8/8/8/8/8/8/4K3 w - - 0 1", Board.fromFEN("4k3/8/8/8/8/8/8/4K3 w - -").getFEN());
+        assertEquals("4k3/8/8/8/8/8/8/4K3 b - - 7 1", Board.fromFEN("4k3/8/8/8/8/8/8/4K3 b - - 7 0").getFEN());
+    }
+
+    @Test
+    void dropsEnPassantSquaresThatCantBeCaptured() {
+        Board board = Board.fromFEN("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", board.getFEN());
+        assertEquals(Board.fromFEN(board.getFEN()).getHash(), board.getHash());
+    }
+
+    @Test
+    void loadingIntoOneBoardMatchesNewBoards() {
+        Board board = new Board();
+        // Twice, so the second time reuses the pieces of other positions
+        for (int round = 0; round < 2; round++) {
+            for (String fen : POSITIONS) {
+                board.loadFEN(fen);
+                Board fresh = Board.fromFEN(fen);
+                assertEquals(fen, board.getFEN());
+                assertEquals(fresh.getHash(), board.getHash());
+                assertEquals(fresh.getLegalMoveCount(fresh.getTeamToMove()),
+                        board.getLegalMoveCount(board.getTeamToMove()));
+            }
+        }
+    }
+
+    @Test
+    void tracksMovesAfterLoading() {
+        Board board = Board.fromFEN(Board.STARTING_FEN);
+        play(board, "e2e4", "d7d5", "e4e5", "f7f5");
+        assertEquals("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3", board.getFEN());
+        play(board, "g1f3");
+        assertEquals("rnbqkbnr/ppp1p1pp/8/3pPp2/8/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 3", board.getFEN());
+        play(board, "e8f7", "h1g1");
+        assertEquals("rnbq1bnr/ppp1pkpp/8/3pPp2/8/5N2/PPPP1PPP/RNBQKBR1 b Q - 3 4", board.getFEN());
+
+        board.loadFEN("r3k2r/8/8/8/8/8/8/R3K2R b Kq - 3 20");
+        play(board, "a8b8");
+        assertEquals("1r2k2r/8/8/8/8/8/8/R3K2R w K - 4 21", board.getFEN());
+        board.unmakeMove();
+        assertEquals("r3k2r/8/8/8/8/8/8/R3K2R b Kq - 3 20", board.getFEN());
+    }
+
+    @Test
+    void castlingRightsLimitCastling() {
+        Board board = Board.fromFEN("r3k2r/8/8/8/8/8/8/R3K2R w Q - 0 1");
+        int kingSide = PackedMove.create(4, 6, 0, 0, 0, 0);
+        int queenSide = PackedMove.create(4, 2, 0, 0, 0, 0);
+        assertEquals(PackedMove.NONE, board.findLegalMove(Piece.WHITE, kingSide));
+        assertNotEquals(PackedMove.NONE, board.findLegalMove(Piece.WHITE, queenSide));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "8/8/8/8/8/8/8/8 w - - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w QK - 0 1",
+            "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - x 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNRR w KQkq - 0 1",
+            "rnbqkbnr/ppppxppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKKNR w KQkq - 0 1",
+    })
+    void rejectsMalformedFensWithoutChangingTheBoard(String fen) {
+        Board board = Board.fromFEN(POSITIONS[3]);
+        long hash = board.getHash();
+        assertThrows(IllegalArgumentException.class, () -> board.loadFEN(fen));
+        assertEquals(POSITIONS[3], board.getFEN());
+        assertEquals(hash, board.getHash());
+    }
+}
@@ -0,0 +1,46 @@
+package com.coolioasjulio.chess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.coolioasjulio.chess.pgn.San;
+
+class StaticExchangeTest {
+    // The expected values use the vanilla piece values: pawn 1, knight and bishop 3, rook 5 and queen 9
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            // Undefended pawn
+            "1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1 | Rxe5 | 1",
+            // Pawn defended by a pawn, and a bishop behind the knight's defenders
+            "1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1 | Nxe5 | -2",
+            // Pawn defended by a pawn
+            "4k3/8/2p5/3p4/8/8/8/3QK3 w - - 0 1 | Qxd5 | -8",
+            // A pawn capturing an undefended knight
+            "4k3/8/3n4/4P3/8/8/8/4K3 w - - 0 1 | exd6 | 3",
+            // The rooks behind each other join the exchange, and white stops after losing a rook for a pawn
+            "3r2k1/3r4/8/3p4/8/8/3R4/3RK3 w - - 0 1 | Rxd5 | -4",
+            // With only one defender, white comes out a pawn ahead
+            "6k1/3r4/8/3p4/8/8/3R4/3RK3 w - - 0 1 | Rxd5 | 1",
+            // The pawn that is captured en passant isn't on the target square
+            "4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1 | exd6 | 1",
+            // Promotions gain the difference between the pieces
+            "4k3/P7/8/8/8/8/8/4K3 w - - 0 1 | a8=Q | 8",
+            "1r2k3/P7/8/8/8/8/8/4K3 w - - 0 1 | a8=Q | -1",
+            "1r2k3/P7/8/8/8/8/8/4K3 w - - 0 1 | axb8=N | 7",
+            // The king can only recapture on undefended squares
+            "4k3/3p4/8/8/8/8/8/3QK3 w - - 0 1 | Qxd7+ | -8",
+            "4k3/3p4/8/8/8/7B/8/3QK3 w - - 0 1 | Qxd7+ | 1",
+            // A knight trade
+            "4k3/8/4p3/3n4/8/4N3/8/4K3 w - - 0 1 | Nxd5 | 0",
+            // Black captures too
+            "4k3/8/8/3q4/4P3/8/8/4K3 b - - 0 1 | Qxe4+ | 1",
+            "4k3/8/8/3q4/4P3/5P2/8/4K3 b - - 0 1 | Qxe4 | -8",
+    })
+    void scoresExchanges(String fen, String san, int expected) {
+        Board board = Board.fromFEN(fen);
+        assertEquals(expected, board.staticExchange(San.parse(board, san)));
+        assertEquals(fen, board.getFEN());
+    }
+}
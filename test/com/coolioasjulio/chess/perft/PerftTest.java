@@ -0,0 +1,104 @@
+package com.coolioasjulio.chess.perft;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.coolioasjulio.chess.Board;
+
+class PerftTest {
+    // The counts of perft.epd go up to hundreds of millions of nodes, so only the smaller ones are checked
+    private static final long MAX_NODES = 1_000_000;
+    private static final long MAX_LEGACY_NODES = 50_000;
+
+    /**
+     * Read the positions and counts of perft.epd.
+     *
+     * @return The arguments of each count, which are the FEN, the depth and the expected count.
+     */
+    static List<Arguments> counts() throws IOException {
+        List<Arguments> counts = new ArrayList<>();
+        InputStream in = Objects.requireNonNull(PerftTest.class.getClassLoader().getResourceAsStream("perft.epd"));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split(";");
+                for (int i = 1; i < parts.length; i++) {
+                    String[] tokens = parts[i].trim().split("\\s+");
+                    counts.add(Arguments.of(parts[0].trim(), Integer.parseInt(tokens[0].substring(1)),
+                            Long.parseLong(tokens[1])));
+                }
+            }
+        }
+        return counts;
+    }
+
+    @ParameterizedTest
+    @MethodSource("counts")
+    void countsMatch(String fen, int depth, long expected) {
+        assumeTrue(expected <= MAX_NODES);
+        assertEquals(expected, new Perft().perft(Board.fromFEN(fen), depth));
+    }
+
+    @ParameterizedTest
+    @MethodSource("counts")
+    void legacyCountsMatch(String fen, int depth, long expected) {
+        assumeTrue(expected <= MAX_LEGACY_NODES);
+        assertEquals(expected, new Perft(1, true).perft(Board.fromFEN(fen), depth));
+    }
+
+    @Test
+    void threadedCountsMatch() {
+        Perft perft = new Perft(4, false);
+        assertEquals(197281, perft.perft(Board.fromFEN(Board.STARTING_FEN), 4));
+        assertEquals(97862, perft.perft(
+                Board.fromFEN("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1"), 3));
+    }
+
+    @Test
+    void divideSplitsTheCountByMove() {
+        Board board = Board.fromFEN(Board.STARTING_FEN);
+        Map<String, Long> counts = new Perft().divide(board, 3);
+        assertEquals(20, counts.size());
+        assertEquals(600, counts.get("e2e4"));
+        assertEquals(440, counts.get("g1f3"));
+        assertEquals(8902, counts.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void leavesTheBoardUnchanged() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        Board board = Board.fromFEN(fen);
+        long hash = board.getHash();
+        new Perft().perft(board, 3);
+        new Perft(2, true).perft(board, 2);
+        assertEquals(fen, board.getFEN());
+        assertEquals(hash, board.getHash());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new Perft(0, false));
+        assertThrows(IllegalArgumentException.class, () -> new Perft().divide(new Board(), 0));
+        assertEquals(1, new Perft().perft(Board.fromFEN(Board.STARTING_FEN), 0));
+    }
+}
@@ -0,0 +1,175 @@
+package com.coolioasjulio.chess.pgn;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.MoveList;
+
+class PgnTest {
+    private static final String[] START_FENS = {
+            Board.STARTING_FEN,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 b - - 12 57",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+    };
+
+    /**
+     * Create games of random legal moves, with every tag the writer would add, so reading them back gives equal games.
+     */
+    private static List<PgnGame> randomGames(int count, long seed) {
+        Random random = new Random(seed);
+        MoveList moves = new MoveList();
+        List<PgnGame> games = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String fen = START_FENS[i % START_FENS.length];
+            Board board = Board.fromFEN(fen);
+            int[] packed = new int[random.nextInt(150)];
+            int length = 0;
+            while (length < packed.length) {
+                board.generateLegalMoves(board.getTeamToMove(), moves);
+                if (moves.size() == 0) {
+                    break;
+                }
+                packed[length] = moves.get(random.nextInt(moves.size()));
+                board.makeMove(packed[length++]);
+            }
+
+            Map<String, String> tags = new LinkedHashMap<>();
+            tags.put("Event", "Test \"quoted\" \\ game");
+            tags.put("Site", "?");
+            tags.put("Date", "2024.01.0" + (i % 9 + 1));
+            tags.put("Round", String.valueOf(i + 1));
+            tags.put("White", "White " + i);
+            tags.put("Black", "Black " + i);
+            tags.put("Result", i % 3 == 0 ? "1-0" : i % 3 == 1 ? "1/2-1/2" : "*");
+            if (!fen.equals(Board.STARTING_FEN)) {
+                tags.put("SetUp", "1");
+                tags.put("FEN", fen);
+            }
+            tags.put("PlyCount", String.valueOf(length));
+            games.add(new PgnGame(tags, Arrays.copyOf(packed, length)));
+        }
+        return games;
+    }
+
+    private static List<PgnGame> readAll(String pgn) throws IOException {
+        List<PgnGame> games = new ArrayList<>();
+        try (PgnReader reader = new PgnReader(new StringReader(pgn))) {
+            PgnGame game;
+            while ((game = reader.next()) != null) {
+                games.add(game);
+            }
+        }
+        return games;
+    }
+
+    @Test
+    void roundTripsGames() throws IOException {
+        List<PgnGame> games = randomGames(40, 1);
+        StringBuilder pgn = new StringBuilder();
+        for (PgnGame game : games) {
+            pgn.append(PgnWriter.toString(game));
+        }
+        assertEquals(games, readAll(pgn.toString()));
+        for (String line : pgn.toString().split("\n")) {
+            assertTrue(line.length() <= 79, line);
+        }
+    }
+
+    @Test
+    void roundTripsFilesOnSeveralThreads(@TempDir Path dir) throws IOException, InterruptedException {
+        List<PgnGame> games = randomGames(300, 2);
+        Path file = dir.resolve("games.pgn");
+        try (PgnWriter writer = PgnWriter.open(file)) {
+            for (PgnGame game : games) {
+                writer.write(game);
+            }
+        }
+        Set<PgnGame> read = ConcurrentHashMap.newKeySet();
+        assertEquals(games.size(), PgnReader.readAll(file, 4, read::add));
+        assertEquals(new HashSet<>(games), read);
+    }
+
+    @Test
+    void writesTheSevenTagRosterFirst() {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Annotator", "Someone");
+        tags.put("White", "Alice");
+        Board board = Board.fromFEN(Board.STARTING_FEN);
+        int e4 = San.parse(board, "e4");
+        board.makeMove(e4);
+        int e5 = San.parse(board, "e5");
+        assertEquals("[Event \"?\"]\n[Site \"?\"]\n[Date \"????.??.??\"]\n[Round \"?\"]\n[White \"Alice\"]\n"
+                        + "[Black \"?\"]\n[Result \"*\"]\n[Annotator \"Someone\"]\n\n1. e4 e5 *\n\n",
+                PgnWriter.toString(new PgnGame(tags, new int[]{e4, e5})));
+    }
+
+    @Test
+    void numbersBlacksFirstMove() {
+        String fen = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 b - - 12 57";
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("FEN", fen);
+        Board board = Board.fromFEN(fen);
+        int move = San.parse(board, "Rxb5+");
+        String pgn = PgnWriter.toString(new PgnGame(tags, new int[]{move}));
+        assertTrue(pgn.endsWith("\n57... Rxb5+ *\n\n"), pgn);
+    }
+
+    @Test
+    void skipsCommentsVariationsAndAnnotations() throws IOException {
+        String pgn = "[Event \"Test\"]\n"
+                + "; A comment line\n"
+                + "\n"
+                + "1.e4 {The best move} e5 $1 2. Nf3 (2. f4 exf4 (2... d5) 3. Nf3) 2... Nc6!? ; rest of line\n"
+                + "3.Bb5 a6 1-0\n";
+        List<PgnGame> games = readAll(pgn);
+        assertEquals(1, games.size());
+        PgnGame game = games.get(0);
+        assertEquals("1-0", game.getResult());
+        assertEquals("Test", game.getTag("Event"));
+
+        Board board = Board.fromFEN(Board.STARTING_FEN);
+        String[] san = {"e4", "e5", "Nf3", "Nc6", "Bb5", "a6"};
+        int[] expected = new int[san.length];
+        for (int i = 0; i < san.length; i++) {
+            expected[i] = San.parse(board, san[i]);
+            board.makeMove(expected[i]);
+        }
+        assertArrayEquals(expected, game.getPackedMoves());
+    }
+
+    @Test
+    void skipsMalformedGames() throws IOException {
+        String pgn = "[Event \"First\"]\n\n1. e4 e5 *\n\n"
+                + "[Event \"Illegal\"]\n\n1. e4 e4 *\n\n"
+                + "[Event \"Unmatched\"]\n\n1. e4 ) e5 *\n\n"
+                + "[Event \"Last\"]\n\n1. d4 *\n";
+        try (PgnReader reader = new PgnReader(new StringReader(pgn))) {
+            assertEquals("First", reader.next().getTag("Event"));
+            assertThrows(IllegalArgumentException.class, reader::next);
+            assertThrows(IllegalArgumentException.class, reader::next);
+            assertEquals("Last", reader.next().getTag("Event"));
+            assertNull(reader.next());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.coolioasjulio.chess.pgn;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.coolioasjulio.chess.Board;
+import com.coolioasjulio.chess.MoveList;
+import com.coolioasjulio.chess.PackedMove;
+
+class SanTest {
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 | e2e4 | e4",
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 | g1f3 | Nf3",
+            "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1 | e1g1 | O-O",
+            "r3k2r/8/8/8/8/8/8/R3K2R b KQkq - 0 1 | e8c8 | O-O-O",
+            "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3 | e5f6 | exf6",
+            "4k3/P7/8/8/8/8/8/4K3 w - - 0 1 | a7a8q | a8=Q+",
+            "5n1k/4P3/8/8/8/8/8/4K3 w - - 0 1 | e7f8n | exf8=N",
+            "6k1/5ppp/8/8/8/8/8/R3K3 w Q - 0 1 | a1a8 | Ra8#",
+            "rnbqkbnr/pppppppp/8/8/8/5N2/PPP1PPPP/RNBQKB1R w KQkq - 0 1 | b1d2 | Nbd2",
+            "4k3/8/8/8/R7/8/8/R3K3 w Q - 0 1 | a1a2 | R1a2",
+            "4k3/8/8/8/8/8/8/Q1Q1K3 w - - 0 1 | a1b2 | Qab2",
+            "4k3/8/8/8/8/Q7/8/Q1Q1K3 w - - 0 1 | a1b2 | Qa1b2",
+            "4k3/8/8/3p4/4P3/8/8/4K3 w - - 0 1 | e4d5 | exd5",
+            "4k3/8/8/3p4/8/8/8/3QK3 w - - 0 1 | d1d5 | Qxd5",
+            "7k/8/8/1Q1Q4/8/1Q1Q4/8/K7 w - - 0 1 | b5c4 | Qb5c4",
+    })
+    void writesAndParsesMoves(String fen, String move, String san) {
+        Board board = Board.fromFEN(fen);
+        int packed = San.parse(board, san);
+        assertEquals(move, PackedMove.toString(packed));
+        assertEquals(san, San.toString(board, packed));
+        assertEquals(fen, board.getFEN());
+    }
+
+    @Test
+    void roundTripsEveryLegalMove() {
+        String[] positions = {
+                Board.STARTING_FEN,
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                "7k/8/8/1Q1Q4/8/1Q1Q4/8/K7 w - - 0 1",
+        };
+        MoveList moves = new MoveList();
+        for (String fen : positions) {
+            Board board = Board.fromFEN(fen);
+            board.generateLegalMoves(board.getTeamToMove(), moves);
+            for (int i = 0; i < moves.size(); i++) {
+                String san = San.toString(board, moves.get(i));
+                assertEquals(moves.get(i), San.parse(board, san), san);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"e4!", "e4?!", "Nf3+", "Ng1-f3", "Ng1xf3", "e2e4"})
+    void acceptsVariants(String san) {
+        Board board = Board.fromFEN(Board.STARTING_FEN);
+        San.parse(board, san);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "e9", "Ke3", "Nf4", "O-O-O", "Pe4", "Xe4", "e", "O-O-O-O", "Nf3=Q"})
+    void rejectsMalformedOrIllegalMoves(String san) {
+        Board board = Board.fromFEN(Board.STARTING_FEN);
+        assertThrows(IllegalArgumentException.class, () -> San.parse(board, san));
+    }
+
+    @Test
+    void rejectsAmbiguousMoves() {
+        Board board = Board.fromFEN("4k3/8/8/8/8/8/8/Q1Q1K3 w - - 0 1");
+        assertThrows(IllegalArgumentException.class, () -> San.parse(board, "Qb2"));
+    }
+}
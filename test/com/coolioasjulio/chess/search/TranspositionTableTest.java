@@ -0,0 +1,129 @@
+package com.coolioasjulio.chess.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.coolioasjulio.chess.Score;
+
+class TranspositionTableTest {
+    // A 1 MB table has 16384 buckets, so these keys all fall in the first one
+    private static final long BUCKET_STRIDE = 16384;
+
+    @Test
+    void probesStoredEntries() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x123456789ABCDEFL;
+        assertEquals(0, table.probe(key));
+
+        table.store(key, 0xABCD, -1234, 7, TranspositionTable.LOWER_BOUND);
+        long entry = table.probe(key);
+        assertEquals(0xABCD, TranspositionTable.getMove(entry));
+        assertEquals(-1234, TranspositionTable.getScore(entry));
+        assertEquals(7, TranspositionTable.getDepth(entry));
+        assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.getBound(entry));
+        assertEquals(0, table.probe(key + 1));
+        assertEquals(0, table.probe(~key));
+    }
+
+    @Test
+    void storesTheWholeRangeOfScoresAndDepths() {
+        TranspositionTable table = new TranspositionTable(1);
+        int[] scores = {0, 1, -1, Score.MATE, -Score.MATE, Score.MATE - 17, -(Score.MATE - 17), Integer.MAX_VALUE,
+                Integer.MIN_VALUE};
+        int[] depths = {-128, -1, 0, 1, 127};
+        long key = 1;
+        for (int score : scores) {
+            for (int depth : depths) {
+                key = key * 6364136223846793005L + 1442695040888963407L;
+                table.store(key, 0xFFFF, score, depth, TranspositionTable.UPPER_BOUND);
+                long entry = table.probe(key);
+                assertEquals(0xFFFF, TranspositionTable.getMove(entry));
+                assertEquals(score, TranspositionTable.getScore(entry));
+                assertEquals(depth, TranspositionTable.getDepth(entry));
+                assertEquals(TranspositionTable.UPPER_BOUND, TranspositionTable.getBound(entry));
+            }
+        }
+    }
+
+    @Test
+    void keepsTheMoveIfTheNewSearchHasNone() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(42, 0x1234, 50, 3, TranspositionTable.EXACT);
+        table.store(42, 0, -20, 5, TranspositionTable.UPPER_BOUND);
+        long entry = table.probe(42);
+        assertEquals(0x1234, TranspositionTable.getMove(entry));
+        assertEquals(-20, TranspositionTable.getScore(entry));
+        assertEquals(5, TranspositionTable.getDepth(entry));
+
+        table.store(42, 0x4321, 0, 1, TranspositionTable.EXACT);
+        assertEquals(0x4321, TranspositionTable.getMove(table.probe(42)));
+    }
+
+    @Test
+    void replacesTheShallowestEntryOfAFullBucket() {
+        TranspositionTable table = new TranspositionTable(1);
+        int[] depths = {5, 2, 8, 6};
+        for (int i = 0; i < depths.length; i++) {
+            table.store((i + 1) * BUCKET_STRIDE, 1, 0, depths[i], TranspositionTable.EXACT);
+        }
+        table.store(5 * BUCKET_STRIDE, 1, 0, 1, TranspositionTable.EXACT);
+        assertEquals(0, table.probe(2 * BUCKET_STRIDE));
+        for (long key : new long[]{1, 3, 4, 5}) {
+            assertNotEquals(0, table.probe(key * BUCKET_STRIDE));
+        }
+    }
+
+    @Test
+    void prefersReplacingEntriesOfOlderSearches() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(BUCKET_STRIDE, 1, 0, 10, TranspositionTable.EXACT);
+        table.newSearch();
+        for (int i = 2; i <= 4; i++) {
+            table.store(i * BUCKET_STRIDE, 1, 0, 3, TranspositionTable.EXACT);
+        }
+        table.newSearch();
+        table.store(5 * BUCKET_STRIDE, 1, 0, 3, TranspositionTable.EXACT);
+        table.store(6 * BUCKET_STRIDE, 1, 0, 3, TranspositionTable.EXACT);
+        // The deep entry of the first search is older than the others, so it goes first
+        assertEquals(0, table.probe(BUCKET_STRIDE));
+        assertNotEquals(0, table.probe(5 * BUCKET_STRIDE));
+        assertNotEquals(0, table.probe(6 * BUCKET_STRIDE));
+    }
+
+    @Test
+    void countsTheEntriesOfTheCurrentSearch() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals(0, table.hashfull());
+        // The first 1000 entries are the first 250 buckets
+        for (long i = 0; i < 250; i++) {
+            for (long j = 0; j < 4; j++) {
+                table.store(i + j * BUCKET_STRIDE, 1, 0, 1, TranspositionTable.EXACT);
+            }
+        }
+        assertEquals(1000, table.hashfull());
+        table.newSearch();
+        assertEquals(0, table.hashfull());
+        assertNotEquals(0, table.probe(BUCKET_STRIDE));
+    }
+
+    @Test
+    void clearsAndResizes() {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(99, 1, 0, 1, TranspositionTable.EXACT);
+        table.clear();
+        assertEquals(0, table.probe(99));
+
+        table.store(99, 1, 0, 1, TranspositionTable.EXACT);
+        table.resize(2);
+        assertEquals(2, table.getSizeMB());
+        assertEquals(0, table.probe(99));
+        table.store(99, 1, 0, 1, TranspositionTable.EXACT);
+        assertNotEquals(0, table.probe(99));
+
+        assertThrows(IllegalArgumentException.class, () -> table.resize(0));
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(-1));
+    }
+}
@@ -0,0 +1,80 @@
+package com.coolioasjulio.chess.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class MatchStatisticsTest {
+    private static MatchStatistics create(int wins, int draws, int losses) {
+        MatchStatistics statistics = new MatchStatistics();
+        for (int i = 0; i < wins; i++) {
+            statistics.add(1);
+        }
+        for (int i = 0; i < draws; i++) {
+            statistics.add(0.5);
+        }
+        for (int i = 0; i < losses; i++) {
+            statistics.add(0);
+        }
+        return statistics;
+    }
+
+    @Test
+    void convertsBetweenScoreAndElo() {
+        assertEquals(0, MatchStatistics.toElo(0.5), 1e-9);
+        assertEquals(0.5, MatchStatistics.toScore(0), 1e-9);
+        assertEquals(190.849, MatchStatistics.toElo(0.75), 1e-3);
+        assertEquals(-190.849, MatchStatistics.toElo(0.25), 1e-3);
+        for (double elo = -800; elo <= 800; elo += 50) {
+            assertEquals(elo, MatchStatistics.toElo(MatchStatistics.toScore(elo)), 1e-9);
+        }
+        assertEquals(Double.POSITIVE_INFINITY, MatchStatistics.toElo(1));
+        assertEquals(Double.NEGATIVE_INFINITY, MatchStatistics.toElo(0));
+    }
+
+    @Test
+    void countsResults() {
+        MatchStatistics statistics = create(3, 2, 1);
+        assertEquals(3, statistics.getWins());
+        assertEquals(2, statistics.getDraws());
+        assertEquals(1, statistics.getLosses());
+        assertEquals(6, statistics.getGames());
+        assertEquals(4.0 / 6, statistics.getScore(), 1e-9);
+        assertThrows(IllegalArgumentException.class, () -> statistics.add(0.25));
+    }
+
+    @Test
+    void eloErrorOfEvenMatch() {
+        MatchStatistics statistics = create(10, 0, 10);
+        assertEquals(0, statistics.getEloDifference(), 1e-9);
+        // The standard deviation of the mean score is 0.5 / sqrt(20), and the slope of toElo at 0.5 is
+        // 1600 / ln(10)
+        double expected = 1.959964 * 0.5 / Math.sqrt(20) * 1600 / Math.log(10);
+        assertEquals(expected, statistics.getEloError(), 1e-6);
+    }
+
+    @Test
+    void eloErrorIsFiniteWhenTheIntervalReachesPastAPerfectScore() {
+        MatchStatistics statistics = create(17, 1, 2);
+        assertEquals(0.875, statistics.getScore(), 1e-9);
+        double error = statistics.getEloError();
+        assertTrue(Double.isFinite(error), "error: " + error);
+        assertTrue(error > 0 && error < statistics.getEloDifference(), "error: " + error);
+    }
+
+    @Test
+    void eloErrorIsInfiniteOnlyForPerfectScores() {
+        assertEquals(Double.POSITIVE_INFINITY, new MatchStatistics().getEloError());
+        assertEquals(Double.POSITIVE_INFINITY, create(5, 0, 0).getEloError());
+        assertEquals(Double.POSITIVE_INFINITY, create(0, 0, 5).getEloError());
+        assertTrue(Double.isFinite(create(4, 1, 0).getEloError()));
+        assertTrue(Double.isFinite(create(0, 1, 4).getEloError()));
+    }
+
+    @Test
+    void moreGamesGiveSmallerError() {
+        assertTrue(create(60, 20, 20).getEloError() < create(6, 2, 2).getEloError());
+    }
+}
@@ -0,0 +1,128 @@
+package com.coolioasjulio.chess.tournament;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class SprtTest {
+    /**
+     * Add pairs with the specified total scores, and get the number of pairs it took to accept a hypothesis.
+     *
+     * @return The number of pairs, or -1 if neither was accepted.
+     */
+    private static int pairsToResult(Sprt sprt, double[] pairScores, int maxPairs) {
+        for (int pair = 0; pair < maxPairs; pair++) {
+            double score = pairScores[pair % pairScores.length];
+            sprt.addGame(2 * pair, score / 2);
+            sprt.addGame(2 * pair + 1, score / 2);
+            if (sprt.getResult() != Sprt.Result.CONTINUE) {
+                return pair + 1;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    void boundsFollowFromAlphaAndBeta() {
+        Sprt sprt = new Sprt(0, 5, 0.05, 0.05);
+        assertEquals(Math.log(0.05 / 0.95), sprt.getLowerBound(), 1e-12);
+        assertEquals(Math.log(0.95 / 0.05), sprt.getUpperBound(), 1e-12);
+        assertEquals(0, sprt.getLlr());
+        assertEquals(Sprt.Result.CONTINUE, sprt.getResult());
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new Sprt(5, 0, 0.05, 0.05));
+        assertThrows(IllegalArgumentException.class, () -> new Sprt(0, 5, 0, 0.05));
+        assertThrows(IllegalArgumentException.class, () -> new Sprt(0, 5, 0.05, 1));
+    }
+
+    @Test
+    void countsGamesInPairs() {
+        Sprt sprt = new Sprt(0, 5, 0.05, 0.05);
+        assertFalse(sprt.addGame(3, 1));
+        assertFalse(sprt.addGame(0, 0.5));
+        assertTrue(sprt.addGame(2, 0.5));
+        assertTrue(sprt.addGame(1, 0));
+        assertEquals(2, sprt.getPairs());
+        // Pair 0 scored 0.5 and pair 1 scored 1.5, in half points
+        assertArrayEquals(new int[]{0, 1, 0, 1, 0}, sprt.getPairCounts());
+    }
+
+    @Test
+    void llrMatchesTheNormalApproximation() {
+        Sprt sprt = new Sprt(0, 10, 0.05, 0.05);
+        int[] counts = {20, 100, 300, 120, 30};
+        int pair = 0;
+        for (int i = 0; i < counts.length; i++) {
+            for (int j = 0; j < counts[i]; j++, pair++) {
+                sprt.addGame(2 * pair, Math.min(1, i / 2.0));
+                sprt.addGame(2 * pair + 1, Math.max(0, i / 2.0 - 1));
+            }
+        }
+        assertArrayEquals(counts, sprt.getPairCounts());
+
+        double mean = 0;
+        double total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            mean += counts[i] * i / 4.0;
+            total += counts[i];
+        }
+        mean /= total;
+        double variance = 0;
+        for (int i = 0; i < counts.length; i++) {
+            variance += counts[i] * (i / 4.0 - mean) * (i / 4.0 - mean);
+        }
+        variance /= total;
+        double score0 = MatchStatistics.toScore(0);
+        double score1 = MatchStatistics.toScore(10);
+        double expected = total * (score1 - score0) * (2 * mean - score0 - score1) / (2 * variance);
+        // The pseudo-counts barely change the LLR of a real match
+        assertEquals(expected, sprt.getLlr(), 0.01 * Math.abs(expected));
+    }
+
+    @Test
+    void acceptsH1WhenEveryPairIsWon() {
+        Sprt sprt = new Sprt(0, 5, 0.05, 0.05);
+        int pairs = pairsToResult(sprt, new double[]{2}, 8);
+        assertTrue(pairs > 0, sprt.toString());
+        assertEquals(Sprt.Result.ACCEPT_H1, sprt.getResult());
+    }
+
+    @Test
+    void acceptsH0WhenEveryPairIsLost() {
+        Sprt sprt = new Sprt(0, 5, 0.05, 0.05);
+        assertTrue(pairsToResult(sprt, new double[]{0}, 8) > 0, sprt.toString());
+        assertEquals(Sprt.Result.ACCEPT_H0, sprt.getResult());
+    }
+
+    @Test
+    void acceptsH0WhenEveryPairIsEven() {
+        // Every pair is 1-1, so the engines are equal, which is H0
+        Sprt sprt = new Sprt(0, 5, 0.05, 0.05);
+        assertTrue(pairsToResult(sprt, new double[]{1}, 50) > 0, sprt.toString());
+        assertEquals(Sprt.Result.ACCEPT_H0, sprt.getResult());
+        assertTrue(sprt.getLlr() < 0);
+    }
+
+    @Test
+    void evenResultsWithVarianceAcceptH0() {
+        Sprt sprt = new Sprt(0, 5, 0.05, 0.05);
+        assertTrue(pairsToResult(sprt, new double[]{0.5, 1, 1.5, 1, 2, 0}, 100_000) > 0, sprt.toString());
+        assertEquals(Sprt.Result.ACCEPT_H0, sprt.getResult());
+    }
+
+    @Test
+    void strongerEngineIsAccepted() {
+        // About +70 Elo
+        Sprt sprt = new Sprt(0, 5, 0.05, 0.05);
+        assertTrue(pairsToResult(sprt, new double[]{1.5, 1, 2, 1.5, 1, 0.5, 1.5, 2}, 100_000) > 0,
+                sprt.toString());
+        assertEquals(Sprt.Result.ACCEPT_H1, sprt.getResult());
+    }
+}
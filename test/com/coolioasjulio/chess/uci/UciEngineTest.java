@@ -0,0 +1,127 @@
+package com.coolioasjulio.chess.uci;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+@Timeout(30)
+class UciEngineTest {
+    private PrintStream commands;
+    private BlockingQueue<String> responses;
+    private Thread engineThread;
+
+    @BeforeEach
+    void startEngine() throws IOException {
+        // The player logs every move it searches
+        Logger.getLogger("").setLevel(Level.WARNING);
+        PipedInputStream in = new PipedInputStream();
+        commands = new PrintStream(new PipedOutputStream(in), true, StandardCharsets.UTF_8);
+        responses = new LinkedBlockingQueue<>();
+        OutputStream out = new OutputStream() {
+            private final StringBuilder line = new StringBuilder();
+
+            @Override
+            public synchronized void write(int b) {
+                if (b == '\n') {
+                    responses.add(line.toString());
+                    line.setLength(0);
+                } else {
+                    line.append((char) b);
+                }
+            }
+        };
+        UciEngine engine = new UciEngine(in, new PrintStream(out, true, StandardCharsets.UTF_8));
+        engineThread = new Thread(() -> {
+            try {
+                engine.run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        engineThread.start();
+    }
+
+    @AfterEach
+    void stopEngine() throws InterruptedException {
+        commands.println("quit");
+        engineThread.join();
+    }
+
+    /**
+     * Send a command, and get the responses up to the one that starts with the specified prefix.
+     */
+    private List<String> send(String command, String lastPrefix) throws InterruptedException {
+        commands.println(command);
+        List<String> lines = new ArrayList<>();
+        String line;
+        do {
+            line = responses.poll(20, TimeUnit.SECONDS);
+            assertNotNull(line, "No response to " + command);
+            lines.add(line);
+        } while (!line.startsWith(lastPrefix));
+        return lines;
+    }
+
+    @Test
+    void usesTheStandardOptionNames() throws InterruptedException {
+        List<String> lines = send("uci", "uciok");
+        assertTrue(lines.contains("id name JavaChessAI"));
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("option name Hash type spin default ")),
+                lines::toString);
+        assertTrue(lines.stream().anyMatch(line -> line.startsWith("option name Threads type spin default 1")),
+                lines::toString);
+        assertTrue(lines.contains("option name Ponder type check default false"));
+    }
+
+    @Test
+    void setsOptionsByEitherName() throws InterruptedException {
+        commands.println("setoption name Hash value 8");
+        commands.println("setoption name hash size (mb) value 4");
+        commands.println("setoption name threads value 2");
+        assertEquals(List.of("readyok"), send("isready", "readyok"));
+
+        List<String> lines = send("setoption name Hash value -1", "info string");
+        assertEquals("info string Invalid value for Hash: -1", lines.get(lines.size() - 1));
+        lines = send("setoption name Hashes value 8", "info string");
+        assertEquals("info string Unknown option: Hashes", lines.get(lines.size() - 1));
+    }
+
+    @Test
+    void stopsAtAProvenMate() throws InterruptedException {
+        commands.println("position fen 6k1/5ppp/8/8/8/8/8/R3K3 w Q - 0 1");
+        long start = System.nanoTime();
+        List<String> lines = send("go movetime 20000", "bestmove");
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(lines.get(lines.size() - 1).startsWith("bestmove a1a8"), lines::toString);
+        assertTrue(lines.stream().anyMatch(line -> line.contains("score mate 1")), lines::toString);
+        assertTrue(millis < 10000, "Searched for " + millis + " ms");
+    }
+
+    @Test
+    void searchesWithSeveralThreads() throws InterruptedException {
+        commands.println("setoption name Threads value 3");
+        commands.println("position startpos moves e2e4 e7e5");
+        List<String> lines = send("go depth 4", "bestmove");
+        assertTrue(lines.get(lines.size() - 1).matches("bestmove [a-h][1-8][a-h][1-8].*"), lines::toString);
+    }
+}